@@ -31,7 +31,6 @@ import android.view.MenuInflater;
 import android.view.MenuItem;
 
 import com.adizangi.tennisplayerstracker.BuildConfig;
-import com.adizangi.tennisplayerstracker.TimeActivity;
 import com.adizangi.tennisplayerstracker.adapters.TabAdapter;
 import com.adizangi.tennisplayerstracker.dialogs.CreditsDialog;
 import com.adizangi.tennisplayerstracker.dialogs.FeaturesDialog;
@@ -135,10 +134,9 @@ public class MainActivity extends AppCompatActivity {
                 CreditsDialog creditsDialog = new CreditsDialog();
                 creditsDialog.show(getSupportFragmentManager(), "credits");
                 return true;
-            case  R.id.item_time:
-                // Remove
-                Intent i = new Intent(this, TimeActivity.class);
-                startActivity(i);
+            case R.id.item_metrics:
+                Intent metricsIntent = new Intent(this, MetricsActivity.class);
+                startActivity(metricsIntent);
                 return true;
             default:
                 return super.onOptionsItemSelected(item);
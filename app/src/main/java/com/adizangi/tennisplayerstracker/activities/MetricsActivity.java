@@ -0,0 +1,141 @@
+/*
+   A debug screen that shows the metrics of the recent data refresh runs
+   Shows the median (p50) and 95th percentile (p95) of the time of each stage
+   across the complete runs in the history, and the details of the last run
+   The time of parsing pages is shown apart from the stages, since it is
+   summed over the threads that parse pages at the same time
+ */
+
+package com.adizangi.tennisplayerstracker.activities;
+
+import android.os.Bundle;
+import android.widget.TextView;
+
+import com.adizangi.tennisplayerstracker.R;
+import com.adizangi.tennisplayerstracker.network_calls.FetchMetrics;
+import com.adizangi.tennisplayerstracker.utils_data.RunHistory;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import androidx.appcompat.app.ActionBar;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.Toolbar;
+
+public class MetricsActivity extends AppCompatActivity {
+
+    @Override
+    /*
+       Displays the metrics screen
+       It includes an action bar with a back button that returns to
+       MainActivity
+     */
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics);
+        Toolbar toolbar = findViewById(R.id.action_bar);
+        setSupportActionBar(toolbar);
+        ActionBar actionBar = getSupportActionBar();
+        if (actionBar != null) {
+            actionBar.setDisplayHomeAsUpEnabled(true);
+        }
+        TextView metricsView = findViewById(R.id.metrics);
+        List<FetchMetrics> runs = new RunHistory(this).readRuns();
+        if (runs.isEmpty()) {
+            metricsView.setText(getString(R.string.text_no_runs));
+        } else {
+            metricsView.setText(getReport(runs));
+        }
+    }
+
+    /*
+       Returns the text of the metrics of the given runs
+     */
+    private String getReport(List<FetchMetrics> runs) {
+        List<FetchMetrics> completeRuns = new ArrayList<>();
+        for (FetchMetrics run : runs) {
+            if (run.isComplete()) {
+                completeRuns.add(run);
+            }
+        }
+        StringBuilder report = new StringBuilder();
+        report.append("Runs: ").append(runs.size())
+                .append(" (").append(completeRuns.size()).append(" complete)\n\n");
+        /* Collects the times of each stage across the complete runs */
+        Map<String, List<Long>> stageTimes = new LinkedHashMap<>();
+        List<Long> totalTimes = new ArrayList<>();
+        List<Long> parsingTimes = new ArrayList<>();
+        List<Long> pageLatencies = new ArrayList<>();
+        FetchMetrics allPages = new FetchMetrics();
+        for (FetchMetrics run : completeRuns) {
+            totalTimes.add(run.getTotalMillis());
+            parsingTimes.add(run.getParsingMillis());
+            for (Map.Entry<String, Long> stage : run.getStageMillis().entrySet()) {
+                List<Long> times = stageTimes.get(stage.getKey());
+                if (times == null) {
+                    times = new ArrayList<>();
+                    stageTimes.put(stage.getKey(), times);
+                }
+                times.add(stage.getValue());
+            }
+            allPages.merge(run);
+        }
+        report.append(String.format(Locale.US, "%-24s %8s %8s\n", "Time (ms)", "p50", "p95"));
+        appendPercentiles(report, "Total", totalTimes);
+        for (Map.Entry<String, List<Long>> stage : stageTimes.entrySet()) {
+            appendPercentiles(report, stage.getKey(), stage.getValue());
+        }
+        /* Not a stage, so it is shown under the stages */
+        report.append("\n");
+        appendPercentiles(report, "Parsing (all threads)", parsingTimes);
+        report.append(String.format(Locale.US, "%-24s %8s %8s\n\n", "Page latency",
+                formatBucket(allPages.getLatencyPercentile(0.5)),
+                formatBucket(allPages.getLatencyPercentile(0.95))));
+        FetchMetrics lastRun = runs.get(runs.size() - 1);
+        SimpleDateFormat dateFormat =
+                new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.US);
+        report.append("Last run: ")
+                .append(dateFormat.format(new Date(lastRun.getStartTime())))
+                .append(lastRun.isComplete() ? "" : " (incomplete)").append("\n");
+        report.append("Total time (ms): ").append(lastRun.getTotalMillis()).append("\n");
+        report.append("Parsing time, all threads (ms): ")
+                .append(lastRun.getParsingMillis()).append("\n");
+        report.append("Pages fetched: ").append(lastRun.getPagesFetched()).append("\n");
+        report.append("Cache hits: ").append(lastRun.getCacheHits()).append("\n");
+        report.append("Bytes downloaded: ").append(lastRun.getBytesDownloaded()).append("\n");
+        report.append("Retries: ").append(lastRun.getRetries()).append("\n");
+        report.append("Page latency histogram:\n");
+        long[] latencyCounts = lastRun.getLatencyCounts();
+        for (int i = 0; i < latencyCounts.length; i++) {
+            report.append(String.format(Locale.US, "  %8s  %d\n",
+                    formatBucket(FetchMetrics.LATENCY_BUCKETS[i]), latencyCounts[i]));
+        }
+        return report.toString();
+    }
+
+    /*
+       Adds a line with the given name and the p50 and p95 of the given
+       times to the given report
+     */
+    private void appendPercentiles(StringBuilder report, String name, List<Long> times) {
+        report.append(String.format(Locale.US, "%-24s %8d %8d\n", name,
+                FetchMetrics.percentile(times, 0.5),
+                FetchMetrics.percentile(times, 0.95)));
+    }
+
+    /*
+       Returns the text of the given upper bound of a latency bucket
+     */
+    private String formatBucket(long upperBound) {
+        if (upperBound == Long.MAX_VALUE) {
+            return "more";
+        }
+        return upperBound < 0 ? "-" : "<=" + upperBound;
+    }
+
+}
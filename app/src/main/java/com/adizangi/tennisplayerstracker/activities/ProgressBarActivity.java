@@ -20,15 +20,16 @@ import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.widget.ProgressBar;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import com.adizangi.tennisplayerstracker.R;
 import com.adizangi.tennisplayerstracker.dialogs.NetworkPermissionsDialog;
-import com.adizangi.tennisplayerstracker.utils_data.FileManager;
 import com.adizangi.tennisplayerstracker.utils_data.BackgroundManager;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerRepository;
 import com.adizangi.tennisplayerstracker.workers.FetchDataWorker;
 
 import java.util.ArrayList;
-import java.util.UUID;
+import java.util.List;
 
 public class ProgressBarActivity extends AppCompatActivity
         implements NetworkPermissionsDialog.OnClickListener {
@@ -43,14 +44,14 @@ public class ProgressBarActivity extends AppCompatActivity
     private BackgroundManager backgroundManager;
     private SharedPreferences prefs;
 
-    private Observer<WorkInfo> workObserver = new Observer<WorkInfo>() {
+    private Observer<List<WorkInfo>> workObserver = new Observer<List<WorkInfo>>() {
         /*
-           Called when the WorkInfo of the worker changes
+           Called when the WorkInfo of one of the workers in the chain changes
          */
         @Override
-        public void onChanged(WorkInfo workInfo) {
-            if (workInfo != null) {
-                updateScreen(workInfo);
+        public void onChanged(List<WorkInfo> workInfos) {
+            if (workInfos != null) {
+                updateScreen(workInfos);
             }
         }
     };
@@ -107,13 +108,14 @@ public class ProgressBarActivity extends AppCompatActivity
        Begins a work chain that downloads content, which consists of a worker
        that fetches tennis data from the ESPN website, followed by a worker
        that sends a notification with the newest events
-       Registers a live Observer for the work chain
+       Registers a live Observer for all the workers in the work chain
      */
     private void downloadContent(boolean useWifiOnly) {
         backgroundManager.setNetworkPreference(useWifiOnly);
-        UUID[] uuids = backgroundManager.downloadContent();
+        backgroundManager.downloadContent();
         WorkManager.getInstance(this)
-                .getWorkInfoByIdLiveData(uuids[0])
+                .getWorkInfosForUniqueWorkLiveData(
+                        BackgroundManager.DOWNLOAD_CONTENT_WORK_NAME)
                 .observe(this, workObserver);
     }
 
@@ -166,22 +168,60 @@ public class ProgressBarActivity extends AppCompatActivity
     private void initializeAppValues() {
         PreferenceManager.setDefaultValues(this, R.xml.preferences, false);
         backgroundManager.createNotificationChannel();
-        FileManager fileManager = new FileManager(this);
-        fileManager.storeSelectedPlayers(new ArrayList<String>());
+        PlayerRepository.getInstance(this)
+                .setSelectedPlayers(new ArrayList<String>());
     }
 
     /*
        Gets the state and the progress of the background task from the given
-       WorkInfo
+       WorkInfos of the workers in the chain
+       The progress is the average progress of the workers that fetch data
+       The state is FAILED if one of them failed or was cancelled, SUCCEEDED
+       when all of them succeeded, and RUNNING if one of them is running or
+       the chain already started, such as when the next workers are blocked
+       until the running ones finish
        Updates the views on the screen based on the state and progress changes
      */
-    private void updateScreen(WorkInfo workInfo) {
+    private void updateScreen(List<WorkInfo> workInfos) {
+        int totalProgress = 0;
+        int numOfFetchWorkers = 0;
+        int numOfSucceeded = 0;
+        boolean isRunning = false;
+        boolean isFailed = false;
+        for (WorkInfo workInfo : workInfos) {
+            if (!workInfo.getTags().contains(BackgroundManager.FETCH_DATA_TAG)) {
+                continue;
+            }
+            numOfFetchWorkers++;
+            if (workInfo.getState() == WorkInfo.State.SUCCEEDED) {
+                numOfSucceeded++;
+                totalProgress += 100;
+            } else {
+                Data progressData = workInfo.getProgress();
+                totalProgress += progressData
+                        .getInt(FetchDataWorker.PROGRESS_KEY, 0);
+            }
+            if (workInfo.getState() == WorkInfo.State.RUNNING) {
+                isRunning = true;
+            } else if (workInfo.getState() == WorkInfo.State.FAILED ||
+                    workInfo.getState() == WorkInfo.State.CANCELLED) {
+                isFailed = true;
+            }
+        }
+        if (numOfFetchWorkers == 0) {
+            return;
+        }
         /* Updates the progress bar */
-        Data progressData = workInfo.getProgress();
-        int progressPercentage = progressData
-                .getInt(FetchDataWorker.PROGRESS_KEY, 0);
-        progressBar.setProgress(progressPercentage);
-        switch (workInfo.getState()) {
+        progressBar.setProgress(totalProgress / numOfFetchWorkers);
+        WorkInfo.State state = WorkInfo.State.ENQUEUED;
+        if (isFailed) {
+            state = WorkInfo.State.FAILED;
+        } else if (numOfSucceeded == numOfFetchWorkers) {
+            state = WorkInfo.State.SUCCEEDED;
+        } else if (isRunning || numOfSucceeded > 0) {
+            state = WorkInfo.State.RUNNING;
+        }
+        switch (state) {
             case ENQUEUED:
                 boolean isRetrying = prefs.getBoolean(getString(R.string.is_worker_retrying_key), false);
                 if (isRetrying) {
@@ -200,17 +240,33 @@ public class ProgressBarActivity extends AppCompatActivity
                 progressState.setText(getString(R.string.text_starting));
                 break;
             case SUCCEEDED:
-                /* Shows success message and sets the version code preference
-                   to 0 to indicate that the app has finished initializing
-
-                   Switches back to MainActivity */
+                /* Shows success message */
                 progressState.setText(R.string.text_finished);
-                prefs.edit().putInt(getString(R.string.version_code_key), 0).apply();
-                Intent intent = new Intent(this, MainActivity.class)
-                        .setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-                startActivity(intent);
-                finish();
+                finishInitializing();
+                break;
+            case FAILED:
+                /* Shows failure message, and opens the app with the data that
+                   is stored, if there is any
+                   MainActivity schedules the daily updates, which will fetch
+                   the data again */
+                progressState.setText(R.string.text_failed);
+                Toast.makeText(this, R.string.text_failed_message,
+                        Toast.LENGTH_LONG).show();
+                finishInitializing();
         }
     }
 
+    /*
+       Sets the version code preference to 0 to indicate that the app has
+       finished initializing
+       Switches back to MainActivity
+     */
+    private void finishInitializing() {
+        prefs.edit().putInt(getString(R.string.version_code_key), 0).apply();
+        Intent intent = new Intent(this, MainActivity.class)
+                .setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        startActivity(intent);
+        finish();
+    }
+
 }
@@ -0,0 +1,31 @@
+/*
+   Creates the stable item IDs of the adapters' rows from the players they
+   show, so RecyclerView keeps a player's row when the rows around it change
+ */
+
+package com.adizangi.tennisplayerstracker.adapters;
+
+class PlayerItemIds {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private PlayerItemIds() {
+    }
+
+    /*
+       Returns the item ID of the row of the given player, which is a 64-bit
+       FNV-1a hash of the player's characters
+       The same player always has the same ID
+     */
+    static long of(String player) {
+        long hash = FNV_OFFSET_BASIS;
+        int length = player.length();
+        for (int i = 0; i < length; i++) {
+            hash ^= player.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+}
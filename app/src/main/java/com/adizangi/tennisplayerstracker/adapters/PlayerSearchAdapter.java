@@ -0,0 +1,124 @@
+/*
+   Adapter for the AutoCompleteTextView in PlayersTabFragment
+   Shows the players that match what the user typed, which are found with a
+   PlayerSearchIndex on the filter's background thread, so typing doesn't
+   copy or scan the whole list of players
+ */
+
+package com.adizangi.tennisplayerstracker.adapters;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.Filter;
+import android.widget.Filterable;
+import android.widget.TextView;
+
+import com.adizangi.tennisplayerstracker.utils_data.PlayerSearchIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PlayerSearchAdapter extends BaseAdapter implements Filterable {
+
+    /* The number of suggestions that are shown below the search box */
+    private static final int MAX_RESULTS = 20;
+
+    private final LayoutInflater inflater;
+    private final PlayerSearchIndex searchIndex;
+    private List<String> results;
+
+    private final Filter filter = new Filter() {
+        /*
+           Searches the index for the given text
+           Called on a background thread
+         */
+        @Override
+        protected FilterResults performFiltering(CharSequence constraint) {
+            List<String> players = new ArrayList<>();
+            if (constraint != null) {
+                players.addAll(searchIndex.search(constraint.toString(), MAX_RESULTS));
+            }
+            FilterResults filterResults = new FilterResults();
+            filterResults.values = players;
+            filterResults.count = players.size();
+            return filterResults;
+        }
+
+        /*
+           Shows the players that were found
+           Called on the main thread
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void publishResults(CharSequence constraint,
+                                      FilterResults filterResults) {
+            results = (List<String>) filterResults.values;
+            if (filterResults.count > 0) {
+                notifyDataSetChanged();
+            } else {
+                notifyDataSetInvalidated();
+            }
+        }
+    };
+
+    /*
+       Constructs a PlayerSearchAdapter with the given context and the given
+       index of the players the user can add
+     */
+    public PlayerSearchAdapter(Context context, PlayerSearchIndex searchIndex) {
+        inflater = LayoutInflater.from(context);
+        this.searchIndex = searchIndex;
+        results = new ArrayList<>();
+    }
+
+    /*
+       Returns the number of players that were found
+     */
+    @Override
+    public int getCount() {
+        return results.size();
+    }
+
+    /*
+       Returns the player at the given position
+     */
+    @Override
+    public String getItem(int position) {
+        return results.get(position);
+    }
+
+    /*
+       Returns the ID of the item at the given position
+     */
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    /*
+       Returns the view of the player at the given position, which reuses the
+       given view if it is not null
+     */
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        TextView view = (TextView) convertView;
+        if (view == null) {
+            view = (TextView) inflater.inflate(
+                    android.R.layout.simple_list_item_1, parent, false);
+        }
+        view.setText(getItem(position));
+        return view;
+    }
+
+    /*
+       Returns the filter that searches the index
+     */
+    @Override
+    public Filter getFilter() {
+        return filter;
+    }
+
+}
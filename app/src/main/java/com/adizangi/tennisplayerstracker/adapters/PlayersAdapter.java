@@ -1,5 +1,8 @@
 /*
    Adapter for the RecyclerView in PlayersTabFragment
+   A new list of players is compared to the current one on a background
+   thread, and only the rows of the players that were added or removed are
+   changed
  */
 
 package com.adizangi.tennisplayerstracker.adapters;
@@ -10,16 +13,34 @@ import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.TextView;
 
-import java.util.List;
-
 import androidx.annotation.NonNull;
 import androidx.constraintlayout.widget.ConstraintLayout;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.adizangi.tennisplayerstracker.R;
 
-public class PlayersAdapter extends RecyclerView.Adapter
-        <PlayersAdapter.ViewHolder> {
+public class PlayersAdapter extends ListAdapter
+        <String, PlayersAdapter.ViewHolder> {
+
+    /*
+       Compares the players of two lists, where each player is its own row
+     */
+    private static final DiffUtil.ItemCallback<String> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<String>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull String oldPlayer,
+                                       @NonNull String newPlayer) {
+            return oldPlayer.equals(newPlayer);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull String oldPlayer,
+                                          @NonNull String newPlayer) {
+            return oldPlayer.equals(newPlayer);
+        }
+    };
 
     /*
        Holds a reference to the views of an item in the RecyclerView
@@ -46,14 +67,15 @@ public class PlayersAdapter extends RecyclerView.Adapter
         void onRemoveClick(String player);
     }
 
-    private List<String> myPlayers;
     private OnRemoveClickListener callback;
 
     /*
-       Constructs a PlayersAdapter with the given list of players
+       Constructs an empty PlayersAdapter
+       The list of players is set with submitList()
      */
-    public PlayersAdapter(List<String> myPlayers) {
-        this.myPlayers = myPlayers;
+    public PlayersAdapter() {
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
     }
 
     /*
@@ -91,16 +113,17 @@ public class PlayersAdapter extends RecyclerView.Adapter
      */
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        String playerName = myPlayers.get(position);
+        String playerName = getItem(position);
         holder.playerName.setText(playerName);
     }
 
     /*
-       Returns the number of items held by this adapter
+       Returns the stable ID of the row at the given position, which is
+       derived from the player
      */
     @Override
-    public int getItemCount() {
-        return myPlayers.size();
+    public long getItemId(int position) {
+        return PlayerItemIds.of(getItem(position));
     }
 
 }
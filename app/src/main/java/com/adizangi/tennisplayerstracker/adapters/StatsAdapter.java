@@ -1,5 +1,8 @@
 /*
    Adapter for the RecyclerView in StatsTabFragment
+   A new list of stats is compared to the current one on a background thread,
+   and only the rows whose stats changed are bound again, so the text of the
+   other rows is not built again
  */
 
 package com.adizangi.tennisplayerstracker.adapters;
@@ -13,16 +16,37 @@ import android.widget.TextView;
 import com.adizangi.tennisplayerstracker.R;
 import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
 
-import java.util.List;
-
 import androidx.annotation.NonNull;
 import androidx.constraintlayout.widget.ConstraintLayout;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
-public class StatsAdapter extends RecyclerView.Adapter
-        <StatsAdapter.ViewHolder> {
+import java.util.Map;
+
+public class StatsAdapter extends ListAdapter
+        <Map.Entry<String, PlayerStats>, StatsAdapter.ViewHolder> {
 
-    private List<PlayerStats> stats;
+    /*
+       Compares the stats of two lists, where each selected player is one row
+       and the row is bound again if any of the shown stats changed
+       Rows are matched by the selected player's key, since two selected
+       players may have the same name
+     */
+    private static final DiffUtil.ItemCallback<Map.Entry<String, PlayerStats>> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<Map.Entry<String, PlayerStats>>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Map.Entry<String, PlayerStats> oldItem,
+                                       @NonNull Map.Entry<String, PlayerStats> newItem) {
+            return oldItem.getKey().equals(newItem.getKey());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Map.Entry<String, PlayerStats> oldItem,
+                                          @NonNull Map.Entry<String, PlayerStats> newItem) {
+            return oldItem.getValue().hasSameStats(newItem.getValue());
+        }
+    };
 
     /*
        Holds a reference to the views of an item in the RecyclerView
@@ -45,10 +69,12 @@ public class StatsAdapter extends RecyclerView.Adapter
     }
 
     /*
-       Constructs a StatsAdapter with the given list of PlayerStats objects
+       Constructs an empty StatsAdapter
+       The list of selected players and their stats is set with submitList()
      */
-    public StatsAdapter(List<PlayerStats> stats) {
-        this.stats = stats;
+    public StatsAdapter() {
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
     }
 
     /*
@@ -70,25 +96,29 @@ public class StatsAdapter extends RecyclerView.Adapter
      */
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        PlayerStats playerStats = stats.get(position);
+        PlayerStats playerStats = getItem(position).getValue();
         holder.name.setText(playerStats.getName());
         holder.statsSummary.setText(playerStats.getStatsSummary());
-        String tournamentStanding = playerStats.getTournamentStanding();
-        holder.tournamentStanding.setText(tournamentStanding);
-        if (tournamentStanding.contains("advanced")) {
-            holder.tournamentStanding.setTextColor(Color.GREEN);
-        } else if (tournamentStanding.equals("out")) {
-            holder.tournamentStanding.setTextColor(Color.RED);
-        } else {
-            holder.tournamentStanding.setTextColor(Color.GRAY);
+        holder.tournamentStanding.setText(playerStats.getStandingText());
+        switch (playerStats.getStanding()) {
+            case ADVANCED:
+                holder.tournamentStanding.setTextColor(Color.GREEN);
+                break;
+            case OUT:
+                holder.tournamentStanding.setTextColor(Color.RED);
+                break;
+            default:
+                holder.tournamentStanding.setTextColor(Color.GRAY);
         }
     }
 
     /*
-       Returns the number of items held by this adapter
+       Returns the stable ID of the row at the given position, which is
+       derived from the selected player's key, the player's name followed by
+       ranking in parenthesis
      */
     @Override
-    public int getItemCount() {
-        return stats.size();
+    public long getItemId(int position) {
+        return PlayerItemIds.of(getItem(position).getKey());
     }
 }
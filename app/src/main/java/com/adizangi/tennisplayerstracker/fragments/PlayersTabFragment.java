@@ -4,10 +4,14 @@
 
    The screen has a search box (AutoCompleteTextView) that lets the user search
    for a player and filters from the list of all players as the user types
+   A player is suggested if the typed words start any of the words of their
+   name, such as their surname, without regard to accents
    The user can add a player by selecting one of the suggestions from the
    AutoCompleteTextView and clicking the 'Add' button
    A list of the selected players is displayed below the search box, and there
    is a 'Remove' button next to each player
+   A progress bar is shown in place of the list, and the 'Add' button is
+   disabled, until the players are loaded
  */
 
 package com.adizangi.tennisplayerstracker.fragments;
@@ -16,18 +20,23 @@ import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
 import android.widget.AutoCompleteTextView;
 import android.widget.Button;
+import android.widget.ProgressBar;
 import android.widget.Toast;
 
 import com.adizangi.tennisplayerstracker.R;
+import com.adizangi.tennisplayerstracker.adapters.PlayerSearchAdapter;
 import com.adizangi.tennisplayerstracker.adapters.PlayersAdapter;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerSearchIndex;
 import com.adizangi.tennisplayerstracker.view_models.TabsViewModel;
 
+import java.util.List;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -36,6 +45,8 @@ public class PlayersTabFragment extends Fragment {
 
     private TabsViewModel tabsViewModel;
     private AutoCompleteTextView playerSearchBar;
+    private Button addButton;
+    private ProgressBar progressBar;
     private PlayersAdapter playersAdapter;
 
     private View.OnClickListener addButtonListener = new View.OnClickListener() {
@@ -53,7 +64,34 @@ public class PlayersTabFragment extends Fragment {
          */
         public void onRemoveClick(String player) {
             tabsViewModel.removePlayer(player);
-            playersAdapter.notifyDataSetChanged();
+        }
+    };
+
+    private Observer<PlayerSearchIndex> searchIndexObserver =
+            new Observer<PlayerSearchIndex>() {
+        @Override
+        /*
+           Sets the search box to suggest players from the given search index,
+           and lets the user add players
+         */
+        public void onChanged(PlayerSearchIndex searchIndex) {
+            playerSearchBar.setAdapter(new PlayerSearchAdapter(requireContext(),
+                    searchIndex));
+            addButton.setEnabled(true);
+        }
+    };
+
+    private Observer<List<String>> selectedPlayersObserver =
+            new Observer<List<String>>() {
+        @Override
+        /*
+           Shows the given list of the user's players in the RecyclerView
+           The adapter compares the list to the list it shows to find the rows
+           that changed
+         */
+        public void onChanged(List<String> selectedPlayers) {
+            progressBar.setVisibility(View.GONE);
+            playersAdapter.submitList(selectedPlayers);
         }
     };
 
@@ -72,10 +110,10 @@ public class PlayersTabFragment extends Fragment {
 
     /*
        Initializes the sub-views of the view returned by onCreateView()
-       Fills the AutoCompleteTextView with a list of the total players the
-       user can select
-       Fills the RecyclerView with the saved list of the user's selected
-       players
+       Sets the AutoCompleteTextView to suggest players from the search index
+       of the total players the user can select, once it is built
+       Fills the RecyclerView with the list of the user's selected players
+       when it is loaded, and whenever it changes
        Sets responses to button clicks
      */
     @Override
@@ -87,18 +125,30 @@ public class PlayersTabFragment extends Fragment {
         tabsViewModel = new ViewModelProvider(requireActivity(), factory)
                 .get(TabsViewModel.class);
         playerSearchBar = view.findViewById(R.id.player_search_bar);
-        ArrayAdapter<String> searchBarAdapter = new ArrayAdapter<>
-                (requireContext(), android.R.layout.simple_list_item_1,
-                        tabsViewModel.getTotalPlayers());
-        playerSearchBar.setAdapter(searchBarAdapter);
+        addButton = view.findViewById(R.id.add_button);
+        progressBar = view.findViewById(R.id.players_progress_bar);
         RecyclerView playersRecyclerView = view.findViewById(R.id.players_recycler_view);
         RecyclerView.LayoutManager manager = new LinearLayoutManager(requireContext());
         playersRecyclerView.setLayoutManager(manager);
-        playersAdapter = new PlayersAdapter(tabsViewModel.getSelectedPlayers());
+        playersAdapter = new PlayersAdapter();
         playersRecyclerView.setAdapter(playersAdapter);
         playersAdapter.setOnRemoveClickListener(removeButtonListener);
-        Button addButton = view.findViewById(R.id.add_button);
         addButton.setOnClickListener(addButtonListener);
+        tabsViewModel.getSearchIndex()
+                .observe(getViewLifecycleOwner(), searchIndexObserver);
+        tabsViewModel.getSelectedPlayers()
+                .observe(getViewLifecycleOwner(), selectedPlayersObserver);
+    }
+
+    /*
+       Called when the fragment is no longer visible
+       Stores the changes to the user's players that are waiting to be saved,
+       since the app's process may be stopped after this
+     */
+    @Override
+    public void onStop() {
+        super.onStop();
+        tabsViewModel.flushSelectedPlayers();
     }
 
     /*
@@ -108,13 +158,12 @@ public class PlayersTabFragment extends Fragment {
      */
     private void addPlayer() {
         String playerName = playerSearchBar.getText().toString();
-        if (!tabsViewModel.getTotalPlayers().contains(playerName)) {
+        if (!tabsViewModel.isTotalPlayer(playerName)) {
             Toast.makeText(getContext(), "Invalid player", Toast.LENGTH_LONG).show();
-        } else if (tabsViewModel.getSelectedPlayers().contains(playerName)) {
+        } else if (tabsViewModel.isSelectedPlayer(playerName)) {
             Toast.makeText(getContext(), "Player already in list", Toast.LENGTH_LONG).show();
         } else {
             tabsViewModel.addPlayer(playerName);
-            playersAdapter.notifyDataSetChanged();
         }
         playerSearchBar.getText().clear();
     }
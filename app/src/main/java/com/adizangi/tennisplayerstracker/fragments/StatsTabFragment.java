@@ -8,6 +8,7 @@
    to the next round, red text that says the player is out of the tournament,
    or gray text that says the player is not playing
    The sections are sorted so green sections are first and gray sections are last
+   A progress bar is shown in place of the list until the stats are loaded
  */
 
 package com.adizangi.tennisplayerstracker.fragments;
@@ -16,11 +17,11 @@ import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ProgressBar;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
-import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -28,32 +29,29 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.adizangi.tennisplayerstracker.R;
 import com.adizangi.tennisplayerstracker.adapters.StatsAdapter;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
 import com.adizangi.tennisplayerstracker.view_models.TabsViewModel;
 
+import java.util.List;
+import java.util.Map;
+
 public class StatsTabFragment extends Fragment {
 
     private TabsViewModel tabsViewModel;
     private StatsAdapter statsAdapter;
+    private ProgressBar progressBar;
 
-    private Observer<String> addedPlayerObserver = new Observer<String>() {
-        @Override
-        /*
-           Adds the given player's statistics into the list
-         */
-        public void onChanged(String player) {
-            tabsViewModel.addPlayerStats(player);
-            statsAdapter.notifyDataSetChanged();
-        }
-    };
-
-    private Observer<String> removedPlayerObserver = new Observer<String>() {
+    private Observer<List<Map.Entry<String, PlayerStats>>> statsObserver =
+            new Observer<List<Map.Entry<String, PlayerStats>>>() {
         @Override
         /*
-           Removes the given player's statistics from the list
+           Shows the given stats of the user's players in the RecyclerView
+           The adapter compares the list to the list it shows to find the rows
+           that changed
          */
-        public void onChanged(String player) {
-            tabsViewModel.removePlayerStats(player);
-            statsAdapter.notifyDataSetChanged();
+        public void onChanged(List<Map.Entry<String, PlayerStats>> selectedPlayersStats) {
+            progressBar.setVisibility(View.GONE);
+            statsAdapter.submitList(selectedPlayersStats);
         }
     };
 
@@ -73,8 +71,8 @@ public class StatsTabFragment extends Fragment {
     /*
        Initializes the sub-views of the view returned by onCreateView()
        Fills the RecyclerView such that each entry contains statistics and
-       tournament results of one of the user's selected players
-       Sets responses to change in the user's selected players
+       tournament results of one of the user's selected players, when the
+       stats are loaded and whenever they change
      */
     @Override
     public void onViewCreated(@NonNull View view,
@@ -87,12 +85,11 @@ public class StatsTabFragment extends Fragment {
         RecyclerView statsRecyclerView = view.findViewById(R.id.stats_recycler_view);
         RecyclerView.LayoutManager manager = new LinearLayoutManager(requireContext());
         statsRecyclerView.setLayoutManager(manager);
-        statsAdapter = new StatsAdapter(tabsViewModel.getSelectedPlayersStats());
+        statsAdapter = new StatsAdapter();
         statsRecyclerView.setAdapter(statsAdapter);
-        MutableLiveData<String> addedPlayer = tabsViewModel.getAddedPlayer();
-        addedPlayer.observe(getViewLifecycleOwner(), addedPlayerObserver);
-        MutableLiveData<String> removedPlayer = tabsViewModel.getRemovedPlayer();
-        removedPlayer.observe(getViewLifecycleOwner(), removedPlayerObserver);
+        progressBar = view.findViewById(R.id.stats_progress_bar);
+        tabsViewModel.getSelectedPlayersStats()
+                .observe(getViewLifecycleOwner(), statsObserver);
     }
 
 }
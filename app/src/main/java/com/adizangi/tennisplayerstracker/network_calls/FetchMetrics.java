@@ -0,0 +1,229 @@
+/*
+   Collects metrics about fetching data from the web, such as the time taken
+   by each stage, the number of pages and bytes that were downloaded, the
+   number of pages that were served from the cache, and a histogram of the
+   latency of each page
+   The time taken to parse pages is kept apart from the stages, since pages
+   are parsed by several threads at the same time and their times add up to
+   more than the time that passed
+   Metrics can be recorded by several threads at the same time, and the
+   metrics of several workers can be merged into the metrics of one run
+ */
+
+package com.adizangi.tennisplayerstracker.network_calls;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FetchMetrics implements Serializable {
+
+    /* Upper bounds of the latency histogram buckets in milliseconds, the
+       last bucket has no upper bound */
+    public static final long[] LATENCY_BUCKETS =
+            {50, 100, 200, 400, 800, 1600, 3200, 6400, Long.MAX_VALUE};
+
+    private static final long serialVersionUID = 6914735280124493361L;
+
+    private long startTime;
+    private long endTime;
+    private Map<String, Long> stageMillis = new LinkedHashMap<>();
+    private long parsingMillis;
+    private int pagesFetched;
+    private int cacheHits;
+    private long bytesDownloaded;
+    private int retries;
+    private long[] latencyCounts = new long[LATENCY_BUCKETS.length];
+    private boolean isComplete;
+
+    /*
+       Constructs an empty FetchMetrics that starts at the current time
+     */
+    public FetchMetrics() {
+        startTime = System.currentTimeMillis();
+        endTime = startTime;
+    }
+
+    /*
+       Adds the given number of milliseconds to the time of the stage with
+       the given name
+     */
+    public synchronized void addStageTime(String stage, long millis) {
+        Long previous = stageMillis.get(stage);
+        stageMillis.put(stage, previous == null ? millis : previous + millis);
+    }
+
+    /*
+       Adds the given number of milliseconds to the time taken to parse pages
+       by all the threads
+     */
+    public synchronized void addParsingTime(long millis) {
+        parsingMillis += millis;
+    }
+
+    /*
+       Records a page that was loaded in the given number of milliseconds
+       If fromCache is true, the page was not modified and was taken from the
+       cache, and otherwise the given number of bytes were downloaded
+     */
+    public synchronized void recordPage(long latencyMillis, long bytes,
+                                        boolean fromCache) {
+        pagesFetched++;
+        if (fromCache) {
+            cacheHits++;
+        } else {
+            bytesDownloaded += bytes;
+        }
+        int bucket = 0;
+        while (latencyMillis > LATENCY_BUCKETS[bucket]) {
+            bucket++;
+        }
+        latencyCounts[bucket]++;
+    }
+
+    /*
+       Records that the work was retried because of a network problem
+     */
+    public synchronized void recordRetry() {
+        retries++;
+    }
+
+    /*
+       Marks these metrics as the metrics of a run that finished all its
+       stages
+     */
+    public synchronized void markComplete() {
+        isComplete = true;
+    }
+
+    /*
+       Sets the end of these metrics to the current time
+     */
+    public synchronized void finish() {
+        endTime = System.currentTimeMillis();
+    }
+
+    /*
+       Adds the given metrics to these metrics
+       The times of stages with the same name are added, and the start and end
+       become the earliest start and the latest end of the two
+     */
+    public synchronized void merge(FetchMetrics other) {
+        synchronized (other) {
+            for (Map.Entry<String, Long> stage : other.stageMillis.entrySet()) {
+                addStageTime(stage.getKey(), stage.getValue());
+            }
+            parsingMillis += other.parsingMillis;
+            pagesFetched += other.pagesFetched;
+            cacheHits += other.cacheHits;
+            bytesDownloaded += other.bytesDownloaded;
+            retries += other.retries;
+            isComplete |= other.isComplete;
+            for (int i = 0; i < latencyCounts.length; i++) {
+                latencyCounts[i] += other.latencyCounts[i];
+            }
+            startTime = Math.min(startTime, other.startTime);
+            endTime = Math.max(endTime, other.endTime);
+        }
+    }
+
+    public synchronized long getStartTime() {
+        return startTime;
+    }
+
+    /*
+       Returns the time from the start to the end in milliseconds
+     */
+    public synchronized long getTotalMillis() {
+        return endTime - startTime;
+    }
+
+    /*
+       Returns a copy of the map from the name of each stage to its time in
+       milliseconds, in the order the stages were first recorded
+     */
+    public synchronized Map<String, Long> getStageMillis() {
+        return new LinkedHashMap<>(stageMillis);
+    }
+
+    /*
+       Returns the time taken to parse pages in milliseconds, summed over all
+       the threads that parsed them
+     */
+    public synchronized long getParsingMillis() {
+        return parsingMillis;
+    }
+
+    public synchronized int getPagesFetched() {
+        return pagesFetched;
+    }
+
+    public synchronized int getCacheHits() {
+        return cacheHits;
+    }
+
+    public synchronized long getBytesDownloaded() {
+        return bytesDownloaded;
+    }
+
+    public synchronized int getRetries() {
+        return retries;
+    }
+
+    public synchronized boolean isComplete() {
+        return isComplete;
+    }
+
+    /*
+       Returns a copy of the number of pages in each bucket of the latency
+       histogram, where the buckets are defined by LATENCY_BUCKETS
+     */
+    public synchronized long[] getLatencyCounts() {
+        return latencyCounts.clone();
+    }
+
+    /*
+       Returns the given percentile of the page latency in milliseconds,
+       estimated as the upper bound of the histogram bucket it falls in
+       The percentile is given as a fraction between 0 and 1
+       Returns -1 if no pages were recorded, and Long.MAX_VALUE if the
+       percentile is in the last bucket
+     */
+    public synchronized long getLatencyPercentile(double percentile) {
+        long total = 0;
+        for (long count : latencyCounts) {
+            total += count;
+        }
+        if (total == 0) {
+            return -1;
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < latencyCounts.length; i++) {
+            seen += latencyCounts[i];
+            if (seen >= Math.max(1, rank)) {
+                return LATENCY_BUCKETS[i];
+            }
+        }
+        return LATENCY_BUCKETS[LATENCY_BUCKETS.length - 1];
+    }
+
+    /*
+       Returns the given percentile of the given values with the nearest rank
+       method, where the percentile is a fraction between 0 and 1
+       Returns -1 if there are no values
+     */
+    public static long percentile(List<Long> values, double percentile) {
+        if (values.isEmpty()) {
+            return -1;
+        }
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int rank = (int) Math.ceil(percentile * sorted.size());
+        return sorted.get(Math.max(1, rank) - 1);
+    }
+
+}
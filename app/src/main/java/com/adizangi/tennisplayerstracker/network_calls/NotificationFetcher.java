@@ -4,56 +4,149 @@
 
 package com.adizangi.tennisplayerstracker.network_calls;
 
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class NotificationFetcher {
 
     private Document tSchedule;
     private Document ySchedule;
+    private PageLoader pageLoader;
+    private int numOfThreads;
 
     /*
        Constructs a NotificationFetcher with the given HTML documents of
        today's match schedule and yesterday's match schedule from ESPN
+       Tournament pages are downloaded one at a time
      */
     public NotificationFetcher(Document tSchedule, Document ySchedule) {
+        this(tSchedule, ySchedule, new PageLoader(), 1);
+    }
+
+    /*
+       Constructs a NotificationFetcher with the given HTML documents of
+       today's match schedule and yesterday's match schedule from ESPN
+       Tournament pages are loaded with the given PageLoader, and up to the
+       given number of tournament pages are fetched at the same time
+     */
+    public NotificationFetcher(Document tSchedule, Document ySchedule,
+                               PageLoader pageLoader, int numOfThreads) {
         this.tSchedule = tSchedule;
         this.ySchedule = ySchedule;
+        this.pageLoader = pageLoader;
+        this.numOfThreads = Math.max(1, numOfThreads);
     }
 
     /*
        Returns the text for today's notification
        If there is no news about tennis, returns an empty string
+       The tournament pages of both days are fetched at the same time, and a
+       tournament that is in both schedules is fetched once
        May throw IOException
      */
     public String getNotificationText() throws IOException {
-        String notification = yesterdayResults() + todaySchedule();
+        List<String> yTournamentURLs = getTournamentURLs(ySchedule);
+        List<String> tTournamentURLs = getTournamentURLs(tSchedule);
+        Set<String> uniqueURLs = new LinkedHashSet<>(yTournamentURLs);
+        uniqueURLs.addAll(tTournamentURLs);
+        Map<String, Document> tournamentDocs = fetchTournamentPages(uniqueURLs);
+        String notification = yesterdayResults(yTournamentURLs, tournamentDocs) +
+                todaySchedule(tTournamentURLs, tournamentDocs);
         return notification;
     }
 
+    /*
+       Returns the URLs of the tournament pages in the given schedule document,
+       in the order of the schedule
+       If there are no matches in the schedule, returns an empty list
+     */
+    private List<String> getTournamentURLs(Document schedule) {
+        List<String> tournamentURLs = new ArrayList<>();
+        if (schedule.select("h3.noMatch").size() > 0) {
+            return tournamentURLs;
+        }
+        Elements tournaments = schedule.select("div.scoreHeadline");
+        for (Element tournament : tournaments) {
+            tournamentURLs.add(tournament.selectFirst("a").attr("abs:href"));
+        }
+        return tournamentURLs;
+    }
+
+    /*
+       Fetches the tournament pages with the given URLs at the same time, and
+       returns a map from each URL to the HTML document of the page
+       If only one page can be fetched at a time, the pages are fetched on
+       the calling thread, since a thread pool would only add the cost of
+       starting and stopping its thread
+       May throw IOException if one of the pages can't be fetched
+     */
+    private Map<String, Document> fetchTournamentPages(Collection<String> urls)
+            throws IOException {
+        Map<String, Document> tournamentDocs = new HashMap<>();
+        if (numOfThreads == 1 || urls.size() <= 1) {
+            for (String url : urls) {
+                tournamentDocs.put(url, pageLoader.load(url));
+            }
+            return tournamentDocs;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(numOfThreads, urls.size()));
+        try {
+            Map<String, Future<Document>> results = new HashMap<>();
+            for (final String url : urls) {
+                results.put(url, executor.submit(new Callable<Document>() {
+                    @Override
+                    public Document call() throws IOException {
+                        return pageLoader.load(url);
+                    }
+                }));
+            }
+            for (String url : urls) {
+                tournamentDocs.put(url, results.get(url).get());
+            }
+            return tournamentDocs;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Fetching tournaments was interrupted");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     /*
        Returns a summary of yesterday's tournament outcomes
        For any tournament finals that were played yesterday, adds the name of
        player who won and the tournament's name to the summary
        If there were no finals yesterday, returns an empty string
-       May throw IOException
+       The tournaments are given as a list of the URLs of yesterday's
+       tournaments, and a map from each URL to the tournament's document
      */
-    private String yesterdayResults() throws IOException {
-        if (ySchedule.select("h3.noMatch").size() > 0) {
-            /* No matches yesterday- returns an empty string */
-            return "";
-        }
+    private String yesterdayResults(List<String> tournamentURLs,
+                                    Map<String, Document> tournamentDocs) {
         StringBuilder reportForYesterday = new StringBuilder();
-        Elements tournaments = ySchedule.select("div.scoreHeadline");
         /* Loops over yesterday's tournaments */
-        for (Element tournament : tournaments) {
-            String tournamentURL = tournament.selectFirst("a")
-                    .attr("abs:href");
-            Document tournamentDoc = Jsoup.connect(tournamentURL).get();
+        for (String tournamentURL : tournamentURLs) {
+            Document tournamentDoc = tournamentDocs.get(tournamentURL);
             String docTitle = tournamentDoc.title();
             String tournamentName = docTitle.substring
                     (0, docTitle.indexOf("Daily Match Schedule - ESPN") - 1);
@@ -99,21 +192,16 @@ public class NotificationFetcher {
        current round of each tournament
        If there is a final today, adds the time when it is scheduled to begin
        If there are no tournaments today, returns an empty string
-       May throw IOException
+       The tournaments are given as a list of the URLs of today's tournaments,
+       and a map from each URL to the tournament's document
      */
-    private String todaySchedule() throws IOException {
-        if (tSchedule.select("h3.noMatch").size() > 0) {
-            /* No matches yesterday- returns an empty string */
-            return "";
-        }
+    private String todaySchedule(List<String> tournamentURLs,
+                                 Map<String, Document> tournamentDocs) {
         StringBuilder dailyTournaments = new StringBuilder();
         StringBuilder dailyFinals = new StringBuilder();
-        Elements tournaments = tSchedule.select("div.scoreHeadline");
         /* Loops over today's tournaments */
-        for (Element tournament : tournaments) {
-            String tournamentURL = tournament.selectFirst("a")
-                    .attr("abs:href");
-            Document tournamentDoc = Jsoup.connect(tournamentURL).get();
+        for (String tournamentURL : tournamentURLs) {
+            Document tournamentDoc = tournamentDocs.get(tournamentURL);
             String docTitle = tournamentDoc.title();
             String tournamentName = docTitle.substring
                     (0, docTitle.indexOf("Daily Match Schedule - ESPN") - 1);
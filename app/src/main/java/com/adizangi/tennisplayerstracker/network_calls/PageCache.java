@@ -0,0 +1,219 @@
+/*
+   A cache of web pages that is stored on disk
+   Each page is saved together with the validators that the server sent
+   with it, so the page can be revalidated instead of downloaded again
+   When the total size of the cache is bigger than the maximum size, the
+   pages that were used least recently are deleted until the cache is a
+   quarter smaller than the maximum size, so that the directory is only
+   scanned once in many stored pages
+   The total size is counted when the cache is first used and is then kept
+   up to date as pages are stored and deleted
+ */
+
+package com.adizangi.tennisplayerstracker.network_calls;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+public class PageCache {
+
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final double TRIMMED_SIZE_FACTOR = 0.75;
+
+    private File directory;
+    private long maxSize;
+    private long size = -1;
+
+    /*
+       Represents a page that is stored in the cache
+     */
+    public static class Entry {
+
+        final String baseURI;
+        final String eTag;
+        final String lastModified;
+        final String body;
+
+        /*
+           Constructs an Entry with the given page details
+           The validators may be empty strings if the server didn't send them
+         */
+        Entry(String baseURI, String eTag, String lastModified, String body) {
+            this.baseURI = baseURI;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.body = body;
+        }
+    }
+
+    /*
+       Constructs a PageCache that stores pages in the given directory and
+       keeps its total size under the given number of bytes
+     */
+    public PageCache(File directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /*
+       Sets the number of bytes that the total size of the cache is kept
+       under, such as when the number of pages that are fetched changes
+     */
+    public synchronized void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /*
+       Returns the cached Entry of the page with the given URL and marks it as
+       recently used
+       Returns null if the page is not in the cache or can't be read
+     */
+    public synchronized Entry get(String url) {
+        File file = getFile(url);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new FileInputStream(file));
+            String storedURL = in.readUTF();
+            String baseURI = in.readUTF();
+            String eTag = in.readUTF();
+            String lastModified = in.readUTF();
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            in.close();
+            if (!storedURL.equals(url)) {
+                return null;
+            }
+            file.setLastModified(System.currentTimeMillis());
+            return new Entry(baseURI, eTag, lastModified,
+                    new String(body, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            e.printStackTrace();
+            delete(file);
+            return null;
+        }
+    }
+
+    /*
+       Stores the given page in the cache under the given URL, replacing the
+       previous page with that URL
+       Null validators are stored as empty strings
+       Deletes the least recently used pages if the cache is too big
+     */
+    public synchronized void put(String url, String baseURI, String eTag,
+                                 String lastModified, String body) {
+        if (!directory.exists() && !directory.mkdirs()) {
+            return;
+        }
+        File file = getFile(url);
+        File tempFile = new File(directory, file.getName() + TEMP_FILE_SUFFIX);
+        long previousSize = getSize() - file.length();
+        try {
+            byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+            DataOutputStream out =
+                    new DataOutputStream(new FileOutputStream(tempFile));
+            out.writeUTF(url);
+            out.writeUTF(baseURI);
+            out.writeUTF(eTag == null ? "" : eTag);
+            out.writeUTF(lastModified == null ? "" : lastModified);
+            out.writeInt(bodyBytes.length);
+            out.write(bodyBytes);
+            out.close();
+            if (!tempFile.renameTo(file)) {
+                tempFile.delete();
+                return;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            tempFile.delete();
+            return;
+        }
+        size = previousSize + file.length();
+        if (size > maxSize) {
+            trimToSize();
+        }
+    }
+
+    /*
+       Returns the total size of the pages in the cache
+       Counts the size of the files in the directory the first time it is
+       called
+     */
+    private long getSize() {
+        if (size < 0) {
+            size = 0;
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    size += file.length();
+                }
+            }
+        }
+        return size;
+    }
+
+    /*
+       Deletes the given page file and subtracts its length from the total
+       size of the cache
+     */
+    private void delete(File file) {
+        long length = file.length();
+        if (file.delete() && size >= 0) {
+            size -= length;
+        }
+    }
+
+    /*
+       Deletes the least recently used pages until the total size of the
+       cache is not bigger than the trimmed size
+     */
+    private void trimToSize() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long trimmedSize = (long) (maxSize * TRIMMED_SIZE_FACTOR);
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                return Long.compare(f1.lastModified(), f2.lastModified());
+            }
+        });
+        for (File file : files) {
+            if (size <= trimmedSize) {
+                break;
+            }
+            delete(file);
+        }
+    }
+
+    /*
+       Returns the file where the page with the given URL is stored
+       The file name is a hash of the URL, so any URL can be used
+     */
+    private File getFile(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (byte b : hash) {
+                name.append(String.format("%02x", b));
+            }
+            return new File(directory, name.toString());
+        } catch (NoSuchAlgorithmException e) {
+            /* Every Java platform has SHA-1 */
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,350 @@
+/*
+   Loads web pages and parses them into HTML documents
+   If a PageCache is given, pages are stored in it and a cached page is
+   revalidated with the server with a conditional request, so the page is
+   only downloaded again if it changed
+   For offline testing, the loaded pages can be recorded with a PageRecorder,
+   and the requests can be sent to another server by setting a base URL
+   If FetchMetrics are given, the latency and size of each page and the time
+   taken to parse it are recorded in them
+   Times are measured with System.nanoTime(), so they are not affected by
+   changes to the clock
+ */
+
+package com.adizangi.tennisplayerstracker.network_calls;
+
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+public class PageLoader {
+
+    private PageCache cache;
+    private PageRecorder recorder;
+    private String baseURL;
+    private FetchMetrics metrics;
+
+    /*
+       Constructs a PageLoader that downloads every page
+     */
+    public PageLoader() {
+        this(null);
+    }
+
+    /*
+       Constructs a PageLoader that stores pages in the given PageCache
+       If the given cache is null, every page is downloaded
+     */
+    public PageLoader(PageCache cache) {
+        this.cache = cache;
+    }
+
+    /*
+       Sets the PageRecorder that every page this PageLoader loads is
+       recorded with
+       If the given recorder is null, pages are not recorded
+     */
+    public void setRecorder(PageRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /*
+       Sets the protocol, host and port that all the requests are sent to,
+       such as "http://localhost:8080", instead of the ones in the requested
+       URLs
+       The path and query of the requested URLs are kept
+       If the given base URL is null, the requested URLs are used as they are
+     */
+    public void setBaseURL(String baseURL) {
+        this.baseURL = baseURL;
+    }
+
+    /*
+       Sets the FetchMetrics that the pages this PageLoader loads are recorded
+       in
+       If the given metrics are null, pages are not recorded
+     */
+    public void setMetrics(FetchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /*
+       Returns the HTML document of the page with the given URL
+       If the page is in the cache and the server says it has not been
+       modified, the cached page is used
+       May throw IOException
+     */
+    public Document load(String url) throws IOException {
+        url = rewriteURL(url);
+        if (cache == null && recorder == null && metrics == null) {
+            return Jsoup.connect(url).get();
+        }
+        PageCache.Entry entry = getCachedOrDownload(url);
+        return parse(entry.body, entry.baseURI);
+    }
+
+    /*
+       Returns a stream of the HTML of the page with the given URL, so the page
+       can be read without parsing it into a document
+       If the page is in the cache and the server says it has not been
+       modified, the cached page is read
+       Otherwise the page is read from the network while the stream is read,
+       so closing the stream early saves the rest of the download
+       A page that is read from the network is stored in the cache only if it
+       was read to the end, and is recorded in the metrics when the stream is
+       closed, with the bytes that were read and the latency until the
+       response started, since the rest of the time overlaps with the work
+       of the reader
+       If a recorder was set, the whole page is downloaded so it can be
+       recorded
+       May throw IOException
+     */
+    public InputStream openStream(String url) throws IOException {
+        url = rewriteURL(url);
+        if (recorder != null) {
+            PageCache.Entry entry = getCachedOrDownload(url);
+            return new ByteArrayInputStream(entry.body.getBytes(StandardCharsets.UTF_8));
+        }
+        if (cache == null && metrics == null) {
+            return Jsoup.connect(url).execute().bodyStream();
+        }
+        long startTime = System.nanoTime();
+        PageCache.Entry entry = cache == null ? null : cache.get(url);
+        Connection.Response response = connect(url, entry).execute();
+        if (entry != null &&
+                response.statusCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            recordPage(startTime, entry.body, true);
+            return new ByteArrayInputStream(entry.body.getBytes(StandardCharsets.UTF_8));
+        }
+        return new StreamedPage(url, response, getMillisSince(startTime));
+    }
+
+    /*
+       Returns the cached Entry of the page with the given URL if the server
+       says it has not been modified
+       Otherwise downloads the page, stores it in the cache if there is one,
+       and returns it
+       May throw IOException
+     */
+    private PageCache.Entry getCachedOrDownload(String url) throws IOException {
+        long startTime = System.nanoTime();
+        PageCache.Entry entry = cache == null ? null : cache.get(url);
+        Connection.Response response = connect(url, entry).execute();
+        if (entry != null &&
+                response.statusCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            recordPage(startTime, entry.body, true);
+            if (recorder != null) {
+                recorder.record(url, entry.body);
+            }
+            return entry;
+        }
+        String body = response.body();
+        recordPage(startTime, body, false);
+        if (recorder != null) {
+            recorder.record(url, body);
+        }
+        String baseURI = response.url().toExternalForm();
+        String eTag = response.header("ETag");
+        String lastModified = response.header("Last-Modified");
+        if (cache != null) {
+            cache.put(url, baseURI, eTag, lastModified, body);
+        }
+        return new PageCache.Entry(baseURI,
+                eTag == null ? "" : eTag,
+                lastModified == null ? "" : lastModified,
+                body);
+    }
+
+    /*
+       Returns a connection to the given URL, which asks the server to only
+       send the page if it changed since the given cached Entry was stored
+       If the given entry is null, the connection asks for the page
+     */
+    private Connection connect(String url, PageCache.Entry entry) {
+        Connection connection = Jsoup.connect(url);
+        if (entry != null) {
+            if (!entry.eTag.isEmpty()) {
+                connection.header("If-None-Match", entry.eTag);
+            }
+            if (!entry.lastModified.isEmpty()) {
+                connection.header("If-Modified-Since", entry.lastModified);
+            }
+        }
+        return connection;
+    }
+
+    /*
+       A stream of a page that is read from the network
+       Counts the bytes that are read and records the page in the metrics
+       when it is closed
+       If there is a cache, keeps a copy of the bytes, and stores the page in
+       the cache when it is closed if it was read to the end
+     */
+    private class StreamedPage extends FilterInputStream {
+
+        private final String url;
+        private final String baseURI;
+        private final String eTag;
+        private final String lastModified;
+        private final long latencyMillis;
+        private final ByteArrayOutputStream copy;
+        private long bytesRead;
+        private boolean isComplete;
+        private boolean isClosed;
+
+        /*
+           Constructs a StreamedPage that reads the body of the given
+           response to the page with the given URL, which started after the
+           given number of milliseconds
+         */
+        StreamedPage(String url, Connection.Response response, long latencyMillis) {
+            super(response.bodyStream());
+            this.url = url;
+            this.latencyMillis = latencyMillis;
+            baseURI = response.url().toExternalForm();
+            eTag = response.header("ETag");
+            lastModified = response.header("Last-Modified");
+            copy = cache == null ? null : new ByteArrayOutputStream();
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                isComplete = true;
+            } else {
+                bytesRead++;
+                if (copy != null) {
+                    copy.write(b);
+                }
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int numRead = super.read(buffer, offset, length);
+            if (numRead == -1) {
+                isComplete = true;
+            } else {
+                bytesRead += numRead;
+                if (copy != null) {
+                    copy.write(buffer, offset, numRead);
+                }
+            }
+            return numRead;
+        }
+
+        /*
+           Skips by reading, so the skipped bytes are counted and copied
+         */
+        @Override
+        public long skip(long n) throws IOException {
+            if (n <= 0) {
+                return 0;
+            }
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            return Math.max(0, read(buffer, 0, buffer.length));
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+            super.close();
+            if (metrics != null) {
+                metrics.recordPage(latencyMillis, bytesRead, false);
+            }
+            if (copy != null && isComplete) {
+                cache.put(url, baseURI, eTag, lastModified,
+                        new String(copy.toByteArray(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /*
+       Parses the given HTML into a document with the given base URI
+       The parsing time is added to the parsing time of the metrics, if they
+       were set
+     */
+    private Document parse(String body, String baseURI) {
+        if (metrics == null) {
+            return Jsoup.parse(body, baseURI);
+        }
+        long startTime = System.nanoTime();
+        Document document = Jsoup.parse(body, baseURI);
+        metrics.addParsingTime(getMillisSince(startTime));
+        return document;
+    }
+
+    /*
+       Records a page that started loading at the given System.nanoTime() and
+       has the given body in the metrics, if they were set
+       If fromCache is true, the page was taken from the cache
+     */
+    private void recordPage(long startTime, String body, boolean fromCache) {
+        if (metrics != null) {
+            metrics.recordPage(getMillisSince(startTime),
+                    getUTF8Length(body), fromCache);
+        }
+    }
+
+    /*
+       Returns the number of milliseconds since the given System.nanoTime()
+     */
+    private static long getMillisSince(long startTime) {
+        return (System.nanoTime() - startTime) / 1000000;
+    }
+
+    /*
+       Returns the number of bytes of the given text in UTF-8, without
+       encoding it
+     */
+    private long getUTF8Length(String text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /*
+       Returns the given URL with its protocol, host and port replaced by the
+       base URL, if one was set
+     */
+    private String rewriteURL(String url) throws MalformedURLException {
+        if (baseURL == null) {
+            return url;
+        }
+        URL parsedURL = new URL(url);
+        return new URL(new URL(baseURL), parsedURL.getFile()).toExternalForm();
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+   Records the pages that a PageLoader loads into a compressed zip archive,
+   so they can be replayed later without the ESPN website
+   Each page is stored once, in an entry named after the path and query of
+   its URL, so the archive can be replayed by a server with any host name
+   The archive may have a comment, such as the date the pages were recorded
+   on, so URLs that depend on the date can be built again when replaying
+ */
+
+package com.adizangi.tennisplayerstracker.network_calls;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class PageRecorder {
+
+    private ZipOutputStream out;
+    private Set<String> recordedPaths = new HashSet<>();
+
+    /*
+       Constructs a PageRecorder that writes to the given archive file
+       If the file exists, it is replaced
+       May throw IOException
+     */
+    public PageRecorder(File archive) throws IOException {
+        out = new ZipOutputStream(new FileOutputStream(archive));
+    }
+
+    /*
+       Adds the given body of the page with the given URL to the archive
+       If a page with the same path and query was already recorded, performs
+       no operations
+       May be called by several threads at the same time
+       May throw IOException
+     */
+    public synchronized void record(String url, String body) throws IOException {
+        String path = getPath(url);
+        if (out == null || !recordedPaths.add(path)) {
+            return;
+        }
+        out.putNextEntry(new ZipEntry(getEntryName(path)));
+        out.write(body.getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+    }
+
+    /*
+       Sets the comment of the archive to the given string
+     */
+    public synchronized void setComment(String comment) {
+        if (out != null) {
+            out.setComment(comment);
+        }
+    }
+
+    /*
+       Finishes the archive and closes the file
+       Pages that are loaded after this are not recorded
+       May throw IOException
+     */
+    public synchronized void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    /*
+       Returns the path and query of the given URL, which identifies a page
+       regardless of the host that served it
+     */
+    public static String getPath(String url) {
+        try {
+            URL parsedURL = new URL(url);
+            String path = parsedURL.getPath().isEmpty() ? "/" : parsedURL.getPath();
+            return parsedURL.getQuery() == null ?
+                    path : path + "?" + parsedURL.getQuery();
+        } catch (MalformedURLException e) {
+            return url;
+        }
+    }
+
+    /*
+       Returns the name of the archive entry of the page with the given path
+       and query
+     */
+    public static String getEntryName(String path) {
+        try {
+            return URLEncoder.encode(path, "UTF-8") + ".html";
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
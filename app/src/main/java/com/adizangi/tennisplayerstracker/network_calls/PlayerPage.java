@@ -0,0 +1,255 @@
+/*
+   The parts of a player's page in the ESPN website that the player's
+   statistics are taken from
+   The page is read in one pass when a PlayerPage is constructed, and the
+   rows of the current tournament table are kept as ResultRows so that all
+   the statistics are derived from them without searching the page again
+ */
+
+package com.adizangi.tennisplayerstracker.network_calls;
+
+import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.Elements;
+import org.jsoup.select.NodeFilter;
+import org.jsoup.select.NodeTraversor;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+public class PlayerPage {
+
+    private String pageName;
+    private int titlesYear;
+    private int titles;
+    private String currentTournament;
+    private List<ResultRow> resultRows;
+    private Element nameHeading;
+    private Element playerStatsDiv;
+    private Element latestTournamentDiv;
+
+    /*
+       Represents a row of a singles match in the current tournament table
+     */
+    private static class ResultRow {
+
+        String round;
+        String opponent;
+        String result;
+        String details;
+
+        /*
+           Constructs a ResultRow from the given columns of a table row
+           The last column has the score of a match that was played, or the
+           date and time of a match that was not played yet
+         */
+        ResultRow(Elements columns) {
+            round = columns.get(0).text();
+            opponent = columns.get(1).text();
+            result = columns.get(2).text();
+            details = columns.get(3).text();
+        }
+    }
+
+    /*
+       Constructs a PlayerPage with the given HTML document of a player's page
+     */
+    public PlayerPage(Document playerDocument) {
+        findSections(playerDocument);
+        pageName = nameHeading == null ? "" : nameHeading.text();
+        readTitles();
+        resultRows = new ArrayList<>();
+        currentTournament = "";
+        String latestTournamentTitle = latestTournamentDiv.selectFirst("h4")
+                .text();
+        if (!latestTournamentTitle.equals("CURRENT TOURNAMENT")) {
+            return;
+        }
+        Element latestTournamentTable =
+                latestTournamentDiv.getElementsByTag("table").get(1);
+        Elements rows = latestTournamentTable.getElementsByTag("tr");
+        String tournamentType = rows.get(1).text();
+        if (!tournamentType.contains("Singles")) {
+            return;
+        }
+        currentTournament = latestTournamentDiv.selectFirst("a").text();
+        int numOfRows = rows.size();
+        for (int row = 2; row < numOfRows; row++) {
+            Elements columns = rows.get(row).getElementsByTag("td");
+            if (columns.size() < 4) {
+                break;
+            }
+            resultRows.add(new ResultRow(columns));
+        }
+    }
+
+    /*
+       Returns a PlayerStats object for this player, with the given name and
+       ranking from the rankings table
+     */
+    public PlayerStats getPlayerStats(String name, int ranking) {
+        PlayerStats.Standing standing = getTournamentStanding();
+        String round = "";
+        int roundNumber = 0;
+        String currentTournament = "";
+        String latestMatchResult = "";
+        if (standing != PlayerStats.Standing.NOT_PLAYING) {
+            roundNumber = resultRows.size();
+            round = resultRows.get(roundNumber - 1).round;
+            currentTournament = this.currentTournament;
+            latestMatchResult = getLatestMatchResult();
+        }
+        String upcomingMatch = "";
+        if (standing == PlayerStats.Standing.ADVANCED) {
+            upcomingMatch = getUpcomingMatch();
+        }
+        return new PlayerStats(
+                name,
+                ranking,
+                titlesYear,
+                titles,
+                standing,
+                round,
+                roundNumber,
+                currentTournament,
+                latestMatchResult,
+                upcomingMatch);
+    }
+
+    /*
+       Finds the sections of the given document that the statistics are taken
+       from, which are the player's name, the player's stats, and the latest
+       tournament, in a single traversal of the document
+     */
+    private void findSections(Document playerDocument) {
+        NodeTraversor.filter(new NodeFilter() {
+            @Override
+            public FilterResult head(Node node, int depth) {
+                if (!(node instanceof Element)) {
+                    return FilterResult.SKIP_ENTIRELY;
+                }
+                Element element = (Element) node;
+                if (nameHeading == null && element.tagName().equals("h1")) {
+                    nameHeading = element;
+                } else if (playerStatsDiv == null &&
+                        element.tagName().equals("div") &&
+                        element.hasClass("player-stats")) {
+                    playerStatsDiv = element;
+                } else if (latestTournamentDiv == null &&
+                        element.id().equals("my-players-table")) {
+                    latestTournamentDiv = element;
+                }
+                if (nameHeading != null && playerStatsDiv != null &&
+                        latestTournamentDiv != null) {
+                    return FilterResult.STOP;
+                }
+                return FilterResult.CONTINUE;
+            }
+
+            @Override
+            public FilterResult tail(Node node, int depth) {
+                return FilterResult.CONTINUE;
+            }
+        }, playerDocument);
+    }
+
+    /*
+       Reads the number of singles titles of the player and the year they
+       are counted in
+       If they can't be read, the titles are unknown
+     */
+    private void readTitles() {
+        titlesYear = 0;
+        titles = PlayerStats.UNKNOWN_TITLES;
+        Element statsTitle = playerStatsDiv.selectFirst("p");
+        if (statsTitle == null) { // check needed due to bug in website
+            return;
+        }
+        String statsFullTitle = statsTitle.text();
+        Element statsTable = playerStatsDiv.selectFirst("table");
+        String singlesTitles = statsTable.getElementsByTag("tr").get(1)
+                .selectFirst("td").text();
+        try {
+            int year = Integer.parseInt(
+                    statsFullTitle.substring(0, statsFullTitle.indexOf(" ")));
+            titles = Integer.parseInt(singlesTitles.trim());
+            titlesYear = year;
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            titles = PlayerStats.UNKNOWN_TITLES;
+        }
+    }
+
+    /*
+       Returns the tournament standing of the player
+       The tournament standing tells whether the player advanced to the next round,
+       is out of the tournament, or is not playing in a tournament
+       A player who is not playing singles in a tournament, or whose
+       tournament table has no results, is not playing
+     */
+    private PlayerStats.Standing getTournamentStanding() {
+        if (resultRows.isEmpty()) {
+            return PlayerStats.Standing.NOT_PLAYING;
+        }
+        ResultRow latestResult = resultRows.get(resultRows.size() - 1);
+        if (latestResult.result.equals("-")) {
+            return PlayerStats.Standing.ADVANCED;
+        } else if (!latestResult.result.equals("W")) {
+            return PlayerStats.Standing.OUT;
+        }
+        return PlayerStats.Standing.WINNER;
+    }
+
+    /*
+       Returns the latest match result of the player
+       Only safe to call if the player is currently in a tournament, which is
+       given in the return value of getTournamentStanding()
+     */
+    private String getLatestMatchResult() {
+        int latestResultIndex = resultRows.size() - 1;
+        ResultRow latestResult = resultRows.get(latestResultIndex);
+        if (latestResult.result.equals("-")) {
+            if (latestResultIndex == 0) {
+                return "";
+            }
+            latestResult = resultRows.get(latestResultIndex - 1);
+        }
+        if (latestResult.opponent.isEmpty()) {
+            return latestResult.round + "- automatically advanced";
+        }
+        return latestResult.round + "- " + latestResult.opponent + " " +
+                latestResult.details;
+    }
+
+    /*
+       Returns the upcoming match of the player
+       Returns an empty string if the player does not have an upcoming match today
+       Only safe to call if the player advanced to the next round, which is
+       given in the return value of getTournamentStanding()
+     */
+    private String getUpcomingMatch() {
+        ResultRow upcomingMatch = resultRows.get(resultRows.size() - 1);
+        String upcomingMatchDetails = upcomingMatch.details;
+        if (upcomingMatchDetails.contains("ET")) {
+            int secondSpaceIndex = upcomingMatchDetails
+                    .indexOf(" ", upcomingMatchDetails.indexOf(" ") + 1);
+            String upcomingMatchDate =
+                    upcomingMatchDetails.substring(0, secondSpaceIndex);
+            String pattern = "MMMMM d";
+            SimpleDateFormat dateFormat = new SimpleDateFormat(pattern, Locale.US);
+            String date = dateFormat.format(new Date());
+            if (date.equals(upcomingMatchDate)) {
+                String upcomingMatchTime =
+                        upcomingMatchDetails.substring(secondSpaceIndex + 1);
+                return pageName + " " + upcomingMatchTime;
+            }
+        }
+        return "";
+    }
+
+}
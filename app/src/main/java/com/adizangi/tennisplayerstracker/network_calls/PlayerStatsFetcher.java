@@ -7,30 +7,82 @@ package com.adizangi.tennisplayerstracker.network_calls;
 
 import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
 
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class PlayerStatsFetcher {
 
-    private Document mRankings;
-    private Document wRankings;
+    private RankingsIndex rankingsIndex;
+    private PageLoader pageLoader;
+    private int numOfThreads;
+    private int numOfFetchedPages;
+    private Set<String> priorityPlayerNames = new HashSet<>();
+    private OnPriorityPlayersFetchedListener priorityListener;
+    private Map<String, PlayerStats> completedStats = new HashMap<>();
+    private OnPlayerFetchedListener playerListener;
+    private int shard = 0;
+    private int numOfShards = 1;
 
     /*
-       Constructs a PlayerStatsFetcher with the given HTML documents of the
-       men's tennis rankings and women's tennis rankings from ESPN
+       Interface used to hand over the stats of the priority players before
+       the pages of the other players are fetched
+       If the listener throws IOException, the fetch stops and
+       getPlayerStatsMap() throws it
      */
-    public PlayerStatsFetcher(Document mRankings, Document wRankings) {
-        this.mRankings = mRankings;
-        this.wRankings = wRankings;
+    public interface OnPriorityPlayersFetchedListener {
+        void onPriorityPlayersFetched(Map<String, PlayerStats> stats)
+                throws IOException;
+    }
+
+    /*
+       Interface used to hand over the stats of each player as soon as the
+       page of that player was fetched
+     */
+    public interface OnPlayerFetchedListener {
+        void onPlayerFetched(String player, PlayerStats playerStats);
+    }
+
+    /*
+       Constructs a PlayerStatsFetcher with the given index of the players in
+       the men's tennis rankings and women's tennis rankings from ESPN
+       Player pages are downloaded one at a time
+     */
+    public PlayerStatsFetcher(RankingsIndex rankingsIndex) {
+        this(rankingsIndex, new PageLoader(), 1);
+    }
+
+    /*
+       Constructs a PlayerStatsFetcher with the given index of the players in
+       the men's tennis rankings and women's tennis rankings from ESPN
+       Player pages are loaded with the given PageLoader, and up to the given
+       number of player pages are fetched at the same time
+     */
+    public PlayerStatsFetcher(RankingsIndex rankingsIndex,
+                              PageLoader pageLoader, int numOfThreads) {
+        this.rankingsIndex = rankingsIndex;
+        this.pageLoader = pageLoader;
+        this.numOfThreads = Math.max(1, numOfThreads);
     }
 
     /*
@@ -38,252 +90,302 @@ public class PlayerStatsFetcher {
        The ESPN website doesn't have player information when a new year
        starts and there have not been any tennis tournaments in the new year
        In this case, returns an empty map
-       May throw IOException
+       If the page of a player can't be fetched or read, that player is left
+       out of the map and the other players are still fetched
+       May throw IOException if the network fails, or if none of the player
+       pages could be fetched
      */
     public Map<String, PlayerStats> getPlayerStatsMap() throws IOException {
         Map<String, PlayerStats> stats = new HashMap<>();
-        Element mRankingsTable = mRankings.selectFirst("table");
-        if (mRankingsTable == null) {
-            return new HashMap<>();
+        fetchPlayerStats(getAllPlayers(), stats);
+        return stats;
+    }
+
+    /*
+       Returns a map from each player to a PlayerStats object, like
+       getPlayerStatsMap(), but only fetches the pages of players whose
+       stats may have changed since the given previous stats map was fetched
+       A player who was not playing in the previous stats keeps the previous
+       stats with the new ranking, unless the given schedule documents of
+       today and yesterday show that the player may have started playing
+       If the previous stats map is null or empty, fetches all the players
+       May throw IOException if the network fails, or if none of the fetched
+       player pages could be fetched
+     */
+    public Map<String, PlayerStats> getPlayerStatsMap(
+            Map<String, PlayerStats> previousStats,
+            Document tSchedule, Document ySchedule) throws IOException {
+        if (previousStats == null || previousStats.isEmpty()) {
+            return getPlayerStatsMap();
         }
-        Elements mRows = mRankingsTable.select("tr");
-        Element wRankingsTable = wRankings.selectFirst("table");
-        Elements wRows = wRankingsTable.select("tr");
-        int mNumOfRows = mRows.size();
-        int wNumOfRows = wRows.size();
-        for (int rowIndex = 1; rowIndex < 101; rowIndex++) {
-            if (rowIndex < mNumOfRows) {  // Check is needed due to bug in the website
-                Elements mColumns = mRows.get(rowIndex).select("td");
-                String playerName = mColumns.get(1).text();
-                String playerRanking = mColumns.get(0).text();
-                Element playerNameLink = mColumns.get(1).selectFirst("a");
-                String playerURL = playerNameLink.attr("abs:href");
-                Document playerDocument = Jsoup.connect(playerURL).get();
-                String playerKey = playerName + " (" + playerRanking + ")";
-                PlayerStats playerStats = getPlayerStats(playerDocument,
-                        playerName, playerRanking);
-                stats.put(playerKey, playerStats);
-            }
-            if (rowIndex < wNumOfRows) {
-                Elements wColumns = wRows.get(rowIndex).select("td");
-                String playerName = wColumns.get(1).text();
-                String playerRanking = wColumns.get(0).text();
-                Element playerNameLink = wColumns.get(1).selectFirst("a");
-                String playerURL = playerNameLink.attr("abs:href");
-                Document playerDocument = Jsoup.connect(playerURL).get();
-                String playerKey = playerName + " (" + playerRanking + ")";
-                PlayerStats playerStats = getPlayerStats(playerDocument,
-                        playerName, playerRanking);
-                stats.put(playerKey, playerStats);
+        Map<String, PlayerStats> previousStatsByName = new HashMap<>();
+        for (PlayerStats playerStats : previousStats.values()) {
+            previousStatsByName.put(playerStats.getName(), playerStats);
+        }
+        boolean isNewTournament = hasNewTournament
+                (previousStats.values(), tSchedule, ySchedule);
+        String scheduleText = (tSchedule.text() + " " + ySchedule.text())
+                .toLowerCase(Locale.US);
+        int year = Calendar.getInstance().get(Calendar.YEAR);
+        Map<String, PlayerStats> stats = new HashMap<>();
+        List<Integer> changedPages = new ArrayList<>();
+        for (int player : getAllPlayers()) {
+            String name = rankingsIndex.getName(player);
+            PlayerStats previous = previousStatsByName.get(name);
+            boolean canBeSkipped = previous != null &&
+                    !isNewTournament &&
+                    previous.getStanding() == PlayerStats.Standing.NOT_PLAYING &&
+                    previous.getTitlesYear() == year &&
+                    !scheduleText.contains(getSurname(name));
+            if (canBeSkipped) {
+                stats.put(rankingsIndex.getKey(player),
+                        previous.withRanking(rankingsIndex.getRanking(player)));
+            } else {
+                changedPages.add(player);
             }
         }
+        fetchPlayerStats(changedPages, stats);
         return stats;
     }
 
     /*
-       Returns a PlayerStats object for the player whose information is in
-       the given document
+       Sets the players whose pages are fetched before the pages of all the
+       other players
+       Each player is represented by name followed by ranking in parenthesis,
+       but is matched by name so that a change in ranking doesn't matter
+       The given listener is called after the pages of these players were
+       fetched, and may be null
      */
-    private PlayerStats getPlayerStats(Document playerDocument,
-                                       String name, String rankingNumber) {
-        String ranking = "Current ranking: " + rankingNumber;
-        String titles = getTitles(playerDocument);
-        int latestResultIndex = getLatestResultIndex(playerDocument);
-        String standing = getTournamentStanding
-                (playerDocument, latestResultIndex);
-        String currentTournament = "";
-        String latestMatchResult = "";
-        if (!standing.equals("not playing")) {
-            currentTournament = getCurrentTournament(playerDocument);
-            latestMatchResult = getLatestMatchResult
-                    (playerDocument, latestResultIndex);
+    public void setPriorityPlayers(List<String> players,
+                                   OnPriorityPlayersFetchedListener listener) {
+        priorityPlayerNames = new HashSet<>();
+        for (String player : players) {
+            int rankingIndex = player.lastIndexOf(" (");
+            priorityPlayerNames.add(rankingIndex == -1 ?
+                    player : player.substring(0, rankingIndex));
         }
-        String upcomingMatch = "";
-        if (standing.contains("advanced")) {
-            upcomingMatch = getUpcomingMatch
-                    (playerDocument, latestResultIndex);
-        }
-        return new PlayerStats(
-                name,
-                ranking,
-                titles,
-                standing,
-                currentTournament,
-                latestMatchResult,
-                upcomingMatch);
+        priorityListener = listener;
     }
 
     /*
-       Returns the name of the player whose information is in the given document
+       Sets the stats of players that were already fetched, such as in an
+       earlier attempt that stopped partway through
+       The pages of these players are not fetched again, and the given stats
+       are used instead
+       The map is from each player, represented by name followed by ranking in
+       parenthesis, to a PlayerStats object
      */
-    private String getName(Document playerDocument) {
-        return playerDocument.selectFirst("h1").text();
+    public void setCompletedStats(Map<String, PlayerStats> completedStats) {
+        this.completedStats = new HashMap<>(completedStats);
     }
 
     /*
-       Returns the ranking of the player whose information is in the given document
+       Sets a listener that is called with the stats of each player after the
+       page of that player was fetched
+       The listener is called on the thread that called getPlayerStatsMap()
      */
-    private String getRanking(Document playerDocument) {
-        Element detailsList = playerDocument.select("ul").get(1);
-        Elements listItems = detailsList.select("li");
-        String rankingFullText = listItems.get(0).text();
-        return rankingFullText.substring(rankingFullText.indexOf("#") + 1);
+    public void setOnPlayerFetchedListener(OnPlayerFetchedListener listener) {
+        playerListener = listener;
     }
 
     /*
-       Returns the number of singles titles of the player whose information is
-       in the given document
+       Sets this fetcher to only fetch the players in the given shard, when
+       the players are split into the given number of shards
+       Players are split by their position in the rankings index, which
+       alternates between men and women, so all the shards are about the
+       same size
+       The maps that are returned only contain the players in the shard
      */
-    private String getTitles(Document playerDocument) {
-        Element playerStatsDiv = playerDocument.selectFirst("div.player-stats");
-        if (playerStatsDiv.select("p").isEmpty()) { // check needed due to bug in website
-            return "Singles titles: unknown";
-        }
-        String statsFullTitle = playerStatsDiv.selectFirst("p").text();
-        String year = statsFullTitle.substring(0, statsFullTitle.indexOf(" "));
-        Element statsTable = playerStatsDiv.selectFirst("table");
-        String singlesTitles = statsTable.select("tr").get(1)
-                .selectFirst("td").text();
-        return year + " singles titles: " + singlesTitles;
+    public void setShard(int shard, int numOfShards) {
+        this.shard = shard;
+        this.numOfShards = Math.max(1, numOfShards);
+    }
+
+    /*
+       Returns the number of player pages that were fetched in the last call
+       to getPlayerStatsMap()
+     */
+    public int getNumOfFetchedPages() {
+        return numOfFetchedPages;
     }
 
     /*
-       Returns the index of the row that contains the latest singles match result
-       of the player whose information is in the given document
-       Returns -1 if the player is not currently playing singles in a tournament
+       Fetches the pages in the given list and puts a PlayerStats object for
+       each of them into the given map
+       Up to numOfThreads pages are fetched at the same time
+       Players whose stats were set as completed are put into the map without
+       fetching their pages
+       If priority players were set, their pages are fetched first and the
+       OnPriorityPlayersFetchedListener is called with a copy of the map
+       before the other pages are fetched
+       If a page can't be fetched or read, that player is skipped
+       May throw IOException if the network fails, so the fetch is retried
+       instead of storing the players that were fetched before that, if
+       none of the pages could be fetched, or if the
+       OnPriorityPlayersFetchedListener throws it
      */
-    private int getLatestResultIndex(Document playerDocument) {
-        Element latestTournamentDiv =
-                playerDocument.selectFirst("#my-players-table");
-        String latestTournamentTitle = latestTournamentDiv.selectFirst("h4")
-                .text();
-        if (!latestTournamentTitle.equals("CURRENT TOURNAMENT")) {
-            return -1;
+    private void fetchPlayerStats(List<Integer> pages,
+                                  Map<String, PlayerStats> stats)
+            throws IOException {
+        List<Integer> remainingPages = new ArrayList<>();
+        for (int player : pages) {
+            PlayerStats completed = completedStats.get(rankingsIndex.getKey(player));
+            if (completed != null) {
+                stats.put(rankingsIndex.getKey(player), completed);
+            } else {
+                remainingPages.add(player);
+            }
         }
-        Element latestTournamentTable =
-                latestTournamentDiv.select("table").get(1);
-        Elements rows = latestTournamentTable.select("tr");
-        String tournamentType = rows.get(1).text();
-        if (!tournamentType.contains("Singles")) {
-            return -1;
+        pages = remainingPages;
+        numOfFetchedPages = pages.size();
+        if (pages.isEmpty()) {
+            return;
         }
-        int numOfRows = rows.size();
-        int row = 2;
-        while (row < numOfRows) {
-            Elements columns = rows.get(row).select("td");
-            if (columns.size() < 4) {
-                break;
+        List<Integer> priorityPages = new ArrayList<>();
+        List<Integer> otherPages = new ArrayList<>();
+        for (int player : pages) {
+            if (priorityPlayerNames.contains(rankingsIndex.getName(player))) {
+                priorityPages.add(player);
+            } else {
+                otherPages.add(player);
             }
-            row++;
         }
-        return row - 1;
+        List<Exception> errors = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(numOfThreads, pages.size()));
+        try {
+            if (!priorityPages.isEmpty()) {
+                fetchPages(executor, priorityPages, stats, errors);
+                if (priorityListener != null) {
+                    priorityListener.onPriorityPlayersFetched(new HashMap<>(stats));
+                }
+            }
+            fetchPages(executor, otherPages, stats, errors);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Fetching player stats was interrupted");
+        } finally {
+            executor.shutdownNow();
+        }
+        if (errors.size() == pages.size()) {
+            Exception firstError = errors.get(0);
+            if (firstError instanceof IOException) {
+                throw (IOException) firstError;
+            }
+            throw new IOException(firstError);
+        }
     }
 
     /*
-       Returns the tournament standing of the player whose information is
-       in the given document, using the given index of the latest result row
-       The tournament standing tells whether the player advanced to the next round,
-       is out of the tournament, or is not playing in a tournament
+       Fetches the pages in the given list with the given ExecutorService, and
+       puts a PlayerStats object for each of them into the given map
+       Returns after all the pages were fetched
+       If a page can't be fetched or read, that player is skipped and the
+       error is added to the given list of errors
+       May throw IOException if a page couldn't be fetched because the network
+       failed, since the pages after it would fail too
      */
-    private String getTournamentStanding(Document playerDocument,
-                                         int latestResultIndex) {
-        if (latestResultIndex == -1) {
-            return "not playing";
+    private void fetchPages(ExecutorService executor, List<Integer> pages,
+                            Map<String, PlayerStats> stats,
+                            List<Exception> errors)
+            throws IOException, InterruptedException {
+        List<Future<PlayerStats>> results = new ArrayList<>();
+        for (final int player : pages) {
+            results.add(executor.submit(new Callable<PlayerStats>() {
+                @Override
+                public PlayerStats call() throws IOException {
+                    Document playerDocument =
+                            pageLoader.load(rankingsIndex.getProfileURL(player));
+                    PlayerPage playerPage = new PlayerPage(playerDocument);
+                    return playerPage.getPlayerStats(rankingsIndex.getName(player),
+                            rankingsIndex.getRanking(player));
+                }
+            }));
         }
-        Element latestTournamentDiv =
-                playerDocument.selectFirst("#my-players-table");
-        Element latestTournamentTable =
-                latestTournamentDiv.select("table").get(1);
-        Elements rows = latestTournamentTable.select("tr");
-        Element latestResultRow = rows.get(latestResultIndex);
-        Elements columns = latestResultRow.select("td");
-        String matchResult = columns.get(2).text();
-        if (matchResult.equals("-")) {
-            String roundNumber = columns.get(0).text();
-            return "advanced to " + roundNumber;
-        } else if (!matchResult.equals("W")) {
-            return "out";
+        for (int i = 0; i < pages.size(); i++) {
+            try {
+                int player = pages.get(i);
+                PlayerStats playerStats = results.get(i).get();
+                stats.put(rankingsIndex.getKey(player), playerStats);
+                if (playerListener != null) {
+                    playerListener.onPlayerFetched
+                            (rankingsIndex.getKey(player), playerStats);
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                if (isNetworkError(cause)) {
+                    throw (IOException) cause;
+                }
+                /* Skips this player so one bad page doesn't fail the rest */
+                cause.printStackTrace();
+                errors.add((Exception) cause);
+            }
         }
-        return "winner";
     }
 
     /*
-       Returns the name of the tournament that the player whose information is
-       in the given document is playing in
-       Only safe to call if the player is currently in a tournament, which is
-       given in the return value of getTournamentStanding()
+       Returns true if the given error means that the network failed, rather
+       than that one page couldn't be read
      */
-    private String getCurrentTournament(Document playerDocument) {
-        Element latestTournamentDiv =
-                playerDocument.selectFirst("#my-players-table");
-        return latestTournamentDiv.selectFirst("a").text();
+    private boolean isNetworkError(Throwable error) {
+        return error instanceof UnknownHostException ||
+                error instanceof SocketException ||
+                error instanceof SocketTimeoutException;
     }
 
     /*
-       Returns the latest match result of the player whose information is
-       in the given document, using the given index of the latest result row
-       Only safe to call if the player is currently in a tournament, which is
-       given in the return value of getTournamentStanding()
+       Returns true if one of the tournaments in the given schedule documents
+       is not one of the current tournaments in the given previous stats,
+       which means that a tournament may have started since then
      */
-    private String getLatestMatchResult(Document playerDocument,
-                                        int latestResultIndex) {
-        Element latestTournamentDiv =
-                playerDocument.selectFirst("#my-players-table");
-        Element latestTournamentTable =
-                latestTournamentDiv.select("table").get(1);
-        Elements rows = latestTournamentTable.select("tr");
-        Element latestResultRow = rows.get(latestResultIndex);
-        Elements columns = latestResultRow.select("td");
-        String matchResult = columns.get(2).text();
-        if (matchResult.equals("-")) {
-            if (latestResultIndex == 2) {
-                return "";
+    private boolean hasNewTournament(Collection<PlayerStats> previousStats,
+                                     Document tSchedule, Document ySchedule) {
+        Set<String> previousTournaments = new HashSet<>();
+        for (PlayerStats playerStats : previousStats) {
+            String tournament = playerStats.getCurrentTournament();
+            if (!tournament.isEmpty()) {
+                previousTournaments.add(tournament.toLowerCase(Locale.US));
             }
-            latestResultRow = rows.get(latestResultIndex - 1);
-            columns = latestResultRow.select("td");
         }
-        String round = columns.get(0).text();
-        String opponent = columns.get(1).text();
-        if (opponent.isEmpty()) {
-            return round + "- automatically advanced";
+        Elements headlines = tSchedule.select("div.scoreHeadline");
+        headlines.addAll(ySchedule.select("div.scoreHeadline"));
+        for (Element headline : headlines) {
+            String tournament = headline.text().toLowerCase(Locale.US);
+            boolean isKnown = false;
+            for (String previousTournament : previousTournaments) {
+                if (tournament.contains(previousTournament) ||
+                        previousTournament.contains(tournament)) {
+                    isKnown = true;
+                    break;
+                }
+            }
+            if (!isKnown) {
+                return true;
+            }
         }
-        String score = columns.get(3).text();
-        return round + "- " + opponent + " " + score;
+        return false;
     }
 
     /*
-       Returns the upcoming match of the player whose information is
-       in the given document, using the given index of the latest result row
-       Returns an empty string if the player does not have an upcoming match today
-       Only safe to call if the player advanced to the next round, which is
-       given in the return value of getTournamentStanding()
+       Returns the last word of the given player name in lower case
      */
-    private String getUpcomingMatch(Document playerDocument,
-                                    int latestResultIndex) {
-        Element latestTournamentDiv =
-                playerDocument.selectFirst("#my-players-table");
-        Element latestTournamentTable =
-                latestTournamentDiv.select("table").get(1);
-        Elements rows = latestTournamentTable.select("tr");
-        Element upcomingMatchRow = rows.get(latestResultIndex);
-        Elements columns = upcomingMatchRow.select("td");
-        String upcomingMatchDetails = columns.get(3).text();
-        if (upcomingMatchDetails.contains("ET")) {
-            int secondSpaceIndex = upcomingMatchDetails
-                    .indexOf(" ", upcomingMatchDetails.indexOf(" ") + 1);
-            String upcomingMatchDate =
-                    upcomingMatchDetails.substring(0, secondSpaceIndex);
-            String pattern = "MMMMM d";
-            SimpleDateFormat dateFormat = new SimpleDateFormat(pattern, Locale.US);
-            String date = dateFormat.format(new Date());
-            if (date.equals(upcomingMatchDate)) {
-                String upcomingMatchTime =
-                        upcomingMatchDetails.substring(secondSpaceIndex + 1);
-                String playerName = playerDocument.selectFirst("h1").text();
-                return playerName + " " + upcomingMatchTime;
-            }
+    private String getSurname(String name) {
+        String surname = name.substring(name.lastIndexOf(" ") + 1);
+        return surname.toLowerCase(Locale.US);
+    }
+
+    /*
+       Returns a list of the indexes of all the players in the rankings index
+       that are in this fetcher's shard
+     */
+    private List<Integer> getAllPlayers() {
+        List<Integer> players = new ArrayList<>();
+        for (int i = shard; i < rankingsIndex.size(); i += numOfShards) {
+            players.add(i);
         }
-        return "";
+        return players;
     }
 
 }
@@ -0,0 +1,52 @@
+/*
+   Represents a player in a row of the tennis rankings table
+ */
+
+package com.adizangi.tennisplayerstracker.network_calls;
+
+public class RankedPlayer {
+
+    private String ranking;
+    private String name;
+    private String profileURL;
+
+    /*
+       Constructs a RankedPlayer with the given ranking, name, and URL of the
+       player's page
+     */
+    public RankedPlayer(String ranking, String name, String profileURL) {
+        this.ranking = ranking;
+        this.name = name;
+        this.profileURL = profileURL;
+    }
+
+    /*
+       Returns the player's ranking as it appears in the rankings table
+     */
+    public String getRanking() {
+        return ranking;
+    }
+
+    /*
+       Returns the player's name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /*
+       Returns the absolute URL of the player's page
+     */
+    public String getProfileURL() {
+        return profileURL;
+    }
+
+    /*
+       Returns the string that represents the player in the app, which is
+       the name followed by the ranking in parenthesis
+     */
+    public String getKey() {
+        return name + " (" + ranking + ")";
+    }
+
+}
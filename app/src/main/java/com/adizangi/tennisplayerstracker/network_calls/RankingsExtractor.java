@@ -0,0 +1,369 @@
+/*
+   Extracts the players from an ESPN rankings page while the page is read
+   Instead of parsing the whole page into a Document, the HTML is scanned
+   tag by tag until the requested number of rows of the rankings table were
+   read, and the rest of the page is not read at all
+   Rankings that are split into several pages are read by following the
+   link to the next page
+ */
+
+package com.adizangi.tennisplayerstracker.network_calls;
+
+import org.jsoup.parser.Parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class RankingsExtractor {
+
+    private static final Pattern HREF_PATTERN = Pattern.compile
+            ("href\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s>]+))",
+                    Pattern.CASE_INSENSITIVE);
+    private static final Pattern NEXT_PAGE_PATTERN = Pattern.compile
+            ("(?:rel|class)\\s*=\\s*[\"']?[^\"'>]*?(?<![a-z])next(?![a-z])",
+                    Pattern.CASE_INSENSITIVE);
+    private static final int MAX_PAGES = 50;
+
+    private int maxRows;
+    private String nextPageURL = "";
+    private Reader reader;
+    private String tag;
+    private String text;
+
+    /*
+       Constructs a RankingsExtractor that reads up to the given number of
+       players from a rankings table
+     */
+    public RankingsExtractor(int maxRows) {
+        this.maxRows = maxRows;
+    }
+
+    /*
+       Reads the HTML of a rankings page from the given stream and returns the
+       players in the first table of the page, in the order of the table
+       The header row of the table is skipped, and reading stops after
+       maxRows players or at the end of the table
+       Relative links to player pages are resolved against the given URL of
+       the page
+       The page is read as UTF-8, which is the encoding of the ESPN website
+       If the table ends before maxRows players, the rest of the page is
+       searched for a link to the next page, which getNextPageURL() returns
+       The stream is closed before this method returns
+       The ESPN website doesn't have tennis rankings when a new year starts
+       and there have not been any tennis tournaments in the new year
+       In this case, returns an empty list
+       May throw IOException
+     */
+    public List<RankedPlayer> extract(InputStream in, String pageURL)
+            throws IOException {
+        return extract(in, pageURL, maxRows);
+    }
+
+    /*
+       Reads the rankings starting with the page with the given URL, and
+       follows the links to the next pages until maxRows players were read or
+       there is no next page
+       Pages are opened with the given PageLoader, one at a time, and each
+       page is only read up to the last needed player
+       May throw IOException
+     */
+    public List<RankedPlayer> extractPages(PageLoader pageLoader, String url)
+            throws IOException {
+        List<RankedPlayer> players = new ArrayList<>();
+        Set<String> visitedURLs = new HashSet<>();
+        while (!url.isEmpty() && players.size() < maxRows &&
+                visitedURLs.size() < MAX_PAGES && visitedURLs.add(url)) {
+            List<RankedPlayer> pagePlayers = extract(pageLoader.openStream(url),
+                    url, maxRows - players.size());
+            if (pagePlayers.isEmpty()) {
+                break;
+            }
+            players.addAll(pagePlayers);
+            url = nextPageURL;
+        }
+        return players;
+    }
+
+    /*
+       Returns the absolute URL of the next page of the rankings that was
+       found by the last call to extract()
+       Returns an empty string if there is no next page, or if the last page
+       wasn't searched because maxRows players were already read
+     */
+    public String getNextPageURL() {
+        return nextPageURL;
+    }
+
+    /*
+       Reads up to the given number of players from the given stream, like
+       extract(InputStream, String)
+     */
+    private List<RankedPlayer> extract(InputStream in, String pageURL,
+                                       int maxRows) throws IOException {
+        reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<RankedPlayer> players = new ArrayList<>();
+        nextPageURL = "";
+        try {
+            if (!skipToTable()) {
+                return players;
+            }
+            boolean isHeaderRow = true;
+            List<String> cells = new ArrayList<>();
+            String nameLink = null;
+            StringBuilder cell = null;
+            while (players.size() < maxRows && nextToken()) {
+                if (text != null) {
+                    if (cell != null) {
+                        cell.append(text);
+                    }
+                    continue;
+                }
+                String tagName = getTagName(tag);
+                if (tagName.equals("/table")) {
+                    break;
+                } else if (tagName.equals("tr") || tagName.equals("/tr")) {
+                    if (cell != null) {
+                        cells.add(cleanText(cell));
+                        cell = null;
+                    }
+                    if (!cells.isEmpty() || tagName.equals("/tr")) {
+                        if (!isHeaderRow && cells.size() > 1) {
+                            players.add(new RankedPlayer(cells.get(0),
+                                    cells.get(1), resolve(pageURL, nameLink)));
+                        }
+                        isHeaderRow = false;
+                        cells.clear();
+                        nameLink = null;
+                    }
+                } else if (tagName.equals("td") || tagName.equals("th")) {
+                    if (cell != null) {
+                        cells.add(cleanText(cell));
+                    }
+                    cell = new StringBuilder();
+                } else if (tagName.equals("/td") || tagName.equals("/th")) {
+                    if (cell != null) {
+                        cells.add(cleanText(cell));
+                        cell = null;
+                    }
+                } else if (tagName.equals("a") && cells.size() == 1 &&
+                        cell != null && nameLink == null) {
+                    nameLink = getHref(tag);
+                } else if (tagName.equals("br") && cell != null) {
+                    cell.append(' ');
+                }
+            }
+            if (players.size() < maxRows) {
+                nextPageURL = resolve(pageURL, findNextPageLink());
+            }
+            return players;
+        } finally {
+            reader.close();
+            reader = null;
+        }
+    }
+
+    /*
+       Reads the rest of the page until a link to the next page, which is a
+       link with "next" in its rel or class attribute, or with the text "Next"
+       Returns the link, or null if there is no such link
+     */
+    private String findNextPageLink() throws IOException {
+        String link = null;
+        StringBuilder linkText = null;
+        while (nextToken()) {
+            if (text != null) {
+                if (linkText != null) {
+                    linkText.append(text);
+                }
+                continue;
+            }
+            String tagName = getTagName(tag);
+            if (tagName.equals("a")) {
+                link = getHref(tag);
+                if (NEXT_PAGE_PATTERN.matcher(tag).find()) {
+                    return link;
+                }
+                linkText = new StringBuilder();
+            } else if (tagName.equals("/a") && linkText != null) {
+                String linkName = cleanText(linkText).toLowerCase(Locale.US);
+                if (linkName.equals("next") || linkName.startsWith("next ")) {
+                    return link;
+                }
+                linkText = null;
+            }
+        }
+        return null;
+    }
+
+    /*
+       Reads tokens until the opening tag of the first table
+       Returns false if the page doesn't have a table
+     */
+    private boolean skipToTable() throws IOException {
+        while (nextToken()) {
+            if (tag != null && getTagName(tag).equals("table")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+       Reads the next token of the page, which is either a tag or the text
+       between two tags
+       Sets tag to the content between the angle brackets and text to null
+       if the token is a tag, or the other way around if the token is text
+       Comments are skipped, and so is the content of scripts and styles
+       Returns false at the end of the page
+     */
+    private boolean nextToken() throws IOException {
+        tag = null;
+        text = null;
+        int c = reader.read();
+        if (c == -1) {
+            return false;
+        }
+        if (c != '<') {
+            StringBuilder builder = new StringBuilder();
+            while (c != -1 && c != '<') {
+                builder.append((char) c);
+                reader.mark(1);
+                c = reader.read();
+            }
+            if (c == '<') {
+                reader.reset();
+            }
+            text = builder.toString();
+            return true;
+        }
+        StringBuilder builder = new StringBuilder();
+        char quote = 0;
+        while ((c = reader.read()) != -1) {
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = (char) c;
+            } else if (c == '>') {
+                break;
+            }
+            builder.append((char) c);
+            if (builder.length() == 3 && builder.toString().equals("!--")) {
+                skipPast("-->");
+                return nextToken();
+            }
+        }
+        tag = builder.toString();
+        String tagName = getTagName(tag);
+        if (tagName.equals("script") || tagName.equals("style")) {
+            skipPast("</" + tagName);
+            skipPast(">");
+            return nextToken();
+        }
+        return true;
+    }
+
+    /*
+       Reads characters until right after the given string, ignoring case
+     */
+    private void skipPast(String end) throws IOException {
+        int matched = 0;
+        int c;
+        while (matched < end.length() && (c = reader.read()) != -1) {
+            char lower = Character.toLowerCase((char) c);
+            if (lower == end.charAt(matched)) {
+                matched++;
+            } else {
+                matched = lower == end.charAt(0) ? 1 : 0;
+            }
+        }
+    }
+
+    /*
+       Returns the name of the given tag in lower case, including the slash
+       of a closing tag
+     */
+    private String getTagName(String tag) {
+        int end = tag.startsWith("/") ? 1 : 0;
+        while (end < tag.length() && !Character.isWhitespace(tag.charAt(end)) &&
+                tag.charAt(end) != '/') {
+            end++;
+        }
+        return tag.substring(0, end).toLowerCase(Locale.US);
+    }
+
+    /*
+       Returns the value of the href attribute in the given tag
+       Returns an empty string if the tag doesn't have one
+     */
+    private String getHref(String tag) {
+        Matcher matcher = HREF_PATTERN.matcher(tag);
+        if (!matcher.find()) {
+            return "";
+        }
+        for (int group = 1; group <= 3; group++) {
+            if (matcher.group(group) != null) {
+                return Parser.unescapeEntities(matcher.group(group), true);
+            }
+        }
+        return "";
+    }
+
+    /*
+       Returns the text of a table cell the way it is displayed, with
+       character references decoded and whitespace collapsed
+     */
+    private String cleanText(StringBuilder cell) {
+        String decoded = Parser.unescapeEntities(cell.toString(), false);
+        StringBuilder cleaned = new StringBuilder();
+        boolean lastWasSpace = true;
+        for (int i = 0; i < decoded.length(); i++) {
+            char c = decoded.charAt(i);
+            if (Character.isWhitespace(c) || c == '\u00a0') {
+                if (!lastWasSpace) {
+                    cleaned.append(' ');
+                    lastWasSpace = true;
+                }
+            } else {
+                cleaned.append(c);
+                lastWasSpace = false;
+            }
+        }
+        int length = cleaned.length();
+        if (length > 0 && cleaned.charAt(length - 1) == ' ') {
+            cleaned.setLength(length - 1);
+        }
+        return cleaned.toString();
+    }
+
+    /*
+       Returns the given link as an absolute URL, resolved against the given
+       URL of the page
+       Returns an empty string if there is no link
+     */
+    private String resolve(String pageURL, String link) {
+        if (link == null || link.isEmpty()) {
+            return "";
+        }
+        try {
+            return new URL(new URL(pageURL), link).toExternalForm();
+        } catch (MalformedURLException e) {
+            return "";
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+   An index of the players in the men's and women's tennis rankings that is
+   built once per data refresh and shared by the fetchers
+   The players are kept in arrays in the order of the total players list,
+   which alternates between men and women by ranking
+ */
+
+package com.adizangi.tennisplayerstracker.network_calls;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class RankingsIndex implements Serializable {
+
+    private static final long serialVersionUID = 3306524815722081453L;
+
+    private int[] rankings;
+    private String[] names;
+    private String[] profileURLs;
+    private String[] keys;
+
+    /*
+       Constructs a RankingsIndex with the top players, up to the given depth,
+       from the given players of the men's tennis rankings and women's tennis
+       rankings, which are in the order of the rankings
+     */
+    public RankingsIndex(List<RankedPlayer> mRankings,
+                         List<RankedPlayer> wRankings, int depth) {
+        int mNumOfPlayers = Math.min(mRankings.size(), depth);
+        int wNumOfPlayers = Math.min(wRankings.size(), depth);
+        int size = mNumOfPlayers + wNumOfPlayers;
+        rankings = new int[size];
+        names = new String[size];
+        profileURLs = new String[size];
+        keys = new String[size];
+        int index = 0;
+        for (int i = 0; i < Math.max(mNumOfPlayers, wNumOfPlayers); i++) {
+            if (i < mNumOfPlayers) {
+                add(index++, mRankings.get(i), i + 1);
+            }
+            if (i < wNumOfPlayers) {
+                add(index++, wRankings.get(i), i + 1);
+            }
+        }
+    }
+
+    /*
+       Returns the number of players in the index
+       Returns 0 if the rankings are not available, which happens when a new
+       year starts and there have not been any tennis tournaments in the new
+       year
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /*
+       Returns the ranking of the player at the given index
+     */
+    public int getRanking(int index) {
+        return rankings[index];
+    }
+
+    /*
+       Returns the name of the player at the given index
+     */
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /*
+       Returns the URL of the page of the player at the given index
+     */
+    public String getProfileURL(int index) {
+        return profileURLs[index];
+    }
+
+    /*
+       Returns the string that represents the player at the given index in the
+       app, which is the name followed by the ranking in parenthesis
+     */
+    public String getKey(int index) {
+        return keys[index];
+    }
+
+    /*
+       Returns a read-only list of the strings that represent the players, in
+       the order of the index
+     */
+    public List<String> getKeys() {
+        return Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    /*
+       Puts the given player into the arrays at the given index
+       If the ranking of the player is not a number, the given position of the
+       player in the rankings is used instead
+     */
+    private void add(int index, RankedPlayer player, int position) {
+        int ranking;
+        try {
+            ranking = Integer.parseInt(player.getRanking().trim());
+        } catch (NumberFormatException e) {
+            ranking = position;
+        }
+        rankings[index] = ranking;
+        names[index] = player.getName();
+        profileURLs[index] = player.getProfileURL();
+        keys[index] = player.getName() + " (" + ranking + ")";
+    }
+
+}
@@ -14,10 +14,14 @@ import android.net.ConnectivityManager;
 import android.net.NetworkCapabilities;
 
 import com.adizangi.tennisplayerstracker.R;
-import com.adizangi.tennisplayerstracker.workers.FetchDataWorker;
+import com.adizangi.tennisplayerstracker.workers.MergeDataWorker;
 import com.adizangi.tennisplayerstracker.workers.NotificationWorker;
+import com.adizangi.tennisplayerstracker.workers.PlayerShardWorker;
+import com.adizangi.tennisplayerstracker.workers.RankingsWorker;
 
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -27,6 +31,7 @@ import androidx.work.BackoffPolicy;
 import androidx.work.Constraints;
 import androidx.work.Data;
 import androidx.work.ExistingWorkPolicy;
+import androidx.work.ListenableWorker;
 import androidx.work.NetworkType;
 import androidx.work.OneTimeWorkRequest;
 import androidx.work.WorkManager;
@@ -35,6 +40,7 @@ public class BackgroundManager extends ContextWrapper {
 
     public static final String DOWNLOAD_CONTENT_WORK_NAME = "downloadContent";
     public static final String RESCHEDULE_KEY = "reschedule";
+    public static final String FETCH_DATA_TAG = "fetchData";
 
     /*
        Constructs a BackgroundManager with the given application context
@@ -80,71 +86,33 @@ public class BackgroundManager extends ContextWrapper {
 
     /*
        Starts a chain of background work that downloads content
-       The chain consists of a worker that fetches tennis data from the ESPN
-       website, followed by a worker that sends a notification with the
+       The chain consists of a worker that fetches the rankings and schedules
+       from the ESPN website, followed by workers that fetch the stats of the
+       players in parallel shards, a worker that merges their results into
+       the app's files, and a worker that sends a notification with the
        newest events
        It will begin right away as long as there is network connection
        If the network disconnects, the work will be retried as soon as possible
+       Only the worker that failed is retried
        Returns an array of the UUIDs of the work requests in the chain's order
      */
     public UUID[] downloadContent() {
-        OneTimeWorkRequest fetchDataReq = new OneTimeWorkRequest.Builder
-                (FetchDataWorker.class)
-                .setConstraints(new Constraints.Builder()
-                        .setRequiredNetworkType(getPermittedNetwork())
-                        .build())
-                .setBackoffCriteria(
-                        BackoffPolicy.LINEAR,
-                        OneTimeWorkRequest.MIN_BACKOFF_MILLIS,
-                        TimeUnit.MILLISECONDS)
-                .build();
-        OneTimeWorkRequest notificationReq = new OneTimeWorkRequest.Builder
-                (NotificationWorker.class)
-                .setInputData(new Data.Builder()
-                        .putBoolean(RESCHEDULE_KEY, false)
-                        .build())
-                .build();
-        WorkManager.getInstance(this)
-                .beginUniqueWork(DOWNLOAD_CONTENT_WORK_NAME,
-                        ExistingWorkPolicy.REPLACE,
-                        fetchDataReq)
-                .then(notificationReq)
-                .enqueue();
-        return new UUID[]{fetchDataReq.getId(), notificationReq.getId()};
+        return enqueueDownloadChain(0, true, false);
     }
 
     /*
        Schedules a repeating chain of work that makes a daily update
-       The chain consists of a worker that fetches updated tennis data from the
-       ESPN website, followed by a worker that sends a notification with the
-       newest events
+       The chain is the same as the chain in downloadContent()
        It is scheduled for midnight each day, but if the device is on doze mode
        at midnight, it will be delayed until the device exits doze mode
        It also requires network connection to start
        The repeating chain is created by adding RESCHEDULE_KEY with the value
        true, so that NotificationWorker will reschedule the next chain
+       If one of the workers that fetch data fails, NotificationWorker doesn't
+       run, so that worker reschedules the next chain instead
      */
     public void scheduleDailyUpdates() {
-        Constraints constraints = new Constraints.Builder()
-                .setRequiredNetworkType(getPermittedNetwork())
-                .build();
-        OneTimeWorkRequest fetchDataReq = new OneTimeWorkRequest.Builder
-                (FetchDataWorker.class)
-                .setConstraints(constraints)
-                .setInitialDelay(getTimeUntilMidnight(), TimeUnit.MILLISECONDS)
-                .build();
-        OneTimeWorkRequest notificationReq = new OneTimeWorkRequest.Builder
-                (NotificationWorker.class)
-                .setInputData(new Data.Builder()
-                        .putBoolean(RESCHEDULE_KEY, true)
-                        .build())
-                .build();
-        WorkManager.getInstance(this)
-                .beginUniqueWork(DOWNLOAD_CONTENT_WORK_NAME,
-                        ExistingWorkPolicy.REPLACE,
-                        fetchDataReq)
-                .then(notificationReq)
-                .enqueue();
+        enqueueDownloadChain(getTimeUntilMidnight(), false, true);
     }
 
     /*
@@ -189,6 +157,88 @@ public class BackgroundManager extends ContextWrapper {
         }
     }
 
+    /*
+       Enqueues the chain of work that downloads content as unique work, so
+       that it replaces a chain that was enqueued earlier
+       The chain begins after the given delay in milliseconds
+       If useBackoff is true, workers that fail due to the network are retried
+       with a linear backoff
+       The given reschedule value is passed to NotificationWorker and to the
+       workers that fetch data with RESCHEDULE_KEY
+       Returns an array of the UUIDs of the work requests in the chain's order
+     */
+    private UUID[] enqueueDownloadChain(long delay, boolean useBackoff,
+                                        boolean reschedule) {
+        Data rescheduleData = new Data.Builder()
+                .putBoolean(RESCHEDULE_KEY, reschedule)
+                .build();
+        OneTimeWorkRequest rankingsReq = newFetchRequest
+                (RankingsWorker.class, true, useBackoff)
+                .setInputData(rescheduleData)
+                .setInitialDelay(delay, TimeUnit.MILLISECONDS)
+                .build();
+        List<OneTimeWorkRequest> shardReqs = new ArrayList<>();
+        for (int shard = 0; shard < PlayerShardWorker.NUM_OF_SHARDS; shard++) {
+            shardReqs.add(newFetchRequest
+                    (PlayerShardWorker.class, true, useBackoff)
+                    .setInputData(new Data.Builder()
+                            .putAll(rescheduleData)
+                            .putInt(PlayerShardWorker.SHARD_KEY, shard)
+                            .build())
+                    .build());
+        }
+        OneTimeWorkRequest mergeReq = newFetchRequest
+                (MergeDataWorker.class, false, useBackoff)
+                .setInputData(rescheduleData)
+                .build();
+        OneTimeWorkRequest notificationReq = new OneTimeWorkRequest.Builder
+                (NotificationWorker.class)
+                .setInputData(rescheduleData)
+                .build();
+        WorkManager.getInstance(this)
+                .beginUniqueWork(DOWNLOAD_CONTENT_WORK_NAME,
+                        ExistingWorkPolicy.REPLACE,
+                        rankingsReq)
+                .then(shardReqs)
+                .then(mergeReq)
+                .then(notificationReq)
+                .enqueue();
+        UUID[] uuids = new UUID[shardReqs.size() + 3];
+        uuids[0] = rankingsReq.getId();
+        for (int i = 0; i < shardReqs.size(); i++) {
+            uuids[i + 1] = shardReqs.get(i).getId();
+        }
+        uuids[uuids.length - 2] = mergeReq.getId();
+        uuids[uuids.length - 1] = notificationReq.getId();
+        return uuids;
+    }
+
+    /*
+       Returns a builder of a work request for the given fetch worker, which
+       is tagged with FETCH_DATA_TAG so its progress can be observed
+       If needsNetwork is true, the work requires the permitted network
+       If useBackoff is true, the work is retried with a linear backoff
+     */
+    private OneTimeWorkRequest.Builder newFetchRequest(
+            Class<? extends ListenableWorker> workerClass,
+            boolean needsNetwork, boolean useBackoff) {
+        OneTimeWorkRequest.Builder builder =
+                new OneTimeWorkRequest.Builder(workerClass)
+                        .addTag(FETCH_DATA_TAG);
+        if (needsNetwork) {
+            builder.setConstraints(new Constraints.Builder()
+                    .setRequiredNetworkType(getPermittedNetwork())
+                    .build());
+        }
+        if (useBackoff) {
+            builder.setBackoffCriteria(
+                    BackoffPolicy.LINEAR,
+                    OneTimeWorkRequest.MIN_BACKOFF_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        }
+        return builder;
+    }
+
     /*
        Returns the number of milliseconds between the current time and 12:00am
      */
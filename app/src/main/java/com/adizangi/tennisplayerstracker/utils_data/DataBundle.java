@@ -0,0 +1,218 @@
+/*
+   An immutable bundle of the data that a data refresh stores, which is the
+   total players list, the player stats and the notification text
+   The bundle is stored in one file, so the data of the app is always from
+   the same refresh and a cold start reads one file
+   The file starts with a header of 4 magic bytes, the format version, the
+   version of the data, and the offset and length of each section
+   The total players section is a list in DataCodec's format, the notification
+   section is the text in UTF-8, and the stats section is a StatsSnapshot
+   The file is memory-mapped, and the total players list is decoded the first
+   time it is used
+ */
+
+package com.adizangi.tennisplayerstracker.utils_data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class DataBundle {
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final byte[] MAGIC = {'T', 'P', 'T', 'B'};
+    private static final int NUM_OF_SECTIONS = 3;
+    private static final int HEADER_SIZE = MAGIC.length + 12 + NUM_OF_SECTIONS * 8;
+    private static final int TOTAL_PLAYERS_SECTION = 0;
+    private static final int NOTIFICATION_SECTION = 1;
+    private static final int STATS_SECTION = 2;
+
+    private final File file;
+    private final long version;
+    private final ByteBuffer buffer;
+    private final String notificationText;
+    private final StatsSnapshot stats;
+    private volatile List<String> totalPlayers;
+
+    /*
+       Constructs a DataBundle of the given file, with the given version of
+       the data and the given buffer of the file's contents
+       May throw IOException if one of the sections is not valid
+     */
+    private DataBundle(File file, long version, ByteBuffer buffer)
+            throws IOException {
+        this.file = file;
+        this.version = version;
+        this.buffer = buffer;
+        notificationText = new String(readSection(NOTIFICATION_SECTION),
+                StandardCharsets.UTF_8);
+        stats = StatsSnapshot.wrap(getSection(STATS_SECTION));
+    }
+
+    /*
+       Memory-maps the bundle file at the given path and returns a DataBundle
+       to read it
+       The stats are not read until players are looked up
+       May throw IOException if the file doesn't exist, is not a bundle file,
+       or was written with a newer version
+     */
+    public static DataBundle open(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        MappedByteBuffer buffer;
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            /* The mapping stays valid after the file is closed */
+            randomAccessFile.close();
+        }
+        if (buffer.capacity() < HEADER_SIZE) {
+            throw new IOException("Not a data bundle");
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(i) != MAGIC[i]) {
+                throw new IOException("Not a data bundle");
+            }
+        }
+        int formatVersion = buffer.getInt(MAGIC.length);
+        if (formatVersion > FORMAT_VERSION) {
+            throw new IOException("Unsupported bundle version " + formatVersion);
+        }
+        for (int section = 0; section < NUM_OF_SECTIONS; section++) {
+            int position = MAGIC.length + 12 + section * 8;
+            int offset = buffer.getInt(position);
+            int length = buffer.getInt(position + 4);
+            if (offset < HEADER_SIZE || length < 0 ||
+                    length > buffer.capacity() - offset) {
+                throw new IOException("Invalid bundle section " + section);
+            }
+        }
+        return new DataBundle(file, buffer.getLong(MAGIC.length + 4), buffer);
+    }
+
+    /*
+       Writes a bundle with the given version and data to the file at the
+       given path
+       The bundle is written to a temporary file first, which then replaces
+       the file with a rename, so a reader sees either the old bundle or the
+       new one, and a bundle that is open while the new one is written can
+       still be read
+       May throw IOException
+     */
+    public static void write(File file, long version, List<String> totalPlayers,
+                             Map<String, PlayerStats> stats,
+                             String notificationText) throws IOException {
+        ByteArrayOutputStream totalPlayersSection = new ByteArrayOutputStream();
+        DataCodec.writeStringList(totalPlayersSection, totalPlayers, false);
+        byte[][] sections = new byte[NUM_OF_SECTIONS][];
+        sections[TOTAL_PLAYERS_SECTION] = totalPlayersSection.toByteArray();
+        sections[NOTIFICATION_SECTION] =
+                notificationText.getBytes(StandardCharsets.UTF_8);
+        sections[STATS_SECTION] = StatsSnapshot.encode(stats);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(MAGIC);
+        header.putInt(FORMAT_VERSION);
+        header.putLong(version);
+        int offset = HEADER_SIZE;
+        for (byte[] section : sections) {
+            header.putInt(offset);
+            header.putInt(section.length);
+            offset += section.length;
+        }
+        File tempFile = new File(file.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(tempFile);
+        try {
+            out.write(header.array());
+            for (byte[] section : sections) {
+                out.write(section);
+            }
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Could not replace " + file.getName());
+        }
+    }
+
+    /*
+       Returns the file that this bundle was read from
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /*
+       Returns the version of the data, which is higher for newer bundles
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /*
+       Returns the list of all the players the user can add
+       The list can't be modified
+       May throw IllegalStateException if the list can't be read
+     */
+    public List<String> getTotalPlayers() {
+        List<String> players = totalPlayers;
+        if (players == null) {
+            try {
+                players = Collections.unmodifiableList(DataCodec.readStringList(
+                        readSection(TOTAL_PLAYERS_SECTION)));
+            } catch (IOException e) {
+                throw new IllegalStateException("Invalid total players section", e);
+            }
+            totalPlayers = players;
+        }
+        return players;
+    }
+
+    /*
+       Returns the stats of the players
+     */
+    public StatsSnapshot getStats() {
+        return stats;
+    }
+
+    /*
+       Returns the text for today's notification
+     */
+    public String getNotificationText() {
+        return notificationText;
+    }
+
+    /*
+       Returns a buffer of the section with the given number, which starts at
+       the buffer's position
+     */
+    private ByteBuffer getSection(int section) {
+        int position = MAGIC.length + 12 + section * 8;
+        ByteBuffer view = buffer.duplicate();
+        view.position(buffer.getInt(position));
+        view.limit(buffer.getInt(position) + buffer.getInt(position + 4));
+        return view;
+    }
+
+    /*
+       Returns a copy of the bytes of the section with the given number
+     */
+    private byte[] readSection(int section) {
+        ByteBuffer view = getSection(section);
+        byte[] bytes = new byte[view.remaining()];
+        view.get(bytes);
+        return bytes;
+    }
+
+}
@@ -0,0 +1,473 @@
+/*
+   Encodes and decodes the player data that the app stores in files, in a
+   compact binary format
+   A file starts with a header of 4 magic bytes, the schema version, a
+   flags byte and the type of the content, and the rest of the file is
+   compressed with deflate if the flags say so
+   Strings are written as UTF-8 bytes after their length, and numbers are
+   written as variable length integers, so small numbers take one byte
+   Each PlayerStats object is written as a list of tagged fields, where each
+   field has its tag and length before it, so a reader can skip fields that
+   it doesn't know, and fields can be added without changing the version
+   The ranking, titles and standing are written as numbers, and the text
+   fields that earlier versions wrote for them are still read
+ */
+
+package com.adizangi.tennisplayerstracker.utils_data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+public class DataCodec {
+
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'T', 'P', 'T', 'D'};
+    private static final int HEADER_SIZE = MAGIC.length + 3;
+    private static final int FLAG_DEFLATED = 1;
+    private static final int TYPE_STRING_LIST = 1;
+    private static final int TYPE_PLAYER_STATS = 2;
+
+    /* Tags of the fields of a PlayerStats object, 0 ends the fields */
+    private static final int TAG_END = 0;
+    private static final int TAG_NAME = 1;
+    private static final int TAG_TOURNAMENT = 5;
+    private static final int TAG_LATEST_RESULT = 6;
+    private static final int TAG_UPCOMING_MATCH = 7;
+    private static final int TAG_RANKING_NUMBER = 8;
+    private static final int TAG_TITLES_YEAR = 9;
+    private static final int TAG_TITLES_NUMBER = 10;
+    private static final int TAG_STANDING_NUMBER = 11;
+    private static final int TAG_ROUND = 12;
+    private static final int TAG_ROUND_NUMBER = 13;
+
+    /* Tags of the text fields that earlier versions wrote instead */
+    private static final int TAG_RANKING_TEXT = 2;
+    private static final int TAG_TITLES_TEXT = 3;
+    private static final int TAG_STANDING_TEXT = 4;
+
+    private DataCodec() {
+    }
+
+    /*
+       Returns true if the given bytes start with the header of this format
+     */
+    public static boolean isEncoded(byte[] data) {
+        return data.length >= HEADER_SIZE &&
+                Arrays.equals(Arrays.copyOf(data, MAGIC.length), MAGIC);
+    }
+
+    /*
+       Writes the given list of strings to the given stream
+       If deflate is true, the content is compressed
+       The stream is not closed
+       May throw IOException
+     */
+    public static void writeStringList(OutputStream out, List<String> list,
+                                       boolean deflate) throws IOException {
+        Buffer buffer = new Buffer();
+        buffer.writeVarint(list.size());
+        for (String string : list) {
+            buffer.writeString(string);
+        }
+        writeFile(out, TYPE_STRING_LIST, buffer, deflate);
+    }
+
+    /*
+       Reads a list of strings that was written by writeStringList() from the
+       given bytes and returns it
+       May throw IOException if the bytes are not a list of strings in this
+       format, or were written with a newer version
+     */
+    public static List<String> readStringList(byte[] data) throws IOException {
+        Reader reader = openFile(data, TYPE_STRING_LIST);
+        int size = reader.readVarint();
+        List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(reader.readString());
+        }
+        return list;
+    }
+
+    /*
+       Writes the given map from each player to a PlayerStats object to the
+       given stream
+       If deflate is true, the content is compressed
+       The stream is not closed
+       May throw IOException
+     */
+    public static void writePlayerStats(OutputStream out,
+                                        Map<String, PlayerStats> stats,
+                                        boolean deflate) throws IOException {
+        Buffer buffer = new Buffer();
+        Buffer field = new Buffer();
+        buffer.writeVarint(stats.size());
+        for (Map.Entry<String, PlayerStats> entry : stats.entrySet()) {
+            buffer.writeString(entry.getKey());
+            writeRecord(buffer, field, entry.getValue());
+        }
+        writeFile(out, TYPE_PLAYER_STATS, buffer, deflate);
+    }
+
+    /*
+       Reads a map from each player to a PlayerStats object that was written
+       by writePlayerStats() from the given bytes and returns it
+       Fields with unknown tags are skipped, and missing fields are empty
+       May throw IOException if the bytes are not a stats map in this format,
+       or were written with a newer version
+     */
+    public static Map<String, PlayerStats> readPlayerStats(byte[] data)
+            throws IOException {
+        Reader reader = openFile(data, TYPE_PLAYER_STATS);
+        int size = reader.readVarint();
+        Map<String, PlayerStats> stats = new HashMap<>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            String player = reader.readString();
+            stats.put(player, readRecord(reader));
+        }
+        return stats;
+    }
+
+    /*
+       Returns the fields of the given PlayerStats object in the same format as
+       they are written by writePlayerStats(), without a header
+       Used for files that store each record on its own, such as StatsSnapshot
+     */
+    static byte[] encodeRecord(PlayerStats playerStats) {
+        Buffer buffer = new Buffer();
+        writeRecord(buffer, new Buffer(), playerStats);
+        return Arrays.copyOf(buffer.getData(), buffer.size());
+    }
+
+    /*
+       Returns the PlayerStats object in the given bytes that were returned by
+       encodeRecord()
+       May throw IOException if the bytes are not a valid record
+     */
+    static PlayerStats decodeRecord(byte[] data) throws IOException {
+        return readRecord(new Reader(data, 0));
+    }
+
+    /*
+       Reads the given stream to the end and returns its bytes
+       The stream is not closed
+       May throw IOException
+     */
+    public static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, length);
+        }
+        return bytes.toByteArray();
+    }
+
+    /*
+       Writes the tagged fields of the given PlayerStats object and the end
+       tag to the given buffer, using the given field buffer for the values
+     */
+    private static void writeRecord(Buffer buffer, Buffer field,
+                                    PlayerStats playerStats) {
+        writeField(buffer, field, TAG_NAME, playerStats.getName());
+        writeNumberField(buffer, field, TAG_RANKING_NUMBER,
+                playerStats.getRanking());
+        writeNumberField(buffer, field, TAG_TITLES_YEAR,
+                playerStats.getTitlesYear());
+        /* Unknown titles are -1, so the number is written plus 1 */
+        writeNumberField(buffer, field, TAG_TITLES_NUMBER,
+                playerStats.getTitles() + 1);
+        writeNumberField(buffer, field, TAG_STANDING_NUMBER,
+                playerStats.getStanding().ordinal());
+        writeField(buffer, field, TAG_ROUND, playerStats.getRound());
+        writeNumberField(buffer, field, TAG_ROUND_NUMBER,
+                playerStats.getRoundNumber());
+        writeField(buffer, field, TAG_TOURNAMENT,
+                playerStats.getCurrentTournament());
+        writeField(buffer, field, TAG_LATEST_RESULT,
+                playerStats.getLatestMatchResult());
+        writeField(buffer, field, TAG_UPCOMING_MATCH,
+                playerStats.getUpcomingMatch());
+        buffer.writeVarint(TAG_END);
+    }
+
+    /*
+       Reads the tagged fields of a PlayerStats object up to the end tag from
+       the given reader and returns the object
+       Fields with unknown tags are skipped, and missing fields are empty
+       If the record has the text fields of an earlier version instead of the
+       number fields, the numbers are read from the text
+     */
+    private static PlayerStats readRecord(Reader reader) throws IOException {
+        String name = "";
+        String round = "";
+        String tournament = "";
+        String latestResult = "";
+        String upcomingMatch = "";
+        String rankingText = "";
+        String titlesText = "";
+        String standingText = "";
+        int ranking = 0;
+        int titlesYear = 0;
+        int titles = PlayerStats.UNKNOWN_TITLES;
+        int standing = 0;
+        int roundNumber = 0;
+        boolean hasTextFields = false;
+        int tag;
+        while ((tag = reader.readVarint()) != TAG_END) {
+            int length = reader.readVarint();
+            switch (tag) {
+                case TAG_NAME:
+                    name = reader.readString(length);
+                    break;
+                case TAG_RANKING_NUMBER:
+                    ranking = reader.readVarint(length);
+                    break;
+                case TAG_TITLES_YEAR:
+                    titlesYear = reader.readVarint(length);
+                    break;
+                case TAG_TITLES_NUMBER:
+                    titles = reader.readVarint(length) - 1;
+                    break;
+                case TAG_STANDING_NUMBER:
+                    standing = reader.readVarint(length);
+                    break;
+                case TAG_ROUND:
+                    round = reader.readString(length);
+                    break;
+                case TAG_ROUND_NUMBER:
+                    roundNumber = reader.readVarint(length);
+                    break;
+                case TAG_TOURNAMENT:
+                    tournament = reader.readString(length);
+                    break;
+                case TAG_LATEST_RESULT:
+                    latestResult = reader.readString(length);
+                    break;
+                case TAG_UPCOMING_MATCH:
+                    upcomingMatch = reader.readString(length);
+                    break;
+                case TAG_RANKING_TEXT:
+                    rankingText = reader.readString(length);
+                    hasTextFields = true;
+                    break;
+                case TAG_TITLES_TEXT:
+                    titlesText = reader.readString(length);
+                    hasTextFields = true;
+                    break;
+                case TAG_STANDING_TEXT:
+                    standingText = reader.readString(length);
+                    hasTextFields = true;
+                    break;
+                default:
+                    reader.skip(length);
+            }
+        }
+        if (hasTextFields) {
+            return PlayerStats.fromText(name, rankingText, titlesText,
+                    standingText, tournament, latestResult, upcomingMatch,
+                    roundNumber);
+        }
+        PlayerStats.Standing[] standings = PlayerStats.Standing.values();
+        return new PlayerStats(
+                name,
+                ranking,
+                titlesYear,
+                titles,
+                /* A standing from a newer version is shown as not playing */
+                standing < standings.length ? standings[standing] :
+                        PlayerStats.Standing.NOT_PLAYING,
+                round,
+                roundNumber,
+                tournament,
+                latestResult,
+                upcomingMatch);
+    }
+
+    /*
+       Writes a field with the given tag and string value to the given buffer,
+       using the given field buffer for the UTF-8 bytes of the value
+     */
+    private static void writeField(Buffer buffer, Buffer field, int tag,
+                                   String value) {
+        field.reset();
+        field.writeUTF8(value);
+        buffer.writeVarint(tag);
+        buffer.writeVarint(field.size());
+        buffer.write(field.getData(), 0, field.size());
+    }
+
+    /*
+       Writes a field with the given tag and number value to the given buffer,
+       using the given field buffer for the bytes of the value
+     */
+    private static void writeNumberField(Buffer buffer, Buffer field, int tag,
+                                         int value) {
+        field.reset();
+        field.writeVarint(value);
+        buffer.writeVarint(tag);
+        buffer.writeVarint(field.size());
+        buffer.write(field.getData(), 0, field.size());
+    }
+
+    /*
+       Writes the header with the given type and the content in the given
+       buffer to the given stream, and compresses the content if deflate is
+       true
+     */
+    private static void writeFile(OutputStream out, int type, Buffer content,
+                                  boolean deflate) throws IOException {
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.write(deflate ? FLAG_DEFLATED : 0);
+        out.write(type);
+        if (deflate) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            DeflaterOutputStream dout = new DeflaterOutputStream(out, deflater);
+            dout.write(content.getData(), 0, content.size());
+            dout.finish();
+            deflater.end();
+        } else {
+            out.write(content.getData(), 0, content.size());
+        }
+        out.flush();
+    }
+
+    /*
+       Checks the header of the given bytes and returns a Reader of the
+       content, which is decompressed if needed
+       May throw IOException if the header is not valid or doesn't have the
+       given type
+     */
+    private static Reader openFile(byte[] data, int type) throws IOException {
+        if (!isEncoded(data)) {
+            throw new IOException("Not a data file");
+        }
+        int version = data[MAGIC.length] & 0xFF;
+        int flags = data[MAGIC.length + 1] & 0xFF;
+        int fileType = data[MAGIC.length + 2] & 0xFF;
+        if (version > VERSION) {
+            throw new IOException("Unsupported data version " + version);
+        }
+        if (fileType != type) {
+            throw new IOException("Unexpected data type " + fileType);
+        }
+        if ((flags & FLAG_DEFLATED) == 0) {
+            return new Reader(data, HEADER_SIZE);
+        }
+        InflaterInputStream in = new InflaterInputStream(
+                new ByteArrayInputStream(data, HEADER_SIZE,
+                        data.length - HEADER_SIZE));
+        byte[] content = readAll(in);
+        in.close();
+        return new Reader(content, 0);
+    }
+
+    /*
+       A growable byte array that numbers and strings are written to
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+
+        Buffer() {
+            super(4096);
+        }
+
+        byte[] getData() {
+            return buf;
+        }
+
+        void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeUTF8(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+    /*
+       Reads numbers and strings from a byte array
+     */
+    private static class Reader {
+
+        private byte[] data;
+        private int position;
+
+        Reader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (position >= data.length) {
+                    throw new IOException("Unexpected end of data");
+                }
+                int b = data[position++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed number");
+        }
+
+        String readString() throws IOException {
+            return readString(readVarint());
+        }
+
+        String readString(int length) throws IOException {
+            checkLength(length);
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        int readVarint(int length) throws IOException {
+            checkLength(length);
+            int end = position + length;
+            int value = readVarint();
+            if (position > end) {
+                throw new IOException("Malformed number");
+            }
+            position = end;
+            return value;
+        }
+
+        void skip(int length) throws IOException {
+            checkLength(length);
+            position += length;
+        }
+
+        private void checkLength(int length) throws IOException {
+            if (length < 0 || length > data.length - position) {
+                throw new IOException("Unexpected end of data");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,248 @@
+/*
+   Manages the checkpoint of a data refresh, so that a refresh that stopped
+   partway through can continue from where it stopped instead of starting
+   over
+   The checkpoint is kept in files, and holds the results of each stage of
+   the refresh that was finished, and the stats of each player that was
+   fetched
+   The players are fetched in shards, and each shard has its own files, so
+   shards can be fetched at the same time and their results are passed on
+   to the stage that merges them
+   A checkpoint is only used on the day it was created
+ */
+
+package com.adizangi.tennisplayerstracker.utils_data;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import com.adizangi.tennisplayerstracker.network_calls.RankingsIndex;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+public class FetchCheckpoint extends ContextWrapper {
+
+    private static final String FILENAME_PREFIX = "checkpoint_";
+    private static final String DATE_FILENAME = "checkpoint_date";
+    private static final String RANKINGS_FILENAME = "checkpoint_rankings";
+    private static final String SCHEDULES_FILENAME = "checkpoint_schedules";
+    private static final String STATS_FILENAME = "checkpoint_player_stats_";
+    private static final String SHARD_FILENAME = "checkpoint_shard_stats_";
+    private static final String NOTIFICATION_FILENAME = "checkpoint_notification_text";
+
+    /*
+       Constructs a FetchCheckpoint with the given application context
+     */
+    public FetchCheckpoint(Context base) {
+        super(base);
+    }
+
+    /*
+       If the saved checkpoint was created on a different day, deletes it and
+       starts a new checkpoint for today
+       Should be called by the first stage of the refresh, so that later
+       stages that run after midnight still find the checkpoint
+     */
+    public void discardIfStale() {
+        String today = new SimpleDateFormat("yyyyMMdd", Locale.US).format(new Date());
+        if (!today.equals(readObject(DATE_FILENAME))) {
+            clear();
+            storeObject(DATE_FILENAME, today);
+        }
+    }
+
+    /*
+       Reads the rankings index of this checkpoint and returns it
+       Returns null if the rankings stage wasn't finished or there is an error
+     */
+    public RankingsIndex readRankingsIndex() {
+        return (RankingsIndex) readObject(RANKINGS_FILENAME);
+    }
+
+    /*
+       Reads the schedule documents of this checkpoint and returns them in an
+       array, where today's schedule is first and yesterday's schedule is
+       second
+       Returns null if the schedules weren't fetched or there is an error
+     */
+    public Document[] readSchedules() {
+        String[] schedules = (String[]) readObject(SCHEDULES_FILENAME);
+        if (schedules == null) {
+            return null;
+        }
+        return new Document[]{
+                Jsoup.parse(schedules[1], schedules[0]),
+                Jsoup.parse(schedules[3], schedules[2])};
+    }
+
+    /*
+       Reads the stats of the players in the given shard that were fetched in
+       this checkpoint and returns a map from each player to a PlayerStats
+       object
+       Returns an empty map if no players were fetched
+       If the last player was not written completely, it is left out
+     */
+    public Map<String, PlayerStats> readPlayerStats(int shard) {
+        Map<String, PlayerStats> stats = new HashMap<>();
+        try {
+            FileInputStream in = openFileInput(STATS_FILENAME + shard);
+            DataInputStream din = new DataInputStream(in);
+            try {
+                while (true) {
+                    byte[] record = new byte[din.readInt()];
+                    din.readFully(record);
+                    ObjectInputStream oin = new ObjectInputStream
+                            (new ByteArrayInputStream(record));
+                    String player = (String) oin.readObject();
+                    PlayerStats playerStats = (PlayerStats) oin.readObject();
+                    stats.put(player, playerStats);
+                }
+            } catch (EOFException e) {
+                /* Reached the end of the file */
+            }
+            din.close();
+            in.close();
+        } catch (Exception e) {
+            /* There are no saved players or the file is damaged, so the
+               players that were read so far are used */
+        }
+        return stats;
+    }
+
+    /*
+       Reads the result of the given shard, which is a map from each player in
+       the shard to a PlayerStats object
+       Returns null if the shard wasn't finished or there is an error
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, PlayerStats> readShardStats(int shard) {
+        return (Map<String, PlayerStats>) readObject(SHARD_FILENAME + shard);
+    }
+
+    /*
+       Reads the notification text of this checkpoint and returns it
+       Returns null if the notification stage wasn't finished or there is an
+       error
+     */
+    public String readNotificationText() {
+        return (String) readObject(NOTIFICATION_FILENAME);
+    }
+
+    /*
+       Stores the given rankings index in this checkpoint
+     */
+    public void storeRankingsIndex(RankingsIndex rankingsIndex) {
+        storeObject(RANKINGS_FILENAME, rankingsIndex);
+    }
+
+    /*
+       Stores the given documents of today's schedule and yesterday's schedule
+       in this checkpoint
+     */
+    public void storeSchedules(Document tSchedule, Document ySchedule) {
+        storeObject(SCHEDULES_FILENAME, new String[]{
+                tSchedule.location(), tSchedule.outerHtml(),
+                ySchedule.location(), ySchedule.outerHtml()});
+    }
+
+    /*
+       Adds the given player and PlayerStats object to the players of the
+       given shard that were fetched in this checkpoint
+       Only the new player is written, so the cost doesn't grow with the
+       number of players that were already fetched
+     */
+    public synchronized void appendPlayerStats(int shard, String player,
+                                               PlayerStats playerStats) {
+        try {
+            ByteArrayOutputStream record = new ByteArrayOutputStream();
+            ObjectOutputStream oout = new ObjectOutputStream(record);
+            oout.writeObject(player);
+            oout.writeObject(playerStats);
+            oout.close();
+            FileOutputStream out = openFileOutput(STATS_FILENAME + shard,
+                    Context.MODE_PRIVATE | Context.MODE_APPEND);
+            DataOutputStream dout = new DataOutputStream(out);
+            dout.writeInt(record.size());
+            record.writeTo(dout);
+            dout.close();
+            out.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /*
+       Stores the given map as the result of the given shard
+     */
+    public void storeShardStats(int shard, Map<String, PlayerStats> stats) {
+        storeObject(SHARD_FILENAME + shard, new HashMap<>(stats));
+    }
+
+    /*
+       Stores the given notification text in this checkpoint
+     */
+    public void storeNotificationText(String notifText) {
+        storeObject(NOTIFICATION_FILENAME, notifText);
+    }
+
+    /*
+       Deletes this checkpoint
+       Should be called after the refresh finished and its data was stored
+     */
+    public void clear() {
+        for (String filename : fileList()) {
+            if (filename.startsWith(FILENAME_PREFIX)) {
+                deleteFile(filename);
+            }
+        }
+    }
+
+    /*
+       Reads the object in the file with the given name and returns it
+       Returns null if there is no such file or there is an error
+     */
+    private Object readObject(String filename) {
+        try {
+            FileInputStream in = openFileInput(filename);
+            ObjectInputStream oin = new ObjectInputStream(in);
+            Object object = oin.readObject();
+            oin.close();
+            in.close();
+            return object;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /*
+       Stores the given object in a file with the given name
+     */
+    private void storeObject(String filename, Object object) {
+        try {
+            FileOutputStream out = openFileOutput(filename, Context.MODE_PRIVATE);
+            ObjectOutputStream oout = new ObjectOutputStream(out);
+            oout.writeObject(object);
+            oout.close();
+            out.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+}
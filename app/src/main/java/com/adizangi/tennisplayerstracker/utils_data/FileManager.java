@@ -6,23 +6,33 @@ package com.adizangi.tennisplayerstracker.utils_data;
 
 import android.content.Context;
 import android.content.ContextWrapper;
-import android.widget.Toast;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class FileManager extends ContextWrapper {
 
     private static final String SELECTED_PLAYERS_FILENAME = "selected_players";
+    private static final String DATA_BUNDLE_FILENAME = "data_bundle";
+
+    /* Files that earlier versions of the app stored the data in */
     private static final String TOTAL_PLAYERS_FILENAME = "total_players";
     private static final String STATS_FILENAME = "player_stats";
+    private static final String STATS_SNAPSHOT_FILENAME = "player_stats_snapshot";
     private static final String NOTIFICATION_FILENAME = "notification_text";
 
+    /* Data files are written by several workers at the same time */
+    private static final Object WRITE_LOCK = new Object();
+
     /*
        Constructs a FileManager with the given application context
      */
@@ -32,39 +42,63 @@ public class FileManager extends ContextWrapper {
 
     /*
        Reads the list of the user's players from the file and returns it
-       Returns an empty list if there is an error
+       Returns an empty list if no players were stored yet, or null if there
+       is an error
+       Doesn't show a message about the error, since it may be called off the
+       main thread
      */
     @SuppressWarnings("unchecked")
     public List<String> readSelectedPlayers() {
+        if (!new File(getFilesDir(), SELECTED_PLAYERS_FILENAME).exists()) {
+            return new ArrayList<>();
+        }
         try {
-            FileInputStream in = openFileInput(SELECTED_PLAYERS_FILENAME);
-            ObjectInputStream oin = new ObjectInputStream(in);
-            List<String> selectedPlayers = (List<String>) oin.readObject();
-            oin.close();
-            in.close();
-            return selectedPlayers;
+            byte[] data = readFile(SELECTED_PLAYERS_FILENAME);
+            if (!DataCodec.isEncoded(data)) {
+                return (List<String>) readLegacyObject(data);
+            }
+            return DataCodec.readStringList(data);
         } catch (Exception e) {
             e.printStackTrace();
-            Toast.makeText(this,
-                    "There was a problem with getting saved players",
-                    Toast.LENGTH_LONG).show();
-            return new ArrayList<>();
+            return null;
+        }
+    }
+
+    /*
+       Reads the data bundle with the total players list, the player stats and
+       the notification text that were stored last, and returns it
+       The app's data should be read with PlayerRepository, which keeps the
+       bundle in memory
+       If the data was stored by an earlier version of the app, converts it to
+       a bundle first
+       Returns null if there is no data or there is an error
+     */
+    public DataBundle readDataBundle() {
+        File bundleFile = new File(getFilesDir(), DATA_BUNDLE_FILENAME);
+        try {
+            if (!bundleFile.exists()) {
+                synchronized (WRITE_LOCK) {
+                    if (!bundleFile.exists() && !convertOlderData(bundleFile)) {
+                        return null;
+                    }
+                }
+            }
+            return DataBundle.open(bundleFile);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
         }
     }
 
     /*
-       Reads the total players list from the file and returns it
+       Reads the total players list from the data bundle and returns it
+       The list can't be modified
        Returns null if there is an error
      */
-    @SuppressWarnings("unchecked")
     public List<String> readTotalPlayers() {
         try {
-            FileInputStream in = openFileInput(TOTAL_PLAYERS_FILENAME);
-            ObjectInputStream oin = new ObjectInputStream(in);
-            List<String> totalPlayers = (List<String>) oin.readObject();
-            oin.close();
-            in.close();
-            return totalPlayers;
+            DataBundle bundle = readDataBundle();
+            return bundle == null ? null : bundle.getTotalPlayers();
         } catch (Exception e) {
             e.printStackTrace();
             return null;
@@ -72,19 +106,13 @@ public class FileManager extends ContextWrapper {
     }
 
     /*
-       Reads the player stats map from the file and returns it
+       Reads the player stats map from the data bundle and returns it
        Returns null if there is an error
      */
-    @SuppressWarnings("unchecked")
     public Map<String, PlayerStats> readPlayerStats() {
         try {
-            FileInputStream in = openFileInput(STATS_FILENAME);
-            ObjectInputStream oin = new ObjectInputStream(in);
-            Map<String, PlayerStats> stats =
-                    (Map<String, PlayerStats>) oin.readObject();
-            oin.close();
-            in.close();
-            return stats;
+            StatsSnapshot snapshot = openPlayerStats();
+            return snapshot == null ? null : snapshot.readAll();
         } catch (Exception e) {
             e.printStackTrace();
             return null;
@@ -92,88 +120,150 @@ public class FileManager extends ContextWrapper {
     }
 
     /*
-       Reads the notification text from the file and returns it
+       Returns the player stats in the data bundle as a StatsSnapshot, which
+       reads only the stats of the players that are looked up
+       Returns null if there is an error
+     */
+    public StatsSnapshot openPlayerStats() {
+        DataBundle bundle = readDataBundle();
+        return bundle == null ? null : bundle.getStats();
+    }
+
+    /*
+       Reads the notification text from the data bundle and returns it
        Returns an empty string if there is an error
      */
     public String readNotificationText() {
-        try {
-            FileInputStream in = openFileInput(NOTIFICATION_FILENAME);
-            ObjectInputStream oin = new ObjectInputStream(in);
-            String notifText = (String) oin.readObject();
-            oin.close();
-            in.close();
-            return notifText;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "";
-        }
+        DataBundle bundle = readDataBundle();
+        return bundle == null ? "" : bundle.getNotificationText();
     }
 
     /*
        Stores the given list of the user's players in a file
+       Returns false if there is an error
+       Changes from the screen should be stored with PlayerRepository, which
+       stores them in the background
      */
-    public void storeSelectedPlayers(List<String> selectedPlayers) {
+    public boolean storeSelectedPlayers(List<String> selectedPlayers) {
         try {
             FileOutputStream out = openFileOutput(SELECTED_PLAYERS_FILENAME,
                     Context.MODE_PRIVATE);
-            ObjectOutputStream oout = new ObjectOutputStream(out);
-            oout.writeObject(selectedPlayers);
-            oout.close();
+            DataCodec.writeStringList(out, selectedPlayers, false);
             out.close();
+            return true;
         } catch (Exception e) {
             e.printStackTrace();
-            Toast.makeText(this,
-                    "There was a problem with saving the new players",
-                    Toast.LENGTH_LONG).show();
+            return false;
         }
     }
 
     /*
-       Stores the given total players list in a file
+       Stores the given total players list, player stats and notification
+       text together in a new data bundle, which replaces the stored bundle at
+       once, and returns the new bundle
+       The new bundle's version is one more than the version of the stored
+       bundle
+       May throw IOException if the bundle can't be stored, in which case the
+       stored bundle is not replaced
      */
-    public void storeTotalPlayers(List<String> totalPlayers) {
-        try {
-            FileOutputStream out = openFileOutput(TOTAL_PLAYERS_FILENAME,
-                    Context.MODE_PRIVATE);
-            ObjectOutputStream oout = new ObjectOutputStream(out);
-            oout.writeObject(totalPlayers);
-            oout.close();
-            out.close();
-        } catch (Exception e) {
-            e.printStackTrace();
+    public DataBundle storeData(List<String> totalPlayers,
+                                Map<String, PlayerStats> stats,
+                                String notificationText) throws IOException {
+        synchronized (WRITE_LOCK) {
+            DataBundle bundle = readDataBundle();
+            long version = bundle == null ? 1 : bundle.getVersion() + 1;
+            File bundleFile = new File(getFilesDir(), DATA_BUNDLE_FILENAME);
+            DataBundle.write(bundleFile, version, totalPlayers, stats,
+                    notificationText);
+            return DataBundle.open(bundleFile);
         }
     }
 
     /*
-       Stores the given player stats map in a file
+       Stores the data in the files of earlier versions of the app in a data
+       bundle at the given path, and deletes those files
+       Returns false if there are no such files
+       May throw IOException or ClassNotFoundException
      */
-    public void storePlayerStats(Map<String, PlayerStats> stats) {
-        try {
-            FileOutputStream out = openFileOutput(STATS_FILENAME,
-                    Context.MODE_PRIVATE);
-            ObjectOutputStream oout = new ObjectOutputStream(out);
-            oout.writeObject(stats);
-            oout.close();
-            out.close();
-        } catch (Exception e) {
-            e.printStackTrace();
+    @SuppressWarnings("unchecked")
+    private boolean convertOlderData(File bundleFile)
+            throws IOException, ClassNotFoundException {
+        Map<String, PlayerStats> stats = readOlderPlayerStats();
+        List<String> totalPlayers = new ArrayList<>();
+        String notificationText = "";
+        if (new File(getFilesDir(), TOTAL_PLAYERS_FILENAME).exists()) {
+            byte[] data = readFile(TOTAL_PLAYERS_FILENAME);
+            totalPlayers = DataCodec.isEncoded(data) ?
+                    DataCodec.readStringList(data) :
+                    (List<String>) readLegacyObject(data);
+        }
+        if (new File(getFilesDir(), NOTIFICATION_FILENAME).exists()) {
+            notificationText = (String) readLegacyObject(readFile(NOTIFICATION_FILENAME));
+        }
+        if (stats == null && totalPlayers.isEmpty()) {
+            return false;
         }
+        if (stats == null) {
+            stats = new HashMap<>();
+        }
+        DataBundle.write(bundleFile, 1, totalPlayers, stats, notificationText);
+        deleteFile(TOTAL_PLAYERS_FILENAME);
+        deleteFile(STATS_FILENAME);
+        deleteFile(STATS_SNAPSHOT_FILENAME);
+        deleteFile(NOTIFICATION_FILENAME);
+        return true;
     }
 
     /*
-       Stores the given notification text in a file
+       Reads the player stats map from the file that earlier versions of the
+       app stored it in, as a StatsSnapshot, with DataCodec or with an
+       ObjectOutputStream
+       Returns null if there is no such file
+       May throw IOException or ClassNotFoundException
      */
-    public void storeNotificationText(String notifText) {
+    @SuppressWarnings("unchecked")
+    private Map<String, PlayerStats> readOlderPlayerStats()
+            throws IOException, ClassNotFoundException {
+        if (new File(getFilesDir(), STATS_SNAPSHOT_FILENAME).exists()) {
+            return StatsSnapshot.wrap(ByteBuffer.wrap(
+                    readFile(STATS_SNAPSHOT_FILENAME))).readAll();
+        }
+        if (!new File(getFilesDir(), STATS_FILENAME).exists()) {
+            return null;
+        }
+        byte[] data = readFile(STATS_FILENAME);
+        if (!DataCodec.isEncoded(data)) {
+            return (Map<String, PlayerStats>) readLegacyObject(data);
+        }
+        return DataCodec.readPlayerStats(data);
+    }
+
+    /*
+       Reads the file with the given name and returns its bytes
+       May throw IOException
+     */
+    private byte[] readFile(String filename) throws IOException {
+        FileInputStream in = openFileInput(filename);
         try {
-            FileOutputStream out = openFileOutput(NOTIFICATION_FILENAME,
-                    Context.MODE_PRIVATE);
-            ObjectOutputStream oout = new ObjectOutputStream(out);
-            oout.writeObject(notifText);
-            oout.close();
-            out.close();
-        } catch (Exception e) {
-            e.printStackTrace();
+            return DataCodec.readAll(in);
+        } finally {
+            in.close();
         }
     }
 
+    /*
+       Reads an object from the given bytes of a file that was stored with an
+       ObjectOutputStream, before the app stored its data with DataCodec
+       The file is stored in the new format the next time it is written
+       May throw IOException or ClassNotFoundException
+     */
+    private Object readLegacyObject(byte[] data)
+            throws IOException, ClassNotFoundException {
+        ObjectInputStream oin =
+                new ObjectInputStream(new ByteArrayInputStream(data));
+        Object object = oin.readObject();
+        oin.close();
+        return object;
+    }
+
 }
@@ -0,0 +1,236 @@
+/*
+   Keeps the app's data in memory for the screens and the background tasks,
+   which run in the same process
+   The data bundle is read from its file once, and is replaced when a data
+   refresh stores new data, so the stored files are not decoded again by each
+   reader
+   Each bundle has a version that is higher for newer data, and the current
+   bundle can be observed so readers see new data when it is stored
+ */
+
+package com.adizangi.tennisplayerstracker.utils_data;
+
+import android.content.Context;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+public class PlayerRepository {
+
+    private static PlayerRepository instance;
+
+    private final FileManager fileManager;
+    private final SelectedPlayersWriter selectedPlayersWriter;
+    private final AtomicReference<DataBundle> currentBundle;
+    private final MutableLiveData<DataBundle> observableBundle;
+    private final Object writeLock;
+    private List<String> selectedPlayers;
+    private boolean isSelectedPlayersError;
+
+    /*
+       Constructs a PlayerRepository with the given application context
+     */
+    private PlayerRepository(Context context) {
+        fileManager = new FileManager(context);
+        selectedPlayersWriter = SelectedPlayersWriter.getInstance(context);
+        currentBundle = new AtomicReference<>();
+        observableBundle = new MutableLiveData<>();
+        writeLock = new Object();
+    }
+
+    /*
+       Returns the app's PlayerRepository
+     */
+    public static synchronized PlayerRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new PlayerRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /*
+       Returns the current data bundle, which is read from its file the first
+       time
+       Doesn't wait for data that is being stored, and returns the bundle
+       that was current before it
+       Returns null if no data was stored yet
+     */
+    public DataBundle getDataBundle() {
+        DataBundle bundle = currentBundle.get();
+        if (bundle != null) {
+            return bundle;
+        }
+        bundle = fileManager.readDataBundle();
+        if (bundle != null) {
+            publish(bundle);
+        }
+        return currentBundle.get();
+    }
+
+    /*
+       Returns a LiveData that contains the current data bundle, and is
+       updated when new data is stored
+     */
+    public LiveData<DataBundle> getObservableDataBundle() {
+        getDataBundle();
+        return observableBundle;
+    }
+
+    /*
+       Returns the version of the current data, or 0 if no data was stored yet
+     */
+    public long getVersion() {
+        DataBundle bundle = getDataBundle();
+        return bundle == null ? 0 : bundle.getVersion();
+    }
+
+    /*
+       Returns the list of all the players the user can add, or null if no
+       data was stored yet
+       The list can't be modified
+     */
+    public List<String> getTotalPlayers() {
+        DataBundle bundle = getDataBundle();
+        return bundle == null ? null : bundle.getTotalPlayers();
+    }
+
+    /*
+       Returns the stats of the players, or null if no data was stored yet
+     */
+    public StatsSnapshot getStats() {
+        DataBundle bundle = getDataBundle();
+        return bundle == null ? null : bundle.getStats();
+    }
+
+    /*
+       Returns the text for today's notification, or an empty string if no
+       data was stored yet
+     */
+    public String getNotificationText() {
+        DataBundle bundle = getDataBundle();
+        return bundle == null ? "" : bundle.getNotificationText();
+    }
+
+    /*
+       Stores the given total players list, player stats and notification
+       text in a new data bundle, and makes it the current bundle
+       May throw IOException if the data can't be stored, in which case the
+       current bundle is kept
+     */
+    public void storeData(List<String> totalPlayers,
+                          Map<String, PlayerStats> stats,
+                          String notificationText) throws IOException {
+        synchronized (writeLock) {
+            publish(fileManager.storeData(totalPlayers, stats, notificationText));
+        }
+    }
+
+    /*
+       Adds the given player stats to the stats of the current bundle, and
+       stores them in a new bundle with the same total players list and
+       notification text
+       If the current bundle already has the same stats for all the given
+       players, nothing is stored, so the bundle is not decoded and written
+       again when nothing changed
+       May throw IOException if the stats of the current bundle can't be read
+       or the new bundle can't be stored, in which case the current bundle is
+       kept
+     */
+    public void addPlayerStats(Map<String, PlayerStats> stats) throws IOException {
+        synchronized (writeLock) {
+            DataBundle bundle = getDataBundle();
+            Map<String, PlayerStats> newStats = new HashMap<>();
+            List<String> totalPlayers = new ArrayList<>();
+            String notificationText = "";
+            if (bundle != null) {
+                if (hasSameStats(bundle.getStats(), stats)) {
+                    return;
+                }
+                newStats.putAll(bundle.getStats().readAll());
+                totalPlayers = bundle.getTotalPlayers();
+                notificationText = bundle.getNotificationText();
+            }
+            newStats.putAll(stats);
+            storeData(totalPlayers, newStats, notificationText);
+        }
+    }
+
+    /*
+       Returns a copy of the list of the user's players, which is read from
+       its file the first time
+       Returns an empty list if the list can't be read
+     */
+    public synchronized List<String> getSelectedPlayers() {
+        if (selectedPlayers == null) {
+            selectedPlayers = fileManager.readSelectedPlayers();
+            if (selectedPlayers == null) {
+                isSelectedPlayersError = true;
+                selectedPlayers = new ArrayList<>();
+            }
+        }
+        return new ArrayList<>(selectedPlayers);
+    }
+
+    /*
+       Returns true if the stored list of the user's players couldn't be read,
+       so the screen can tell the user
+       Background tasks only use the list that getSelectedPlayers() returns
+     */
+    public synchronized boolean isSelectedPlayersError() {
+        return isSelectedPlayersError;
+    }
+
+    /*
+       Replaces the list of the user's players with a copy of the given list,
+       and stores it in the background
+     */
+    public synchronized void setSelectedPlayers(List<String> players) {
+        selectedPlayers = new ArrayList<>(players);
+        selectedPlayersWriter.write(selectedPlayers);
+    }
+
+    /*
+       Stores the changes to the list of the user's players that are waiting
+       to be saved, and waits until they are stored
+     */
+    public void flushSelectedPlayers() {
+        selectedPlayersWriter.flush();
+    }
+
+    /*
+       Returns true if the given snapshot has the same stats as the given map
+       for every player in the map
+     */
+    private boolean hasSameStats(StatsSnapshot snapshot, Map<String, PlayerStats> stats) {
+        for (Map.Entry<String, PlayerStats> entry : stats.entrySet()) {
+            PlayerStats storedStats = snapshot.get(entry.getKey());
+            if (storedStats == null || !storedStats.hasSameStats(entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+       Makes the given bundle the current bundle if it is newer than the
+       current one, and updates the observers
+     */
+    private void publish(DataBundle bundle) {
+        DataBundle current;
+        do {
+            current = currentBundle.get();
+            if (current != null && current.getVersion() >= bundle.getVersion()) {
+                return;
+            }
+        } while (!currentBundle.compareAndSet(current, bundle));
+        observableBundle.postValue(bundle);
+    }
+
+}
@@ -0,0 +1,296 @@
+/*
+   A search index of the players the user can add, which finds the players
+   whose names match what the user typed in the search box
+   Each player is represented by name followed by ranking in parenthesis
+   The words of each player's name are kept in a sorted array, so the players
+   that have a word starting with a prefix are found with a binary search
+   Names are compared without case and accents, so 'thiem' finds 'Thiém'
+   The index is built once for the list of players, and can be searched from
+   any thread
+ */
+
+package com.adizangi.tennisplayerstracker.utils_data;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+public class PlayerSearchIndex {
+
+    /* The ranking of a player whose ranking is not a number */
+    private static final int NO_RANKING = Integer.MAX_VALUE;
+
+    private final String[] players;
+    private final int[] rankings;
+    private final String[] names;
+    private final String[][] playerWords;
+    private final String[] words;
+    private final int[] wordPlayers;
+
+    /*
+       Constructs a PlayerSearchIndex of the given list of players
+     */
+    public PlayerSearchIndex(List<String> players) {
+        int size = players.size();
+        this.players = players.toArray(new String[size]);
+        rankings = new int[size];
+        names = new String[size];
+        playerWords = new String[size][];
+        final List<String> allWords = new ArrayList<>();
+        final List<Integer> allWordPlayers = new ArrayList<>();
+        for (int player = 0; player < size; player++) {
+            String key = this.players[player];
+            int rankingIndex = key.lastIndexOf(" (");
+            String name = rankingIndex == -1 ? key : key.substring(0, rankingIndex);
+            rankings[player] = readRanking(key, rankingIndex);
+            playerWords[player] = splitWords(normalize(name));
+            names[player] = join(playerWords[player]);
+            for (String word : playerWords[player]) {
+                allWords.add(word);
+                allWordPlayers.add(player);
+            }
+        }
+        Integer[] order = new Integer[allWords.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer first, Integer second) {
+                return allWords.get(first).compareTo(allWords.get(second));
+            }
+        });
+        words = new String[order.length];
+        wordPlayers = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            words[i] = allWords.get(order[i]);
+            wordPlayers[i] = allWordPlayers.get(order[i]);
+        }
+    }
+
+    /*
+       Returns the number of players in the index
+     */
+    public int size() {
+        return players.length;
+    }
+
+    /*
+       Returns up to the given number of players whose names match the given
+       query, best matches first
+       A player matches if each word of the query is the start of a word of
+       the player's name, such as a first name or a surname
+       Players whose name starts with the query come first, and then players
+       are ordered by ranking
+       Returns an empty list if the query has no letters or digits
+     */
+    public List<String> search(String query, int maxResults) {
+        String[] queryWords = splitWords(normalize(query));
+        if (queryWords.length == 0 || maxResults <= 0) {
+            return Collections.emptyList();
+        }
+        /* The longest word matches the fewest players */
+        String lookupWord = queryWords[0];
+        for (String word : queryWords) {
+            if (word.length() > lookupWord.length()) {
+                lookupWord = word;
+            }
+        }
+        String queryName = join(queryWords);
+        boolean[] isChecked = new boolean[players.length];
+        final List<Integer> matches = new ArrayList<>();
+        final List<Boolean> startMatches = new ArrayList<>();
+        for (int i = lowerBound(lookupWord); i < words.length &&
+                words[i].startsWith(lookupWord); i++) {
+            int player = wordPlayers[i];
+            if (isChecked[player]) {
+                continue;
+            }
+            isChecked[player] = true;
+            if (matchesAllWords(player, queryWords)) {
+                matches.add(player);
+                startMatches.add(names[player].startsWith(queryName));
+            }
+        }
+        Integer[] order = new Integer[matches.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            /*
+               Orders the matches so that players whose name starts with the
+               query are first, then by ranking, and then by the order of
+               the list the index was built from
+             */
+            @Override
+            public int compare(Integer first, Integer second) {
+                boolean firstStarts = startMatches.get(first);
+                if (firstStarts != startMatches.get(second)) {
+                    return firstStarts ? -1 : 1;
+                }
+                int firstPlayer = matches.get(first);
+                int secondPlayer = matches.get(second);
+                int comparison = Integer.compare(rankings[firstPlayer],
+                        rankings[secondPlayer]);
+                if (comparison != 0) {
+                    return comparison;
+                }
+                return Integer.compare(firstPlayer, secondPlayer);
+            }
+        });
+        int numOfResults = Math.min(maxResults, order.length);
+        List<String> results = new ArrayList<>(numOfResults);
+        for (int i = 0; i < numOfResults; i++) {
+            results.add(players[matches.get(order[i])]);
+        }
+        return results;
+    }
+
+    /*
+       Returns the given text in lower case without accents
+       Letters with a stroke, such as 'ø' and 'ł', are not split into a
+       letter and an accent, so they are replaced by their base letter
+     */
+    static String normalize(String text) {
+        if (isAscii(text)) {
+            return text.toLowerCase(Locale.ROOT);
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        int length = decomposed.length();
+        for (int i = 0; i < length; i++) {
+            char c = Character.toLowerCase(decomposed.charAt(i));
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            switch (c) {
+                case 'ø':
+                    normalized.append('o');
+                    break;
+                case 'ł':
+                    normalized.append('l');
+                    break;
+                case 'đ':
+                    normalized.append('d');
+                    break;
+                case 'ß':
+                    normalized.append("ss");
+                    break;
+                case 'æ':
+                    normalized.append("ae");
+                    break;
+                default:
+                    normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
+    /*
+       Returns true if all the characters of the given text are ASCII, so it
+       has no accents
+     */
+    private static boolean isAscii(String text) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+       Returns true if each of the given query words is the start of one of
+       the words of the player with the given index
+     */
+    private boolean matchesAllWords(int player, String[] queryWords) {
+        for (String queryWord : queryWords) {
+            boolean isFound = false;
+            for (String word : playerWords[player]) {
+                if (word.startsWith(queryWord)) {
+                    isFound = true;
+                    break;
+                }
+            }
+            if (!isFound) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+       Returns the index of the first word in the sorted words array that is
+       not less than the given word
+     */
+    private int lowerBound(String word) {
+        int low = 0;
+        int high = words.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (words[middle].compareTo(word) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /*
+       Returns the ranking number in the given player, which is in
+       parenthesis after the given index, or NO_RANKING if there is none
+     */
+    private static int readRanking(String player, int rankingIndex) {
+        if (rankingIndex == -1 || !player.endsWith(")")) {
+            return NO_RANKING;
+        }
+        try {
+            return Integer.parseInt(
+                    player.substring(rankingIndex + 2, player.length() - 1));
+        } catch (NumberFormatException e) {
+            return NO_RANKING;
+        }
+    }
+
+    /*
+       Returns the words of the given text, which are separated by characters
+       that are not letters or digits, such as spaces and hyphens
+     */
+    private static String[] splitWords(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            boolean isWordChar = i < length &&
+                    Character.isLetterOrDigit(text.charAt(i));
+            if (isWordChar && start == -1) {
+                start = i;
+            } else if (!isWordChar && start != -1) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+    /*
+       Returns the given words separated by spaces
+     */
+    private static String join(String[] words) {
+        StringBuilder joined = new StringBuilder();
+        for (String word : words) {
+            if (joined.length() > 0) {
+                joined.append(' ');
+            }
+            joined.append(word);
+        }
+        return joined.toString();
+    }
+
+}
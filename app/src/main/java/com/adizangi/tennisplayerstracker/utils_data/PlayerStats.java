@@ -1,42 +1,164 @@
 /*
    Represents a tennis player's statistics
+   The statistics are kept as numbers and an enum rather than as the text
+   that is shown to the user, so comparing and matching players doesn't
+   parse or scan strings, and the text is built only when a player is shown
+   Tournament and round names are shared between the players that are in the
+   same tournament
  */
 
 package com.adizangi.tennisplayerstracker.utils_data;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class PlayerStats implements Comparable<PlayerStats>, Serializable {
 
     private static final long serialVersionUID = 5178394270442919234L;
 
+    /* The number of titles of a player whose titles are not known */
+    public static final int UNKNOWN_TITLES = -1;
+
+    /*
+       The serialized form is the text of the earlier versions, so objects
+       that were stored by them can still be read
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("name", String.class),
+            new ObjectStreamField("ranking", String.class),
+            new ObjectStreamField("titles", String.class),
+            new ObjectStreamField("tournamentStanding", String.class),
+            new ObjectStreamField("currentTournament", String.class),
+            new ObjectStreamField("latestMatchResult", String.class),
+            new ObjectStreamField("upcomingMatch", String.class),
+            new ObjectStreamField("roundNumber", int.class)
+    };
+
+    private static final String RANKING_PREFIX = "Current ranking: ";
+    private static final String TITLES_SUFFIX = " singles titles: ";
+    private static final String UNKNOWN_TITLES_TEXT = "Singles titles: unknown";
+
+    private static final ConcurrentMap<String, String> names =
+            new ConcurrentHashMap<>();
+
+    /*
+       The player's standing in the tournament they are currently in
+       The order of the constants is stored in files, so new constants are
+       added at the end
+     */
+    public enum Standing {
+
+        NOT_PLAYING("not playing", 0),
+        OUT("out", 1),
+        ADVANCED("advanced to ", 2),
+        WINNER("winner", 0);
+
+        private final String text;
+        private final int sortOrder;
+
+        Standing(String text, int sortOrder) {
+            this.text = text;
+            this.sortOrder = sortOrder;
+        }
+    }
+
     private String name;
-    private String ranking;
-    private String titles;
-    private String tournamentStanding;
+    private int ranking;
+    private int titlesYear;
+    private int titles;
+    private Standing standing;
+    private String round;
+    private int roundNumber;
     private String currentTournament;
     private String latestMatchResult;
     private String upcomingMatch;
 
     /*
        Constructs a PlayerStats object
+       titlesYear is 0 and titles is UNKNOWN_TITLES if the player's titles are
+       not known
+       round is the name of the round the player advanced to or last played,
+       and roundNumber is its number in the tournament starting from 1, or 0
+       if the player is not playing
      */
     public PlayerStats(String name,
-                String ranking,
-                String titles,
-                String tournamentStanding,
+                int ranking,
+                int titlesYear,
+                int titles,
+                Standing standing,
+                String round,
+                int roundNumber,
                 String currentTournament,
                 String latestMatchResult,
                 String upcomingMatch) {
         this.name = name;
         this.ranking = ranking;
+        this.titlesYear = titlesYear;
         this.titles = titles;
-        this.tournamentStanding = tournamentStanding;
-        this.currentTournament = currentTournament;
+        this.standing = standing;
+        this.round = intern(round);
+        this.roundNumber = roundNumber;
+        this.currentTournament = intern(currentTournament);
         this.latestMatchResult = latestMatchResult;
         this.upcomingMatch = upcomingMatch;
     }
 
+    /*
+       Returns a PlayerStats object with the given text of the statistics, in
+       the format that getRankingText(), getTitlesText() and getStandingText()
+       return, which was the format earlier versions of the app stored
+       Parts of the text that can't be read are unknown
+     */
+    static PlayerStats fromText(String name,
+                                String ranking,
+                                String titles,
+                                String tournamentStanding,
+                                String currentTournament,
+                                String latestMatchResult,
+                                String upcomingMatch,
+                                int roundNumber) {
+        int rankingNumber = Math.max(0,
+                parseNumber(ranking.substring(ranking.indexOf(':') + 1)));
+        int titlesYear = 0;
+        int titlesNumber = UNKNOWN_TITLES;
+        int suffixIndex = titles.indexOf(TITLES_SUFFIX);
+        if (suffixIndex > 0) {
+            titlesYear = parseNumber(titles.substring(0, suffixIndex));
+            titlesNumber = parseNumber(titles.substring(suffixIndex + TITLES_SUFFIX.length()));
+            if (titlesNumber < 0) {
+                titlesYear = 0;
+                titlesNumber = UNKNOWN_TITLES;
+            }
+        }
+        Standing standing = Standing.NOT_PLAYING;
+        String round = "";
+        if (tournamentStanding.startsWith(Standing.ADVANCED.text)) {
+            standing = Standing.ADVANCED;
+            round = tournamentStanding.substring(Standing.ADVANCED.text.length());
+        } else if (tournamentStanding.equals(Standing.OUT.text)) {
+            standing = Standing.OUT;
+        } else if (tournamentStanding.equals(Standing.WINNER.text)) {
+            standing = Standing.WINNER;
+        }
+        return new PlayerStats(name, rankingNumber, titlesYear, titlesNumber,
+                standing, round, roundNumber, currentTournament,
+                latestMatchResult, upcomingMatch);
+    }
+
+    /*
+       Returns a copy of this PlayerStats object with the given ranking
+     */
+    public PlayerStats withRanking(int ranking) {
+        return new PlayerStats(name, ranking, titlesYear, titles, standing,
+                round, roundNumber, currentTournament, latestMatchResult,
+                upcomingMatch);
+    }
+
     /*
        Returns the player's name
      */
@@ -45,30 +167,88 @@ public class PlayerStats implements Comparable<PlayerStats>, Serializable {
     }
 
     /*
-       Returns the player's ranking as a string that is in the format
-       'Ranking: [ranking number]'
+       Returns the player's ranking number, or 0 if it is not known
      */
-    public String getRanking() {
+    public int getRanking() {
         return ranking;
     }
 
+    /*
+       Returns the player's ranking as a string that is in the format
+       'Current ranking: [ranking number]'
+     */
+    public String getRankingText() {
+        if (ranking <= 0) {
+            return RANKING_PREFIX + "unknown";
+        }
+        return RANKING_PREFIX + ranking;
+    }
+
+    /*
+       Returns the year that the player's titles are counted in, or 0 if the
+       titles are not known
+     */
+    public int getTitlesYear() {
+        return titlesYear;
+    }
+
+    /*
+       Returns the number of singles titles the player won in the year that
+       getTitlesYear() returns, or UNKNOWN_TITLES if it is not known
+     */
+    public int getTitles() {
+        return titles;
+    }
+
     /*
        Returns the number of singles titles the player won in the current year
        The format is
        '[year number] singles titles: [number of titles]'
      */
-    public String getTitles() {
-        return titles;
+    public String getTitlesText() {
+        if (titles == UNKNOWN_TITLES) {
+            return UNKNOWN_TITLES_TEXT;
+        }
+        return titlesYear + TITLES_SUFFIX + titles;
+    }
+
+    /*
+       Returns the player's tournament standing
+     */
+    public Standing getStanding() {
+        return standing;
+    }
+
+    /*
+       Returns the name of the round the player advanced to or last played
+       Returns an empty string if the player isn't in a tournament or the
+       round is not known
+     */
+    public String getRound() {
+        return round;
+    }
+
+    /*
+       Returns the number of the round that getRound() returns in the
+       tournament, starting from 1
+       Returns 0 if the player isn't in a tournament or the number is not known
+     */
+    public int getRoundNumber() {
+        return roundNumber;
     }
 
     /*
        Returns the player's tournament standing which may be
        'advanced to [tournament round]',
-       'out', or
+       'out',
+       'winner', or
        'not playing'
      */
-    public String getTournamentStanding() {
-        return tournamentStanding;
+    public String getStandingText() {
+        if (standing == Standing.ADVANCED) {
+            return standing.text + round;
+        }
+        return standing.text;
     }
 
     /*
@@ -103,38 +283,128 @@ public class PlayerStats implements Comparable<PlayerStats>, Serializable {
        match result, separated by new lines
      */
     public String getStatsSummary() {
-        return getRanking() +
-                "\n" + getTitles() +
+        return getRankingText() +
+                "\n" + getTitlesText() +
                 "\n" + getCurrentTournament() +
                 "\n" + getLatestMatchResult();
     }
 
     /*
-        Returns -1, 0, or 1 if this PlayerStats is less than, equal to, or
-        greater than the given other PlayerStats, respectively
+       Returns true if the given other PlayerStats has the same statistics as
+       this PlayerStats, such as when a player's page was fetched again and
+       nothing changed
+     */
+    public boolean hasSameStats(PlayerStats o) {
+        return this == o ||
+                (ranking == o.ranking &&
+                titlesYear == o.titlesYear &&
+                titles == o.titles &&
+                standing == o.standing &&
+                roundNumber == o.roundNumber &&
+                name.equals(o.name) &&
+                round.equals(o.round) &&
+                currentTournament.equals(o.currentTournament) &&
+                latestMatchResult.equals(o.latestMatchResult) &&
+                upcomingMatch.equals(o.upcomingMatch));
+    }
+
+    /*
+        Returns a negative number, 0, or a positive number if this PlayerStats
+        is less than, equal to, or greater than the given other PlayerStats,
+        respectively
         PlayerStats objects are compared by tournament standing, such that a
         player who advanced to the next round is greater than a player who is
         out, and a player who is out is greater than a player who is not playing
         If the tournament standings are the same, the objects are compared by
-        current tournament alphabetically
+        current tournament alphabetically, and then by round number
      */
     @Override
     public int compareTo(PlayerStats o) {
-        boolean thisAdvanced = tournamentStanding.contains("advanced");
-        boolean otherAdvanced = o.tournamentStanding.contains("advanced");
-        if (thisAdvanced && !otherAdvanced) {
-            return 1;
-        } else if (!thisAdvanced && otherAdvanced) {
-            return -1;
+        int comparison = Integer.compare(standing.sortOrder, o.standing.sortOrder);
+        if (comparison != 0) {
+            return comparison;
+        }
+        /* Tournament names are shared, so equal names are usually the same object */
+        if (currentTournament != o.currentTournament) {
+            comparison = currentTournament.compareTo(o.currentTournament);
+            if (comparison != 0) {
+                return comparison;
+            }
         }
-        boolean thisOut = tournamentStanding.equals("out");
-        boolean otherOut = o.tournamentStanding.equals("out");
-        if (thisOut && !otherOut) {
-            return 1;
-        } else if (!thisOut && otherOut) {
+        return Integer.compare(roundNumber, o.roundNumber);
+    }
+
+    /*
+       Writes this object in the serialized form of the earlier versions
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("name", name);
+        fields.put("ranking", getRankingText());
+        fields.put("titles", getTitlesText());
+        fields.put("tournamentStanding", getStandingText());
+        fields.put("currentTournament", currentTournament);
+        fields.put("latestMatchResult", latestMatchResult);
+        fields.put("upcomingMatch", upcomingMatch);
+        fields.put("roundNumber", roundNumber);
+        out.writeFields();
+    }
+
+    /*
+       Reads an object that was written by writeObject() or by an earlier
+       version of the app
+     */
+    private void readObject(ObjectInputStream in)
+            throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        PlayerStats stats = fromText(
+                readField(fields, "name"),
+                readField(fields, "ranking"),
+                readField(fields, "titles"),
+                readField(fields, "tournamentStanding"),
+                readField(fields, "currentTournament"),
+                readField(fields, "latestMatchResult"),
+                readField(fields, "upcomingMatch"),
+                fields.get("roundNumber", 0));
+        name = stats.name;
+        ranking = stats.ranking;
+        titlesYear = stats.titlesYear;
+        titles = stats.titles;
+        standing = stats.standing;
+        round = stats.round;
+        roundNumber = stats.roundNumber;
+        currentTournament = stats.currentTournament;
+        latestMatchResult = stats.latestMatchResult;
+        upcomingMatch = stats.upcomingMatch;
+    }
+
+    /*
+       Returns the string field with the given name, or an empty string if it
+       is missing
+     */
+    private static String readField(ObjectInputStream.GetField fields, String field)
+            throws IOException {
+        String value = (String) fields.get(field, null);
+        return value == null ? "" : value;
+    }
+
+    /*
+       Returns the given number, or -1 if it is not a number
+     */
+    private static int parseNumber(String number) {
+        try {
+            return Integer.parseInt(number.trim());
+        } catch (NumberFormatException e) {
             return -1;
         }
-        return currentTournament.compareTo(o.currentTournament);
+    }
+
+    /*
+       Returns the shared copy of the given tournament or round name
+     */
+    private static String intern(String name) {
+        String shared = names.putIfAbsent(name, name);
+        return shared == null ? name : shared;
     }
 
 }
@@ -0,0 +1,145 @@
+/*
+   Keeps the metrics of the data refresh runs in a file
+   The workers of a run add their metrics to the current run, and when the
+   run is finished it is moved into the history, which keeps the last
+   MAX_RUNS runs
+ */
+
+package com.adizangi.tennisplayerstracker.utils_data;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import com.adizangi.tennisplayerstracker.network_calls.FetchMetrics;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+public class RunHistory extends ContextWrapper {
+
+    public static final int MAX_RUNS = 30;
+
+    private static final String CURRENT_RUN_FILENAME = "current_run_metrics";
+    private static final String HISTORY_FILENAME = "run_history";
+
+    /* The workers of a run may add their metrics at the same time */
+    private static final Object LOCK = new Object();
+
+    /*
+       Constructs a RunHistory with the given application context
+     */
+    public RunHistory(Context base) {
+        super(base);
+    }
+
+    /*
+       Adds the given metrics of one worker to the metrics of the current run
+       If the current run started on an earlier day, it was never finished,
+       so it is moved into the history as an incomplete run and the given
+       metrics start a new run
+     */
+    public void addToCurrentRun(FetchMetrics metrics) {
+        synchronized (LOCK) {
+            FetchMetrics currentRun = (FetchMetrics) readObject(CURRENT_RUN_FILENAME);
+            if (currentRun != null && !isSameDay(currentRun, metrics)) {
+                addToHistory(currentRun);
+                currentRun = null;
+            }
+            if (currentRun == null) {
+                currentRun = new FetchMetrics();
+            }
+            currentRun.merge(metrics);
+            storeObject(CURRENT_RUN_FILENAME, currentRun);
+        }
+    }
+
+    /*
+       Moves the metrics of the current run into the history
+       If there is no current run, performs no operations
+     */
+    public void finishCurrentRun() {
+        synchronized (LOCK) {
+            FetchMetrics currentRun = (FetchMetrics) readObject(CURRENT_RUN_FILENAME);
+            if (currentRun != null) {
+                addToHistory(currentRun);
+                deleteFile(CURRENT_RUN_FILENAME);
+            }
+        }
+    }
+
+    /*
+       Returns the metrics of the runs in the history, from the oldest to the
+       newest
+       Returns an empty list if there are no runs or there is an error
+     */
+    @SuppressWarnings("unchecked")
+    public List<FetchMetrics> readRuns() {
+        synchronized (LOCK) {
+            List<FetchMetrics> runs = (List<FetchMetrics>) readObject(HISTORY_FILENAME);
+            return runs == null ? new ArrayList<FetchMetrics>() : runs;
+        }
+    }
+
+    /*
+       Adds the given metrics of a run to the end of the history, and removes
+       the oldest runs if there are more than MAX_RUNS
+     */
+    private void addToHistory(FetchMetrics run) {
+        List<FetchMetrics> runs = readRuns();
+        runs.add(run);
+        while (runs.size() > MAX_RUNS) {
+            runs.remove(0);
+        }
+        storeObject(HISTORY_FILENAME, new ArrayList<>(runs));
+    }
+
+    /*
+       Returns true if the given metrics started on the same day
+     */
+    private boolean isSameDay(FetchMetrics first, FetchMetrics second) {
+        Calendar firstDay = Calendar.getInstance();
+        firstDay.setTimeInMillis(first.getStartTime());
+        Calendar secondDay = Calendar.getInstance();
+        secondDay.setTimeInMillis(second.getStartTime());
+        return firstDay.get(Calendar.YEAR) == secondDay.get(Calendar.YEAR) &&
+                firstDay.get(Calendar.DAY_OF_YEAR) == secondDay.get(Calendar.DAY_OF_YEAR);
+    }
+
+    /*
+       Reads the object in the file with the given name and returns it
+       Returns null if there is no such file or there is an error
+     */
+    private Object readObject(String filename) {
+        try {
+            FileInputStream in = openFileInput(filename);
+            ObjectInputStream oin = new ObjectInputStream(in);
+            Object object = oin.readObject();
+            oin.close();
+            in.close();
+            return object;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /*
+       Stores the given object in a file with the given name
+     */
+    private void storeObject(String filename, Object object) {
+        try {
+            FileOutputStream out = openFileOutput(filename, Context.MODE_PRIVATE);
+            ObjectOutputStream oout = new ObjectOutputStream(out);
+            oout.writeObject(object);
+            oout.close();
+            out.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+   Stores the list of the user's selected players in the background
+   Changes that are made within a short time of each other are stored with
+   one write, and the writes run on a background thread so they don't block
+   the screen
+   There is one writer for the app, so the writes are stored in the order
+   they were made
+ */
+
+package com.adizangi.tennisplayerstracker.utils_data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.widget.Toast;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+public class SelectedPlayersWriter {
+
+    /* How long to wait for more changes before storing the list */
+    private static final long COALESCE_DELAY_MILLIS = 500;
+
+    private static SelectedPlayersWriter instance;
+
+    private final FileManager fileManager;
+    private final long coalesceDelayMillis;
+    private final ScheduledExecutorService executor;
+    private final Handler mainHandler;
+    private List<String> pendingPlayers;
+    private boolean isWriteScheduled;
+
+    private final Runnable writeTask = new Runnable() {
+        @Override
+        public void run() {
+            writePendingPlayers();
+        }
+    };
+
+    /*
+       Constructs a SelectedPlayersWriter with the given application context,
+       that waits for more changes for the given number of milliseconds
+       before storing the list
+       The app uses the writer that getInstance() returns, so this is only
+       used to test a writer with a known delay
+     */
+    public SelectedPlayersWriter(Context context, long coalesceDelayMillis) {
+        fileManager = new FileManager(context);
+        this.coalesceDelayMillis = coalesceDelayMillis;
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "SelectedPlayersWriter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /*
+       Returns the app's SelectedPlayersWriter
+     */
+    public static synchronized SelectedPlayersWriter getInstance(Context context) {
+        if (instance == null) {
+            instance = new SelectedPlayersWriter(context.getApplicationContext(),
+                    COALESCE_DELAY_MILLIS);
+        }
+        return instance;
+    }
+
+    /*
+       Stores a copy of the given list of the user's players in the background
+       The list is stored a short time later, together with any changes that
+       are made until then
+     */
+    public synchronized void write(List<String> selectedPlayers) {
+        pendingPlayers = new ArrayList<>(selectedPlayers);
+        if (!isWriteScheduled) {
+            isWriteScheduled = true;
+            executor.schedule(writeTask, coalesceDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /*
+       Stores the list that is waiting to be stored right away, and waits until
+       it and any write that is running are done
+       Called when the user leaves the screen, so the changes are stored
+       before the app's process may be stopped
+       Returns right away if there are no changes to store
+     */
+    public void flush() {
+        synchronized (this) {
+            if (pendingPlayers == null && !isWriteScheduled) {
+                return;
+            }
+        }
+        try {
+            executor.submit(writeTask).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /*
+       Stores the list that is waiting to be stored, if there is one
+       If the list can't be stored, shows a message on the main thread
+     */
+    private void writePendingPlayers() {
+        List<String> selectedPlayers;
+        synchronized (this) {
+            selectedPlayers = pendingPlayers;
+            pendingPlayers = null;
+            isWriteScheduled = false;
+        }
+        if (selectedPlayers == null || fileManager.storeSelectedPlayers(selectedPlayers)) {
+            return;
+        }
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                Toast.makeText(fileManager,
+                        "There was a problem with saving the new players",
+                        Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+}
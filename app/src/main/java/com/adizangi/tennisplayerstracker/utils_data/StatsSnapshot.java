@@ -0,0 +1,304 @@
+/*
+   A read-only snapshot of the player stats map that is read in place from a
+   memory-mapped file, so the stats of a few players can be read without
+   reading the whole map
+   The snapshot is stored as a section of a DataBundle file
+   The snapshot starts with a header of 4 magic bytes, the version and the
+   number of players, followed by an index with an entry for each player that
+   is sorted by the player's name, and then the names and the records
+   Each index entry has the offset and length of the player's name and of the
+   player's record, so a lookup is a binary search over the index that decodes
+   only the record of the player that was found
+   The index entries are only checked when they are read, so opening a
+   snapshot doesn't read the whole index
+   The records have the same tagged fields as the records of DataCodec
+ */
+
+package com.adizangi.tennisplayerstracker.utils_data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StatsSnapshot {
+
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'T', 'P', 'T', 'S'};
+    private static final int HEADER_SIZE = MAGIC.length + 8;
+    private static final int INDEX_ENTRY_SIZE = 16;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int dataStart;
+
+    /*
+       Constructs a StatsSnapshot of the given buffer that contains a
+       snapshot, after its header was checked
+     */
+    private StatsSnapshot(ByteBuffer buffer, int size) {
+        this.buffer = buffer;
+        this.size = size;
+        dataStart = HEADER_SIZE + size * INDEX_ENTRY_SIZE;
+    }
+
+    /*
+       Returns a StatsSnapshot that reads the snapshot in the given buffer,
+       where the snapshot starts at the buffer's position
+       Only the header is checked, and each index entry is checked when it
+       is read, so opening a snapshot takes the same time for any number of
+       players
+       May throw IOException if the buffer doesn't contain a snapshot, it
+       was written with a newer version, or its index doesn't fit in it
+     */
+    public static StatsSnapshot wrap(ByteBuffer buffer) throws IOException {
+        buffer = buffer.slice();
+        if (buffer.limit() < HEADER_SIZE) {
+            throw new IOException("Not a stats snapshot");
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(i) != MAGIC[i]) {
+                throw new IOException("Not a stats snapshot");
+            }
+        }
+        int version = buffer.getInt(MAGIC.length);
+        if (version > VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        int size = buffer.getInt(MAGIC.length + 4);
+        if (size < 0 || (long) size * INDEX_ENTRY_SIZE >
+                buffer.limit() - HEADER_SIZE) {
+            throw new IOException("Invalid snapshot index");
+        }
+        return new StatsSnapshot(buffer, size);
+    }
+
+    /*
+       Returns a snapshot of the given map from each player to a PlayerStats
+       object in bytes
+     */
+    public static byte[] encode(Map<String, PlayerStats> stats) {
+        List<Map.Entry<byte[], PlayerStats>> entries = new ArrayList<>(stats.size());
+        for (Map.Entry<String, PlayerStats> entry : stats.entrySet()) {
+            entries.add(new AbstractMap.SimpleEntry<>(
+                    entry.getKey().getBytes(StandardCharsets.UTF_8),
+                    entry.getValue()));
+        }
+        Collections.sort(entries, new Comparator<Map.Entry<byte[], PlayerStats>>() {
+            @Override
+            public int compare(Map.Entry<byte[], PlayerStats> first,
+                               Map.Entry<byte[], PlayerStats> second) {
+                return compareKeys(first.getKey(), second.getKey());
+            }
+        });
+        List<byte[]> keys = new ArrayList<>(entries.size());
+        List<byte[]> records = new ArrayList<>(entries.size());
+        int totalLength = HEADER_SIZE + entries.size() * INDEX_ENTRY_SIZE;
+        for (Map.Entry<byte[], PlayerStats> entry : entries) {
+            byte[] record = DataCodec.encodeRecord(entry.getValue());
+            keys.add(entry.getKey());
+            records.add(record);
+            totalLength += entry.getKey().length + record.length;
+        }
+        ByteBuffer out = ByteBuffer.allocate(totalLength);
+        out.put(MAGIC);
+        out.putInt(VERSION);
+        out.putInt(keys.size());
+        int offset = HEADER_SIZE + keys.size() * INDEX_ENTRY_SIZE;
+        for (int i = 0; i < keys.size(); i++) {
+            int keyLength = keys.get(i).length;
+            int recordLength = records.get(i).length;
+            out.putInt(offset);
+            out.putInt(keyLength);
+            out.putInt(offset + keyLength);
+            out.putInt(recordLength);
+            offset += keyLength + recordLength;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            out.put(keys.get(i));
+            out.put(records.get(i));
+        }
+        return out.array();
+    }
+
+    /*
+       Returns the number of players in the snapshot
+     */
+    public int size() {
+        return size;
+    }
+
+    /*
+       Returns true if there are no players in the snapshot
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /*
+       Returns the PlayerStats object of the given player
+       Returns null if the player is not in the snapshot, or their record or
+       an index entry that was searched can't be read
+     */
+    public PlayerStats get(String player) {
+        int entry;
+        try {
+            entry = find(player.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        if (entry < 0) {
+            return null;
+        }
+        return readRecord(entry);
+    }
+
+    /*
+       Returns a map from each of the given players that is in the snapshot to
+       their PlayerStats object, in the order of the given players
+     */
+    public Map<String, PlayerStats> getAll(Collection<String> players) {
+        Map<String, PlayerStats> stats = new LinkedHashMap<>();
+        for (String player : players) {
+            PlayerStats playerStats = get(player);
+            if (playerStats != null) {
+                stats.put(player, playerStats);
+            }
+        }
+        return stats;
+    }
+
+    /*
+       Reads all the players in the snapshot and returns a map from each player
+       to their PlayerStats object
+       May throw IOException if a record can't be read
+     */
+    public Map<String, PlayerStats> readAll() throws IOException {
+        Map<String, PlayerStats> stats = new HashMap<>(size * 4 / 3 + 1);
+        for (int entry = 0; entry < size; entry++) {
+            byte[] key = readBytes(entry, 0);
+            byte[] record = readBytes(entry, 8);
+            stats.put(new String(key, StandardCharsets.UTF_8),
+                    DataCodec.decodeRecord(record));
+        }
+        return stats;
+    }
+
+    /*
+       Returns the index of the entry of the player with the given name in
+       UTF-8 bytes, or -1 if there is no such player
+       May throw IOException if an index entry that was searched is invalid
+     */
+    private int find(byte[] key) throws IOException {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareToKey(middle, key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /*
+       Compares the name in the index entry with the given index to the given
+       name in UTF-8 bytes, without copying the name out of the file
+       May throw IOException if the index entry is invalid
+     */
+    private int compareToKey(int entry, byte[] key) throws IOException {
+        int offset = getOffset(entry, 0);
+        int length = getLength(entry, 0);
+        int commonLength = Math.min(length, key.length);
+        for (int i = 0; i < commonLength; i++) {
+            int difference = (buffer.get(offset + i) & 0xFF) - (key[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - key.length;
+    }
+
+    /*
+       Returns the PlayerStats object in the record of the index entry with the
+       given index, or null if the record can't be read
+     */
+    private PlayerStats readRecord(int entry) {
+        try {
+            return DataCodec.decodeRecord(readBytes(entry, 8));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /*
+       Returns a copy of the bytes that the index entry with the given index
+       points to, where field is 0 for the name and 8 for the record
+       May throw IOException if the index entry is invalid
+     */
+    private byte[] readBytes(int entry, int field) throws IOException {
+        int offset = getOffset(entry, field);
+        int length = getLength(entry, field);
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(bytes);
+        return bytes;
+    }
+
+    /*
+       Returns the offset of the bytes that the index entry with the given
+       index points to, where field is 0 for the name and 8 for the record
+       Checks that the bytes are after the index and inside the snapshot, so
+       a corrupt entry doesn't read outside the snapshot
+       May throw IOException if they are not
+     */
+    private int getOffset(int entry, int field) throws IOException {
+        int offset = buffer.getInt(HEADER_SIZE + entry * INDEX_ENTRY_SIZE + field);
+        int length = getLength(entry, field);
+        if (offset < dataStart || length < 0 ||
+                (long) offset + length > buffer.limit()) {
+            throw new IOException("Invalid snapshot index entry " + entry);
+        }
+        return offset;
+    }
+
+    /*
+       Returns the length of the bytes that the index entry with the given
+       index points to, where field is 0 for the name and 8 for the record
+     */
+    private int getLength(int entry, int field) {
+        return buffer.getInt(HEADER_SIZE + entry * INDEX_ENTRY_SIZE + field + 4);
+    }
+
+    /*
+       Compares the given names in UTF-8 bytes, in the order of their bytes
+     */
+    private static int compareKeys(byte[] first, byte[] second) {
+        int commonLength = Math.min(first.length, second.length);
+        for (int i = 0; i < commonLength; i++) {
+            int difference = (first[i] & 0xFF) - (second[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return first.length - second.length;
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+   The stats of the user's selected players, kept sorted in descending order
+   and keyed by player
+   Each player is represented by name followed by ranking in parenthesis
+   The players are kept in a tree that is ordered by their stats, so adding
+   and removing a player takes O(log n) time, and a map from each player to
+   their stats finds a player without searching the list
+ */
+
+package com.adizangi.tennisplayerstracker.view_models;
+
+import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+public class PlayerStatsIndex {
+
+    private final Map<String, PlayerStats> statsByPlayer;
+    private final TreeSet<String> sortedPlayers;
+
+    /*
+       Constructs an empty PlayerStatsIndex
+     */
+    public PlayerStatsIndex() {
+        statsByPlayer = new HashMap<>();
+        sortedPlayers = new TreeSet<>(new Comparator<String>() {
+            /*
+               Orders the players by their stats in descending order, and
+               players with equal stats by the player's name and ranking
+             */
+            @Override
+            public int compare(String first, String second) {
+                int comparison = statsByPlayer.get(second)
+                        .compareTo(statsByPlayer.get(first));
+                if (comparison != 0) {
+                    return comparison;
+                }
+                return first.compareTo(second);
+            }
+        });
+    }
+
+    /*
+       Adds the given player with the given stats, or replaces the stats of
+       the player if they are already in the index
+     */
+    public void put(String player, PlayerStats playerStats) {
+        remove(player);
+        statsByPlayer.put(player, playerStats);
+        sortedPlayers.add(player);
+    }
+
+    /*
+       Removes the given player and returns their stats
+       Returns null if the player is not in the index
+     */
+    public PlayerStats remove(String player) {
+        if (!statsByPlayer.containsKey(player)) {
+            return null;
+        }
+        /* The stats are still needed to find the player in the tree */
+        sortedPlayers.remove(player);
+        return statsByPlayer.remove(player);
+    }
+
+    /*
+       Updates the given players to their stats in the given map, such as the
+       stats of a new data refresh
+       Players that are not in the map are removed, and players whose stats
+       didn't change are left in place, so only the players that changed are
+       moved in the tree
+       Returns true if any of the players changed
+     */
+    public boolean update(Collection<String> players,
+                          Map<String, PlayerStats> newStats) {
+        boolean isChanged = false;
+        for (String player : players) {
+            PlayerStats playerStats = newStats.get(player);
+            PlayerStats oldStats = statsByPlayer.get(player);
+            if (playerStats == null) {
+                isChanged |= remove(player) != null;
+            } else if (oldStats == null || !oldStats.hasSameStats(playerStats)) {
+                put(player, playerStats);
+                isChanged = true;
+            }
+        }
+        return isChanged;
+    }
+
+    /*
+       Returns true if the given player is in the index
+     */
+    public boolean contains(String player) {
+        return statsByPlayer.containsKey(player);
+    }
+
+    /*
+       Returns the stats of the given player, or null if the player is not in
+       the index
+     */
+    public PlayerStats get(String player) {
+        return statsByPlayer.get(player);
+    }
+
+    /*
+       Returns the number of players in the index
+     */
+    public int size() {
+        return statsByPlayer.size();
+    }
+
+    /*
+       Returns a new list of the players in the index, each with their stats,
+       sorted in descending order
+     */
+    public List<Map.Entry<String, PlayerStats>> toList() {
+        List<Map.Entry<String, PlayerStats>> stats = new ArrayList<>(sortedPlayers.size());
+        for (String player : sortedPlayers) {
+            stats.add(new AbstractMap.SimpleImmutableEntry<>(player, statsByPlayer.get(player)));
+        }
+        return stats;
+    }
+
+}
@@ -1,145 +1,422 @@
 /*
    ViewModel for the views in MainActivity's tabs
+   The saved data is loaded on a background thread, so the tabs are shown
+   right away and are filled in when the data is ready
+   The data is only changed on the main thread after it is loaded
+   When a data refresh stores new data while the app is open, only the stats
+   of the user's players that changed are replaced
  */
 
 package com.adizangi.tennisplayerstracker.view_models;
 
 import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
+import android.widget.Toast;
 
-import com.adizangi.tennisplayerstracker.utils_data.FileManager;
+import com.adizangi.tennisplayerstracker.utils_data.DataBundle;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerRepository;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerSearchIndex;
 import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
+import com.adizangi.tennisplayerstracker.utils_data.StatsSnapshot;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
 
 public class TabsViewModel extends AndroidViewModel {
 
-    private final List<String> totalPlayers;
-    private final Map<String, PlayerStats> statsMap;
-    private List<String> selectedPlayers;
-    private List<PlayerStats> selectedPlayersStats;
-    private MutableLiveData<String> addedPlayer;
-    private MutableLiveData<String> removedPlayer;
-    private FileManager fileManager;
+    private final PlayerRepository repository;
+    private final ExecutorService executor;
+    private final Handler mainHandler;
+    private final MutableLiveData<List<String>> selectedPlayersData;
+    private final MutableLiveData<List<Map.Entry<String, PlayerStats>>> selectedPlayersStatsData;
+    private final MutableLiveData<PlayerSearchIndex> searchIndexData;
+    private List<String> totalPlayersList;
+    private Set<String> totalPlayers;
+    private long dataVersion;
+    private long loadingVersion;
+    private StatsSnapshot stats;
+    private Set<String> selectedPlayers;
+    private PlayerStatsIndex selectedPlayersStats;
+    private boolean isCleared;
+
+    private Observer<DataBundle> dataBundleObserver = new Observer<DataBundle>() {
+        @Override
+        /*
+           Reads the changes of the given data bundle if it is newer than the
+           data of the tabs and than the bundle that is being read
+         */
+        public void onChanged(DataBundle bundle) {
+            if (bundle != null &&
+                    bundle.getVersion() > Math.max(dataVersion, loadingVersion)) {
+                loadChanges(bundle);
+            }
+        }
+    };
+
+    /*
+       The data of the tabs, which is loaded on a background thread and then
+       handed to the main thread
+       When changes of a new data bundle are loaded, the total players and the
+       search index are null if the total players didn't change, and only the
+       stats of the players in the snapshot of the user's players are read
+     */
+    private static class LoadedData {
+        long version;
+        List<String> totalPlayersList;
+        Set<String> totalPlayers;
+        PlayerSearchIndex searchIndex;
+        StatsSnapshot stats;
+        Set<String> selectedPlayers;
+        PlayerStatsIndex selectedPlayersStats;
+        Map<String, PlayerStats> selectedPlayersStatsMap;
+        boolean isSelectedPlayersError;
+        boolean isDataError;
+    }
 
     /*
        Constructs a TabsViewModel with the given Application reference
-       Retrieves saved data and initializes the data for the views
-       Initializes the observable data to empty values
+       Starts loading the saved data from the app's PlayerRepository in the
+       background
+       The observable data has no value until the data is loaded
+       If the saved data can't be read, the tabs get only the user's players,
+       so they don't wait for the data forever
      */
     public TabsViewModel(@NonNull Application application) {
         super(application);
-        fileManager = new FileManager(application);
-        totalPlayers = fileManager.readTotalPlayers();
-        statsMap = fileManager.readPlayerStats();
-        selectedPlayers = fileManager.readSelectedPlayers();
-        selectedPlayersStats = new ArrayList<>();
-        if (!statsMap.isEmpty()) {
-            for (String player : selectedPlayers) {
-                PlayerStats playerStats = statsMap.get(player);
-                selectedPlayersStats.add(playerStats);
+        repository = PlayerRepository.getInstance(application);
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "TabsViewModel");
+                thread.setDaemon(true);
+                return thread;
             }
-        }
-        Collections.sort(selectedPlayersStats, Collections.reverseOrder());
-        addedPlayer = new MutableLiveData<>();
-        removedPlayer = new MutableLiveData<>();
+        });
+        mainHandler = new Handler(Looper.getMainLooper());
+        selectedPlayersData = new MutableLiveData<>();
+        selectedPlayersStatsData = new MutableLiveData<>();
+        searchIndexData = new MutableLiveData<>();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                LoadedData loadedData;
+                try {
+                    loadedData = loadData();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    loadedData = loadSelectedPlayers();
+                }
+                final LoadedData data = loadedData;
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onDataLoaded(data);
+                    }
+                });
+            }
+        });
     }
 
     /*
-       Returns a list of the user's selected players
+       Returns a LiveData containing a list of the user's selected players, in
+       the order they were added
+       The list is replaced with a new list whenever the players change
      */
-    public List<String> getSelectedPlayers() {
-        return selectedPlayers;
+    public LiveData<List<String>> getSelectedPlayers() {
+        return selectedPlayersData;
     }
 
     /*
-       Returns a list of all the players the user can add
+       Returns a LiveData containing a list of the user's selected players,
+       each with the PlayerStats object of the player
+       Each player is represented by name followed by ranking in parenthesis
+       The list is sorted in descending order, and is replaced with a new list
+       whenever the stats change
      */
-    public List<String> getTotalPlayers() {
-        return totalPlayers;
+    public LiveData<List<Map.Entry<String, PlayerStats>>> getSelectedPlayersStats() {
+        return selectedPlayersStatsData;
     }
 
     /*
-       Returns a list of PlayerStats objects corresponding to each of the
-       user's selected players
-       The list is sorted in descending order
+       Returns a LiveData containing the search index of all the players the
+       user can add
      */
-    public List<PlayerStats> getSelectedPlayersStats() {
-        return selectedPlayersStats;
+    public LiveData<PlayerSearchIndex> getSearchIndex() {
+        return searchIndexData;
     }
 
     /*
-       Returns a MutableLiveData containing the player that was added
+       Returns true if the saved data was loaded
      */
-    public MutableLiveData<String> getAddedPlayer() {
-        return addedPlayer;
+    public boolean isLoaded() {
+        return selectedPlayers != null;
     }
 
     /*
-       Returns a MutableLiveData containing the player that was removed
+       Returns true if the given player is one of the players the user can add
+       Returns false if the data is not loaded yet
      */
-    public MutableLiveData<String> getRemovedPlayer() {
-        return removedPlayer;
+    public boolean isTotalPlayer(String player) {
+        return isLoaded() && totalPlayers.contains(player);
+    }
+
+    /*
+       Returns true if the given player is one of the user's selected players
+       Returns false if the data is not loaded yet
+     */
+    public boolean isSelectedPlayer(String player) {
+        return isLoaded() && selectedPlayers.contains(player);
     }
 
     /*
        Adds the given player to the list of the user's players and saves the
-       list
-       Sets the value of addedPlayer to the player so the change will be
-       observed
+       list in the background
+       Adds the player's stats to the stats list, unless there are no stats for
+       the player, such as when the player's page could not be fetched
+       Does nothing if the data is not loaded yet
      */
     public void addPlayer(String player) {
-        addedPlayer.setValue(player);
+        if (!isLoaded()) {
+            return;
+        }
         selectedPlayers.add(player);
-        fileManager.storeSelectedPlayers(selectedPlayers);
+        repository.setSelectedPlayers(new ArrayList<>(selectedPlayers));
+        PlayerStats playerStats = stats == null ? null : stats.get(player);
+        if (playerStats != null) {
+            selectedPlayersStats.put(player, playerStats);
+        }
+        publishSelectedPlayers();
     }
 
     /*
-       Adds a PlayerStats object that corresponds to the given player into the
-       PlayerStats list
-       The list remains sorted
+       Removes the given player and their stats from the lists of the user's
+       players and saves the list in the background
+       Does nothing if the data is not loaded yet
      */
-    public void addPlayerStats(String player) {
-        PlayerStats playerStats = statsMap.get(player);
-        selectedPlayersStats.add(playerStats);
-        Collections.sort(selectedPlayersStats, Collections.reverseOrder());
+    public void removePlayer(String player) {
+        if (!isLoaded()) {
+            return;
+        }
+        selectedPlayers.remove(player);
+        repository.setSelectedPlayers(new ArrayList<>(selectedPlayers));
+        selectedPlayersStats.remove(player);
+        publishSelectedPlayers();
     }
 
     /*
-       Removes the given player from the list of the user's players
-       Sets the value of removedPlayer to the player so the change will be
-       observed
+       Stores the changes to the list of the user's players that are waiting
+       to be saved, and waits until they are stored
      */
-    public void removePlayer(String player) {
-        removedPlayer.setValue(player);
-        selectedPlayers.remove(player);
-        fileManager.storeSelectedPlayers(selectedPlayers);
+    public void flushSelectedPlayers() {
+        repository.flushSelectedPlayers();
+    }
+
+    /*
+       Called when the ViewModel is no longer used
+       Stops loading the data and observing new data, and stores the changes
+       to the list of the user's players that are waiting to be saved
+     */
+    @Override
+    protected void onCleared() {
+        isCleared = true;
+        repository.getObservableDataBundle().removeObserver(dataBundleObserver);
+        executor.shutdownNow();
+        repository.flushSelectedPlayers();
     }
 
     /*
-       Removes the PlayerStats object that corresponds to the given player from
-       the PlayerStats list
-       The list remains sorted
+       Reads the saved data from the app's PlayerRepository, and builds the
+       sorted stats of the user's players and the search index of the total
+       players
+       Only the stats of the user's players are read
+       Runs on the background thread
      */
-    public void removePlayerStats(String player) {
-        int size = selectedPlayersStats.size();
-        for (int i = 0; i < size; i++) {
-            PlayerStats playerStats = selectedPlayersStats.get(i);
-            String name = playerStats.getName();
-            String fullRanking = playerStats.getRanking();
-            String ranking = fullRanking.substring(fullRanking.indexOf(":") + 2);
-            String playerAtIndex = name + " (" + ranking + ")";
-            if (playerAtIndex.equals(player)) {
-                selectedPlayersStats.remove(i);
-                break;
+    private LoadedData loadData() {
+        LoadedData data = new LoadedData();
+        DataBundle bundle = repository.getDataBundle();
+        List<String> totalPlayers = bundle == null ?
+                Collections.<String>emptyList() : bundle.getTotalPlayers();
+        data.version = bundle == null ? 0 : bundle.getVersion();
+        data.totalPlayersList = totalPlayers;
+        data.totalPlayers = new HashSet<>(totalPlayers);
+        data.searchIndex = new PlayerSearchIndex(totalPlayers);
+        data.stats = bundle == null ? null : bundle.getStats();
+        data.selectedPlayers = new LinkedHashSet<>(repository.getSelectedPlayers());
+        data.isSelectedPlayersError = repository.isSelectedPlayersError();
+        data.selectedPlayersStats = new PlayerStatsIndex();
+        if (data.stats != null) {
+            for (Map.Entry<String, PlayerStats> entry :
+                    data.stats.getAll(data.selectedPlayers).entrySet()) {
+                data.selectedPlayersStats.put(entry.getKey(), entry.getValue());
             }
         }
+        return data;
+    }
+
+    /*
+       Returns loaded data with the user's players and no other players or
+       stats, for when the saved data can't be read
+       The version of the data is 0, so the changes of the current bundle are
+       read again once it is observed
+       Runs on the background thread
+     */
+    private LoadedData loadSelectedPlayers() {
+        LoadedData data = new LoadedData();
+        List<String> totalPlayers = Collections.emptyList();
+        data.totalPlayersList = totalPlayers;
+        data.totalPlayers = new HashSet<>(totalPlayers);
+        data.searchIndex = new PlayerSearchIndex(totalPlayers);
+        data.selectedPlayers = new LinkedHashSet<>(repository.getSelectedPlayers());
+        data.isSelectedPlayersError = repository.isSelectedPlayersError();
+        data.selectedPlayersStats = new PlayerStatsIndex();
+        data.isDataError = true;
+        return data;
+    }
+
+    /*
+       Makes the given loaded data the data of the tabs and updates the
+       observers
+       Shows a message if the saved data or the saved list of the user's
+       players couldn't be read
+       Runs on the main thread
+     */
+    private void onDataLoaded(LoadedData data) {
+        if (isCleared) {
+            return;
+        }
+        dataVersion = data.version;
+        totalPlayersList = data.totalPlayersList;
+        totalPlayers = data.totalPlayers;
+        stats = data.stats;
+        selectedPlayers = data.selectedPlayers;
+        selectedPlayersStats = data.selectedPlayersStats;
+        searchIndexData.setValue(data.searchIndex);
+        publishSelectedPlayers();
+        if (data.isSelectedPlayersError) {
+            Toast.makeText(getApplication(),
+                    "There was a problem with getting saved players",
+                    Toast.LENGTH_LONG).show();
+        } else if (data.isDataError) {
+            Toast.makeText(getApplication(),
+                    "There was a problem with getting the players' stats",
+                    Toast.LENGTH_LONG).show();
+        }
+        repository.getObservableDataBundle().observeForever(dataBundleObserver);
+    }
+
+    /*
+       Reads the changes of the given data bundle on the background thread
+       and applies them on the main thread
+       The stats of the players that are the user's players now are read, and
+       the search index is rebuilt only if the total players changed
+       If the changes can't be read, the data of the tabs is kept, and the
+       bundle is read again if it is observed again
+     */
+    private void loadChanges(final DataBundle bundle) {
+        loadingVersion = bundle.getVersion();
+        final List<String> players = new ArrayList<>(selectedPlayers);
+        final List<String> previousTotalPlayers = totalPlayersList;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final LoadedData data = new LoadedData();
+                data.version = bundle.getVersion();
+                try {
+                    data.stats = bundle.getStats();
+                    data.selectedPlayersStatsMap = data.stats.getAll(players);
+                    List<String> totalPlayers = bundle.getTotalPlayers();
+                    if (!totalPlayers.equals(previousTotalPlayers)) {
+                        data.totalPlayersList = totalPlayers;
+                        data.totalPlayers = new HashSet<>(totalPlayers);
+                        data.searchIndex = new PlayerSearchIndex(totalPlayers);
+                    }
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            onChangesFailed(data.version);
+                        }
+                    });
+                    return;
+                }
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onChangesLoaded(data, players);
+                    }
+                });
+            }
+        });
+    }
+
+    /*
+       Called when the changes of the data bundle with the given version
+       couldn't be read, so that bundle can be read again
+       Runs on the main thread
+     */
+    private void onChangesFailed(long version) {
+        if (loadingVersion == version) {
+            loadingVersion = dataVersion;
+        }
+    }
+
+    /*
+       Applies the changes of a new data bundle, which were read for the given
+       players, to the data of the tabs and updates the observers
+       Players that were added since the changes were read are looked up in
+       the new stats
+       Does nothing if newer changes were already applied
+       Runs on the main thread
+     */
+    private void onChangesLoaded(LoadedData data, List<String> players) {
+        if (isCleared || data.version <= dataVersion) {
+            return;
+        }
+        dataVersion = data.version;
+        stats = data.stats;
+        if (data.searchIndex != null) {
+            totalPlayersList = data.totalPlayersList;
+            totalPlayers = data.totalPlayers;
+            searchIndexData.setValue(data.searchIndex);
+        }
+        Map<String, PlayerStats> newStats = data.selectedPlayersStatsMap;
+        Set<String> readPlayers = new HashSet<>(players);
+        for (String player : selectedPlayers) {
+            if (!readPlayers.contains(player)) {
+                PlayerStats playerStats = stats.get(player);
+                if (playerStats != null) {
+                    newStats.put(player, playerStats);
+                }
+            }
+        }
+        if (selectedPlayersStats.update(selectedPlayers, newStats)) {
+            selectedPlayersStatsData.setValue(selectedPlayersStats.toList());
+        }
+    }
+
+    /*
+       Sets new lists of the user's players and their stats to the observable
+       data
+     */
+    private void publishSelectedPlayers() {
+        selectedPlayersData.setValue(new ArrayList<>(selectedPlayers));
+        selectedPlayersStatsData.setValue(selectedPlayersStats.toList());
     }
 
 }
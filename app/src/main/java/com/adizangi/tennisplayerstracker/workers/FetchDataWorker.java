@@ -1,136 +1,173 @@
 /*
    A background task that fetches data from the web and has progress that is
    observable by the UI
+   The data is fetched by a chain of these tasks: RankingsWorker fetches the
+   rankings and schedules, PlayerShardWorker fetches the stats of one shard of
+   the players, and MergeDataWorker stores the results in the app's files
+   The progress of each stage is saved in a FetchCheckpoint, and the metrics
+   of each stage are added to the current run in the RunHistory
  */
 
 package com.adizangi.tennisplayerstracker.workers;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.adizangi.tennisplayerstracker.R;
-import com.adizangi.tennisplayerstracker.network_calls.NotificationFetcher;
-import com.adizangi.tennisplayerstracker.network_calls.PlayerStatsFetcher;
-import com.adizangi.tennisplayerstracker.network_calls.TotalPlayersFetcher;
-import com.adizangi.tennisplayerstracker.utils_data.FileManager;
-import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
-
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-
-import java.io.IOException;
+import com.adizangi.tennisplayerstracker.network_calls.FetchMetrics;
+import com.adizangi.tennisplayerstracker.network_calls.PageCache;
+import com.adizangi.tennisplayerstracker.network_calls.PageLoader;
+import com.adizangi.tennisplayerstracker.utils_data.BackgroundManager;
+import com.adizangi.tennisplayerstracker.utils_data.FetchCheckpoint;
+import com.adizangi.tennisplayerstracker.utils_data.RunHistory;
+
+import java.io.File;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.List;
-import java.util.Locale;
-import java.util.Map;
 
 import androidx.annotation.NonNull;
+import androidx.preference.PreferenceManager;
 import androidx.work.Data;
 import androidx.work.Worker;
 import androidx.work.WorkerParameters;
 
-public class FetchDataWorker extends Worker {
+public abstract class FetchDataWorker extends Worker {
 
     public static final String PROGRESS_KEY = "progress";
 
-    private Document mRankings;
-    private Document wRankings;
-    private Document tSchedule;
-    private Document ySchedule;
+    protected static final int NUM_OF_FETCH_THREADS = 8;
+
+    private static final String PAGE_CACHE_DIRECTORY = "pages";
+    private static final long PAGE_CACHE_MIN_SIZE = 40 * 1024 * 1024;
+    private static final long PAGE_CACHE_SIZE_PER_PLAYER = 200 * 1024;
+    private static final long PAGE_CACHE_MAX_SIZE = 100 * 1024 * 1024;
+
+    private static PageCache pageCache;
+
+    private PageLoader pageLoader;
+    private FetchCheckpoint checkpoint;
+    private FetchMetrics metrics;
 
     /*
        Constructs a FetchDataWorker with the given context and worker params
+       Pages are kept in a cache in the app's cache directory, so pages that
+       didn't change since the last run are not downloaded again
+       The cache is shared by all the workers that run at the same time, and
+       is big enough for the pages of the rankings depth selected in Settings
      */
     public FetchDataWorker(@NonNull Context context,
                            @NonNull WorkerParameters workerParams) {
         super(context, workerParams);
+        pageLoader = new PageLoader(getPageCache(context, getRankingsDepth()));
+        checkpoint = new FetchCheckpoint(context);
+        metrics = new FetchMetrics();
+        pageLoader.setMetrics(metrics);
     }
 
     /*
-       Fetches the data in the background and saves it in files
-       Updates the observable progress while the work is running
-       After the data is saved, schedules another worker that sends a
-       notification
+       Fetches this worker's part of the data in the background and saves it
+       in the checkpoint or in files
        Returns Result.success() if the work was successful, Result.retry() if
        the work failed due to a problem with the network, and Result.failure()
        if the work failed for another reason
+       When the work is retried, it continues from the checkpoint
+       The time of the work is recorded as a stage with getStageName(), and
+       the metrics are added to the current run whatever the result is
+       If the work failed and the input data contains
+       BackgroundManager.RESCHEDULE_KEY, schedules the next data refresh,
+       since the rest of the chain won't run
      */
     @NonNull
     @Override
     public Result doWork() {
+        long startTime = SystemClock.elapsedRealtime();
+        Result result;
         try {
-            setProgress(0); log("FetchDataWorker starting work");
-            saveTime(); // method for debugging
-            getHTMLDocuments();
-            setProgress(10);
-            TotalPlayersFetcher playersFetcher =
-                    new TotalPlayersFetcher(mRankings, wRankings);
-            PlayerStatsFetcher statsFetcher =
-                    new PlayerStatsFetcher(mRankings, wRankings);
-            NotificationFetcher notifFetcher =
-                    new NotificationFetcher(tSchedule, ySchedule);
-            List<String> totalPlayers = playersFetcher.getTotalPlayersList();
-            setProgress(40); log("Got total players list");
-            Map<String, PlayerStats> stats = statsFetcher.getPlayerStatsMap();
-            setProgress(70); log("Got player stats map");
-            String notificationText = notifFetcher.getNotificationText();
-            setProgress(99); log("Got notification text");
-            FileManager fileManager = new FileManager(getApplicationContext());
-            fileManager.storeTotalPlayers(totalPlayers);
-            fileManager.storePlayerStats(stats);
-            fileManager.storeNotificationText(notificationText);
-            log("Stored data in files");
-            setProgress(100);
+            setProgress(0); log(getClass().getSimpleName() + " starting work");
+            result = fetchData();
             setIsRetrying(false);
-            log("FetchDataWorker done");
-            return Result.success();
+            log(getClass().getSimpleName() + " done");
         } catch (UnknownHostException | SocketException | SocketTimeoutException e) {
             e.printStackTrace();
             setIsRetrying(true);
-            return Result.retry();
+            metrics.recordRetry();
+            result = Result.retry();
         } catch (Exception e) {
             e.printStackTrace();
             setIsRetrying(false);
-            return Result.failure();
+            result = Result.failure();
+        }
+        metrics.addStageTime(getStageName(), SystemClock.elapsedRealtime() - startTime);
+        metrics.finish();
+        RunHistory runHistory = new RunHistory(getApplicationContext());
+        runHistory.addToCurrentRun(metrics);
+        if (metrics.isComplete() || result instanceof Result.Failure) {
+            /* This was the last stage, or the rest of the chain won't run */
+            runHistory.finishCurrentRun();
         }
+        if (result instanceof Result.Failure &&
+                getInputData().getBoolean(BackgroundManager.RESCHEDULE_KEY, false)) {
+            new BackgroundManager(getApplicationContext()).scheduleDailyUpdates();
+        }
+        return result;
     }
 
     /*
-       Gets HTML Documents that the data will be taken from
-       The Documents include men's tennis rankings, women's tennis rankings,
-       today's match schedule, and yesterday's match schedule from the ESPN
-       website
+       Fetches this worker's part of the data
+       Should set the progress to 100 when the work is done
+       May throw an exception, and a network exception causes a retry
      */
-    private void getHTMLDocuments() throws IOException {
-        Calendar calendar = Calendar.getInstance();
-        calendar.add(Calendar.DATE, -1);
-        SimpleDateFormat dateFormat =
-                new SimpleDateFormat("yyyyMMdd", Locale.US);
-        String dateOfYesterday = dateFormat.format(calendar.getTime());
-        mRankings = Jsoup.connect
-                ("https://www.espn.com/tennis/rankings/_/season/2020").get();
-        log("Got men's rankings document");
-        wRankings = Jsoup.connect
-                ("https://www.espn.com/tennis/rankings/_/type/wta/season/2020").get();
-        log("Got women's rankings document");
-        tSchedule = Jsoup.connect
-                ("http://www.espn.com/tennis/dailyResults").get();
-        log("Got today's schedule document");
-        ySchedule = Jsoup.connect
-                ("http://www.espn.com/tennis/dailyResults?date=" +
-                        dateOfYesterday).get();
-        log("Got yesterday's schedule document");
+    protected abstract Result fetchData() throws Exception;
+
+    /*
+       Returns the name that the time of this worker is recorded under in the
+       metrics of the run
+     */
+    protected abstract String getStageName();
+
+    /*
+       Returns the PageLoader that pages should be loaded with
+     */
+    protected PageLoader getPageLoader() {
+        return pageLoader;
+    }
+
+    /*
+       Returns the checkpoint of the current data refresh
+     */
+    protected FetchCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    /*
+       Returns the metrics of this worker, which are added to the current run
+       when the work is done
+     */
+    protected FetchMetrics getMetrics() {
+        return metrics;
+    }
+
+    /*
+       Returns the number of players to track from each ranking, which is
+       selected in Settings
+     */
+    protected int getRankingsDepth() {
+        Context context = getApplicationContext();
+        SharedPreferences preferences =
+                PreferenceManager.getDefaultSharedPreferences(context);
+        String depth = preferences.getString(
+                context.getString(R.string.pref_rankings_depth_key),
+                context.getString(R.string.pref_rankings_depth_default));
+        return Integer.parseInt(depth);
     }
 
     /*
        Sets the observable progress to the given progress percentage
      */
-    private void setProgress(int progressPercentage) {
+    protected void setProgress(int progressPercentage) {
         Data progress = new Data.Builder()
                 .putInt(PROGRESS_KEY, progressPercentage)
                 .build();
@@ -140,7 +177,7 @@ public class FetchDataWorker extends Worker {
     /*
        Writes the given message to the logcat
      */
-    private void log(String msg) {
+    protected void log(String msg) {
         Log.i(getApplicationContext().getString(R.string.fetching_data_log), msg);
     }
 
@@ -156,12 +193,27 @@ public class FetchDataWorker extends Worker {
                 context.getString(R.string.is_worker_retrying_key), value).apply();
     }
 
-    private void saveTime() {
-        SharedPreferences sharedPrefs = getApplicationContext()
-                .getSharedPreferences("Time file", Context.MODE_PRIVATE);
-        Calendar calendar = Calendar.getInstance();
-        sharedPrefs.edit().putInt("Hour", calendar.get(Calendar.HOUR_OF_DAY)).apply();
-        sharedPrefs.edit().putInt("Minute", calendar.get(Calendar.MINUTE)).apply();
+    /*
+       Returns the page cache in the app's cache directory, and creates it if
+       it wasn't created yet
+       The maximum size of the cache has room for the pages of the men's and
+       women's players up to the given rankings depth, but is never more than
+       PAGE_CACHE_MAX_SIZE, which fits the pages of a depth of 250
+       The cache is in the app's cache directory, so it shouldn't take a big
+       part of the device's storage, and at bigger depths the pages that don't
+       fit are downloaded without revalidation as before the cache
+     */
+    private static synchronized PageCache getPageCache(Context context,
+                                                       int rankingsDepth) {
+        long maxSize = Math.min(PAGE_CACHE_MAX_SIZE, Math.max(PAGE_CACHE_MIN_SIZE,
+                2L * rankingsDepth * PAGE_CACHE_SIZE_PER_PLAYER));
+        if (pageCache == null) {
+            File cacheDirectory = new File(context.getCacheDir(), PAGE_CACHE_DIRECTORY);
+            pageCache = new PageCache(cacheDirectory, maxSize);
+        } else {
+            pageCache.setMaxSize(maxSize);
+        }
+        return pageCache;
     }
 
 }
@@ -0,0 +1,81 @@
+/*
+   The last stage of the data refresh
+   Merges the results of the player shards and stores all the fetched data in
+   one data bundle, then clears the checkpoint
+   If the data can't be stored, the checkpoint is kept so the stage can be
+   retried without fetching the data again
+ */
+
+package com.adizangi.tennisplayerstracker.workers;
+
+import android.content.Context;
+
+import com.adizangi.tennisplayerstracker.network_calls.RankingsIndex;
+import com.adizangi.tennisplayerstracker.network_calls.TotalPlayersFetcher;
+import com.adizangi.tennisplayerstracker.utils_data.FetchCheckpoint;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerRepository;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.work.WorkerParameters;
+
+public class MergeDataWorker extends FetchDataWorker {
+
+    /*
+       Constructs a MergeDataWorker with the given context and worker params
+     */
+    public MergeDataWorker(@NonNull Context context,
+                           @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @Override
+    protected String getStageName() {
+        return "Storing data";
+    }
+
+    /*
+       Reads the results of the earlier stages from the checkpoint and stores
+       them in the app's files, and marks the run as complete
+       Returns Result.failure() if one of the results is missing, and
+       Result.retry() if the data can't be stored
+     */
+    @Override
+    protected Result fetchData() {
+        FetchCheckpoint checkpoint = getCheckpoint();
+        RankingsIndex rankingsIndex = checkpoint.readRankingsIndex();
+        String notificationText = checkpoint.readNotificationText();
+        if (rankingsIndex == null || notificationText == null) {
+            log("The checkpoint is missing the rankings or notification text");
+            return Result.failure();
+        }
+        Map<String, PlayerStats> stats = new HashMap<>();
+        for (int shard = 0; shard < PlayerShardWorker.NUM_OF_SHARDS; shard++) {
+            Map<String, PlayerStats> shardStats = checkpoint.readShardStats(shard);
+            if (shardStats == null) {
+                log("The checkpoint is missing shard " + shard);
+                return Result.failure();
+            }
+            stats.putAll(shardStats);
+        }
+        TotalPlayersFetcher playersFetcher = new TotalPlayersFetcher(rankingsIndex);
+        try {
+            PlayerRepository.getInstance(getApplicationContext()).storeData(
+                    playersFetcher.getTotalPlayersList(), stats, notificationText);
+        } catch (IOException e) {
+            e.printStackTrace();
+            log("Couldn't store the data bundle");
+            return Result.retry();
+        }
+        log("Stored data bundle");
+        checkpoint.clear();
+        getMetrics().markComplete();
+        setProgress(100);
+        return Result.success();
+    }
+
+}
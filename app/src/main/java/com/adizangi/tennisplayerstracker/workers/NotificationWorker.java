@@ -11,11 +11,11 @@ import android.content.Intent;
 import com.adizangi.tennisplayerstracker.R;
 import com.adizangi.tennisplayerstracker.activities.MainActivity;
 import com.adizangi.tennisplayerstracker.utils_data.BackgroundManager;
-import com.adizangi.tennisplayerstracker.utils_data.FileManager;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerRepository;
 import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
+import com.adizangi.tennisplayerstracker.utils_data.StatsSnapshot;
 
 import java.util.List;
-import java.util.Map;
 
 import androidx.annotation.NonNull;
 import androidx.core.app.NotificationCompat;
@@ -25,7 +25,7 @@ import androidx.work.WorkerParameters;
 
 public class NotificationWorker extends Worker {
 
-    private FileManager fileManager;
+    private PlayerRepository repository;
     private BackgroundManager backgroundManager;
 
     /*
@@ -34,14 +34,14 @@ public class NotificationWorker extends Worker {
     public NotificationWorker(@NonNull Context context,
                               @NonNull WorkerParameters workerParams) {
         super(context, workerParams);
-        fileManager = new FileManager(context);
+        repository = PlayerRepository.getInstance(context);
         backgroundManager = new BackgroundManager(context);
     }
 
     /*
        If a notification should be sent today based on the selections in
-       Settings, and if the notification text that was fetched in
-       FetchDataWorker is not empty, sends a notification containing that text
+       Settings, and if the notification text that was fetched by the
+       RankingsWorker is not empty, sends a notification containing that text
        If the input data contains BackgroundManager.RESCHEDULE_KEY, schedules
        the next data refresh
     */
@@ -50,11 +50,11 @@ public class NotificationWorker extends Worker {
     public Result doWork() {
         final int NOTIFICATION_ID = 1;
         Context context = getApplicationContext();
-        String contentText = fileManager.readNotificationText();
-        List<String> selectedPlayers = fileManager.readSelectedPlayers();
-        Map<String, PlayerStats> stats = fileManager.readPlayerStats();
+        String contentText = repository.getNotificationText();
+        List<String> selectedPlayers = repository.getSelectedPlayers();
+        StatsSnapshot stats = repository.getStats();
         if (backgroundManager.isNotificationEnabled() &&
-                !contentText.isEmpty() && !stats.isEmpty()) {
+                !contentText.isEmpty() && stats != null && !stats.isEmpty()) {
             contentText = addMatchesToContent(contentText, selectedPlayers, stats);
             Intent intent = new Intent(context, MainActivity.class);
             PendingIntent pendingIntent = PendingIntent
@@ -78,10 +78,11 @@ public class NotificationWorker extends Worker {
     /*
       For each of the user's selected players that has an upcoming match today,
       adds details about that match to the notification text
+      Only the stats of the selected players are read from the snapshot
     */
     private String addMatchesToContent(String currentContent,
                                        List<String> selectedPlayers,
-                                       Map<String, PlayerStats> stats) {
+                                       StatsSnapshot stats) {
         StringBuilder upcomingMatches = new StringBuilder();
         for (String player : selectedPlayers) {
             PlayerStats playerStats = stats.get(player);
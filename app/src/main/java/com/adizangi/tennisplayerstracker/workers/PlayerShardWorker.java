@@ -0,0 +1,128 @@
+/*
+   A stage of the data refresh that fetches the stats of one shard of the
+   players in the rankings
+   The shards of a refresh run at the same time, and the result of each shard
+   is saved in the checkpoint for MergeDataWorker
+ */
+
+package com.adizangi.tennisplayerstracker.workers;
+
+import android.content.Context;
+
+import com.adizangi.tennisplayerstracker.network_calls.PlayerStatsFetcher;
+import com.adizangi.tennisplayerstracker.network_calls.RankingsIndex;
+import com.adizangi.tennisplayerstracker.utils_data.FetchCheckpoint;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerRepository;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
+import com.adizangi.tennisplayerstracker.utils_data.StatsSnapshot;
+
+import org.jsoup.nodes.Document;
+
+import java.io.IOException;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.work.WorkerParameters;
+
+public class PlayerShardWorker extends FetchDataWorker {
+
+    public static final String SHARD_KEY = "shard";
+    public static final int NUM_OF_SHARDS = 4;
+
+    private final int shard;
+    private IOException storeError;
+
+    /*
+       Constructs a PlayerShardWorker with the given context and worker params
+       The input data should contain the shard number with SHARD_KEY
+     */
+    public PlayerShardWorker(@NonNull Context context,
+                             @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+        shard = getInputData().getInt(SHARD_KEY, 0);
+    }
+
+    @Override
+    protected String getStageName() {
+        return "Player shard " + shard;
+    }
+
+    /*
+       Fetches the stats of the players in this worker's shard and saves them
+       in the checkpoint
+       The user's selected players are fetched first, and their stats are
+       stored right away so the Stats tab can show them early
+       Players that were fetched in an earlier attempt are not fetched again
+       Returns Result.retry() if the stats of the user's players can't be
+       stored, so the next attempt continues from the checkpoint
+     */
+    @Override
+    protected Result fetchData() throws IOException {
+        final FetchCheckpoint checkpoint = getCheckpoint();
+        if (checkpoint.readShardStats(shard) != null) {
+            log("Shard " + shard + " was already fetched");
+            setProgress(100);
+            return Result.success();
+        }
+        RankingsIndex rankingsIndex = checkpoint.readRankingsIndex();
+        Document[] schedules = checkpoint.readSchedules();
+        if (rankingsIndex == null || schedules == null) {
+            log("Shard " + shard + " has no rankings in the checkpoint");
+            return Result.failure();
+        }
+        final PlayerRepository repository =
+                PlayerRepository.getInstance(getApplicationContext());
+        PlayerStatsFetcher statsFetcher = new PlayerStatsFetcher(rankingsIndex,
+                getPageLoader(), NUM_OF_FETCH_THREADS / NUM_OF_SHARDS);
+        statsFetcher.setShard(shard, NUM_OF_SHARDS);
+        statsFetcher.setCompletedStats(checkpoint.readPlayerStats(shard));
+        statsFetcher.setOnPlayerFetchedListener(
+                new PlayerStatsFetcher.OnPlayerFetchedListener() {
+            @Override
+            public void onPlayerFetched(String player, PlayerStats playerStats) {
+                checkpoint.appendPlayerStats(shard, player, playerStats);
+            }
+        });
+        statsFetcher.setPriorityPlayers(repository.getSelectedPlayers(),
+                new PlayerStatsFetcher.OnPriorityPlayersFetchedListener() {
+            @Override
+            /*
+               Stores the new stats of the user's players in this shard
+               together with the stats that are already stored, so the Stats
+               tab can show them before all the players are fetched
+             */
+            public void onPriorityPlayersFetched(Map<String, PlayerStats> stats)
+                    throws IOException {
+                try {
+                    repository.addPlayerStats(stats);
+                } catch (IOException e) {
+                    storeError = e;
+                    throw e;
+                }
+                setProgress(50);
+                log("Stored stats of selected players");
+            }
+        });
+        StatsSnapshot storedStats = repository.getStats();
+        Map<String, PlayerStats> previousStats =
+                storedStats == null ? null : storedStats.readAll();
+        Map<String, PlayerStats> stats;
+        try {
+            stats = statsFetcher.getPlayerStatsMap(
+                    previousStats, schedules[0], schedules[1]);
+        } catch (IOException e) {
+            if (e != storeError) {
+                throw e;
+            }
+            e.printStackTrace();
+            log("Couldn't store the stats of selected players");
+            return Result.retry();
+        }
+        log("Got stats of shard " + shard + ", fetched " +
+                statsFetcher.getNumOfFetchedPages() + " player pages");
+        checkpoint.storeShardStats(shard, stats);
+        setProgress(100);
+        return Result.success();
+    }
+
+}
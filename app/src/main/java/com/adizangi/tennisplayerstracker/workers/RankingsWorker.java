@@ -0,0 +1,112 @@
+/*
+   The first stage of the data refresh
+   Fetches the men's and women's rankings, today's and yesterday's match
+   schedules, and the text for today's notification, and saves them in the
+   checkpoint for the next stages
+ */
+
+package com.adizangi.tennisplayerstracker.workers;
+
+import android.content.Context;
+
+import com.adizangi.tennisplayerstracker.network_calls.NotificationFetcher;
+import com.adizangi.tennisplayerstracker.network_calls.RankedPlayer;
+import com.adizangi.tennisplayerstracker.network_calls.RankingsExtractor;
+import com.adizangi.tennisplayerstracker.network_calls.RankingsIndex;
+import com.adizangi.tennisplayerstracker.utils_data.FetchCheckpoint;
+
+import org.jsoup.nodes.Document;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+
+import androidx.annotation.NonNull;
+import androidx.work.WorkerParameters;
+
+public class RankingsWorker extends FetchDataWorker {
+
+    /*
+       Constructs a RankingsWorker with the given context and worker params
+     */
+    public RankingsWorker(@NonNull Context context,
+                          @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @Override
+    protected String getStageName() {
+        return "Rankings and schedules";
+    }
+
+    /*
+       Fetches the rankings, the schedules and the notification text, unless
+       they are already in today's checkpoint
+     */
+    @Override
+    protected Result fetchData() throws IOException {
+        FetchCheckpoint checkpoint = getCheckpoint();
+        checkpoint.discardIfStale();
+        Document[] schedules = checkpoint.readSchedules();
+        if (checkpoint.readRankingsIndex() == null || schedules == null) {
+            List<RankedPlayer> mRankings = getRankings
+                    ("https://www.espn.com/tennis/rankings/_/season/2020");
+            log("Got men's rankings");
+            List<RankedPlayer> wRankings = getRankings
+                    ("https://www.espn.com/tennis/rankings/_/type/wta/season/2020");
+            log("Got women's rankings");
+            setProgress(30);
+            schedules = getSchedules();
+            checkpoint.storeRankingsIndex(
+                    new RankingsIndex(mRankings, wRankings, getRankingsDepth()));
+            checkpoint.storeSchedules(schedules[0], schedules[1]);
+        } else {
+            log("Resumed rankings and schedules from checkpoint");
+        }
+        setProgress(60);
+        if (checkpoint.readNotificationText() == null) {
+            NotificationFetcher notifFetcher =
+                    new NotificationFetcher(schedules[0], schedules[1],
+                            getPageLoader(), NUM_OF_FETCH_THREADS);
+            checkpoint.storeNotificationText(notifFetcher.getNotificationText());
+            log("Got notification text");
+        }
+        setProgress(100);
+        return Result.success();
+    }
+
+    /*
+       Returns the top players from the rankings that start at the page with
+       the given URL, up to the depth that is selected in Settings
+       The next pages of the rankings are followed until there are enough
+       players, and only the part of the last page up to the last needed
+       player is read
+     */
+    private List<RankedPlayer> getRankings(String url) throws IOException {
+        RankingsExtractor extractor = new RankingsExtractor(getRankingsDepth());
+        return extractor.extractPages(getPageLoader(), url);
+    }
+
+    /*
+       Returns the HTML documents of today's match schedule and yesterday's
+       match schedule from the ESPN website, in this order
+     */
+    private Document[] getSchedules() throws IOException {
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.DATE, -1);
+        SimpleDateFormat dateFormat =
+                new SimpleDateFormat("yyyyMMdd", Locale.US);
+        String dateOfYesterday = dateFormat.format(calendar.getTime());
+        Document tSchedule = getPageLoader().load
+                ("http://www.espn.com/tennis/dailyResults");
+        log("Got today's schedule document");
+        Document ySchedule = getPageLoader().load
+                ("http://www.espn.com/tennis/dailyResults?date=" +
+                        dateOfYesterday);
+        log("Got yesterday's schedule document");
+        return new Document[]{tSchedule, ySchedule};
+    }
+
+}
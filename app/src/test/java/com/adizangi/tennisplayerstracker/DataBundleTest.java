@@ -0,0 +1,97 @@
+/*
+   Test for DataBundle class
+   Tests writing a bundle file and reading each of its sections, and that a
+   bundle that is open keeps its data after a new bundle replaces the file
+ */
+
+package com.adizangi.tennisplayerstracker;
+
+import com.adizangi.tennisplayerstracker.utils_data.DataBundle;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class DataBundleTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReadingSections() throws IOException {
+        File file = new File(folder.getRoot(), "bundle");
+        List<String> totalPlayers = Arrays.asList("Rafael Nadal (ATP)",
+                "Iga Świątek (WTA)");
+        DataBundle.write(file, 3, totalPlayers, newStats("Rafael Nadal (ATP)", 2),
+                "Today-\nRoland Garros- Final\n");
+        DataBundle bundle = DataBundle.open(file);
+        assertEquals(3, bundle.getVersion());
+        assertEquals(totalPlayers, bundle.getTotalPlayers());
+        assertEquals("Today-\nRoland Garros- Final\n", bundle.getNotificationText());
+        assertEquals(2,
+                bundle.getStats().get("Rafael Nadal (ATP)").getRanking());
+        assertEquals(1, bundle.getStats().size());
+        try {
+            bundle.getTotalPlayers().add("Player (ATP)");
+            fail("Modified the total players of a bundle");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void testReplacingBundle() throws IOException {
+        File file = new File(folder.getRoot(), "bundle");
+        DataBundle.write(file, 1, Arrays.asList("Player1 (ATP)"),
+                newStats("Player1 (ATP)", 1), "Old");
+        DataBundle oldBundle = DataBundle.open(file);
+        DataBundle.write(file, 2, Arrays.asList("Player1 (ATP)", "Player2 (ATP)"),
+                newStats("Player1 (ATP)", 5), "New");
+        DataBundle newBundle = DataBundle.open(file);
+        assertEquals(1, oldBundle.getVersion());
+        assertEquals("Old", oldBundle.getNotificationText());
+        assertEquals(1, oldBundle.getTotalPlayers().size());
+        assertEquals(1,
+                oldBundle.getStats().get("Player1 (ATP)").getRanking());
+        assertEquals(2, newBundle.getVersion());
+        assertEquals("New", newBundle.getNotificationText());
+        assertEquals(2, newBundle.getTotalPlayers().size());
+        assertEquals(5,
+                newBundle.getStats().get("Player1 (ATP)").getRanking());
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void testInvalidFile() throws IOException {
+        File file = folder.newFile("invalid");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write("Not a data bundle, but long enough for a header".getBytes("UTF-8"));
+        out.close();
+        try {
+            DataBundle.open(file);
+            fail("Opened a file that is not a bundle");
+        } catch (IOException expected) {
+        }
+    }
+
+    private Map<String, PlayerStats> newStats(String player, int ranking) {
+        Map<String, PlayerStats> stats = new HashMap<>();
+        stats.put(player, new PlayerStats(player, ranking, 2020, 0,
+                PlayerStats.Standing.OUT, "Final", 7, "Roland Garros",
+                "Final- Novak Djokovic 6-0 6-2 6-3", ""));
+        return stats;
+    }
+
+}
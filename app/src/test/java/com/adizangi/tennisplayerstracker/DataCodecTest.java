@@ -0,0 +1,172 @@
+/*
+   Test for DataCodec class
+   Tests that the stats map and the player lists are read back the same as
+   they were written, with and without compression, and that the reader skips
+   fields it doesn't know and rejects data from a newer version
+ */
+
+package com.adizangi.tennisplayerstracker;
+
+import com.adizangi.tennisplayerstracker.utils_data.DataCodec;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DataCodecTest {
+
+    @Test
+    public void testStringList() throws IOException {
+        List<String> players = Arrays.asList(
+                "Rafael Nadal (ATP)", "Simona Halep (WTA)", "Dominic Thiem (ATP)",
+                "Iga Świątek (WTA)", "");
+        for (boolean deflate : new boolean[]{false, true}) {
+            byte[] data = encode(players, deflate);
+            assertTrue(DataCodec.isEncoded(data));
+            assertEquals(players, DataCodec.readStringList(data));
+        }
+        assertEquals(new ArrayList<String>(),
+                DataCodec.readStringList(encode(new ArrayList<String>(), false)));
+    }
+
+    @Test
+    public void testPlayerStats() throws IOException {
+        Map<String, PlayerStats> stats = new HashMap<>();
+        stats.put("Rafael Nadal (ATP)", new PlayerStats("Rafael Nadal",
+                2, 2020, 2, PlayerStats.Standing.WINNER, "Final", 7,
+                "Roland Garros", "Final- Novak Djokovic 6-0 6-2 6-3", ""));
+        stats.put("Iga Świątek (WTA)", new PlayerStats("Iga Świątek",
+                17, 0, PlayerStats.UNKNOWN_TITLES, PlayerStats.Standing.ADVANCED,
+                "Quarterfinal", 5, "Roland Garros",
+                "Round of 16- Simona Halep 6-1 6-2", "Iga Świątek 7:00 AM ET"));
+        for (boolean deflate : new boolean[]{false, true}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            DataCodec.writePlayerStats(out, stats, deflate);
+            Map<String, PlayerStats> read =
+                    DataCodec.readPlayerStats(out.toByteArray());
+            assertEquals(stats.keySet(), read.keySet());
+            for (String player : stats.keySet()) {
+                assertSameStats(stats.get(player), read.get(player));
+            }
+        }
+    }
+
+    @Test
+    public void testCompression() throws IOException {
+        List<String> players = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            players.add("Player Number" + i + " (ATP)");
+        }
+        assertTrue(encode(players, true).length < encode(players, false).length / 2);
+    }
+
+    @Test
+    public void testSkippingUnknownFields() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(new byte[]{'T', 'P', 'T', 'D', 1, 0, 2});
+        out.write(1);
+        writeString(out, "Rafael Nadal (ATP)");
+        writeField(out, 1, "Rafael Nadal");
+        writeField(out, 42, "A field from a newer version");
+        writeField(out, 4, "out");
+        out.write(0);
+        PlayerStats stats = DataCodec.readPlayerStats(out.toByteArray())
+                .get("Rafael Nadal (ATP)");
+        assertEquals("Rafael Nadal", stats.getName());
+        assertEquals(PlayerStats.Standing.OUT, stats.getStanding());
+        assertEquals(0, stats.getRanking());
+        assertEquals("", stats.getUpcomingMatch());
+    }
+
+    @Test
+    public void testReadingTextFields() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(new byte[]{'T', 'P', 'T', 'D', 1, 0, 2});
+        out.write(1);
+        writeString(out, "Iga Świątek (WTA)");
+        writeField(out, 1, "Iga Świątek");
+        writeField(out, 2, "Current ranking: 17");
+        writeField(out, 3, "2020 singles titles: 1");
+        writeField(out, 4, "advanced to Quarterfinal");
+        writeField(out, 5, "Roland Garros");
+        out.write(0);
+        PlayerStats stats = DataCodec.readPlayerStats(out.toByteArray())
+                .get("Iga Świątek (WTA)");
+        assertEquals(17, stats.getRanking());
+        assertEquals(2020, stats.getTitlesYear());
+        assertEquals(1, stats.getTitles());
+        assertEquals(PlayerStats.Standing.ADVANCED, stats.getStanding());
+        assertEquals("Quarterfinal", stats.getRound());
+        assertEquals("advanced to Quarterfinal", stats.getStandingText());
+        assertEquals("Roland Garros", stats.getCurrentTournament());
+    }
+
+    @Test
+    public void testInvalidData() throws IOException {
+        byte[] data = encode(Arrays.asList("Rafael Nadal (ATP)"), false);
+        try {
+            DataCodec.readPlayerStats(data);
+            fail("Read a player list as stats");
+        } catch (IOException expected) {
+        }
+        data[4] = (byte) (DataCodec.VERSION + 1);
+        try {
+            DataCodec.readStringList(data);
+            fail("Read data from a newer version");
+        } catch (IOException expected) {
+        }
+        byte[] truncated = Arrays.copyOf(
+                encode(Arrays.asList("Rafael Nadal (ATP)"), false), 12);
+        try {
+            DataCodec.readStringList(truncated);
+            fail("Read truncated data");
+        } catch (IOException expected) {
+        }
+        assertFalse(DataCodec.isEncoded(new byte[]{(byte) 0xAC, (byte) 0xED, 0, 5}));
+    }
+
+    private byte[] encode(List<String> list, boolean deflate) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataCodec.writeStringList(out, list, deflate);
+        return out.toByteArray();
+    }
+
+    private void writeString(ByteArrayOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeField(ByteArrayOutputStream out, int tag, String value)
+            throws IOException {
+        out.write(tag);
+        writeString(out, value);
+    }
+
+    private void assertSameStats(PlayerStats expected, PlayerStats actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getRanking(), actual.getRanking());
+        assertEquals(expected.getTitlesYear(), actual.getTitlesYear());
+        assertEquals(expected.getTitles(), actual.getTitles());
+        assertEquals(expected.getStanding(), actual.getStanding());
+        assertEquals(expected.getRound(), actual.getRound());
+        assertEquals(expected.getRoundNumber(), actual.getRoundNumber());
+        assertEquals(expected.getCurrentTournament(), actual.getCurrentTournament());
+        assertEquals(expected.getLatestMatchResult(), actual.getLatestMatchResult());
+        assertEquals(expected.getUpcomingMatch(), actual.getUpcomingMatch());
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+   Test for FetchCheckpoint class
+   Tests that a checkpoint keeps the stats of the players that were fetched
+   and the results of the shards, and that it can be cleared
+   Runs with Robolectric to use app storage without running the app
+ */
+
+package com.adizangi.tennisplayerstracker;
+
+import android.content.Context;
+
+import com.adizangi.tennisplayerstracker.utils_data.FetchCheckpoint;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+public class FetchCheckpointTest {
+
+    private Context context;
+
+    @Before
+    public void setup() {
+        context = ApplicationProvider.getApplicationContext();
+        new FetchCheckpoint(context).clear();
+    }
+
+    @Test
+    public void testPlayerStats() {
+        FetchCheckpoint checkpoint = new FetchCheckpoint(context);
+        checkpoint.appendPlayerStats(0, "playerName1 (1)", createPlayerStats("playerName1"));
+        checkpoint.appendPlayerStats(0, "playerName2 (2)", createPlayerStats("playerName2"));
+        checkpoint.appendPlayerStats(1, "playerName3 (3)", createPlayerStats("playerName3"));
+        /* A checkpoint from the same day is not discarded */
+        FetchCheckpoint resumedCheckpoint = new FetchCheckpoint(context);
+        resumedCheckpoint.discardIfStale();
+        Map<String, PlayerStats> stats = resumedCheckpoint.readPlayerStats(0);
+        assertEquals(2, stats.size());
+        assertEquals("playerName2", stats.get("playerName2 (2)").getName());
+        assertEquals(1, checkpoint.readPlayerStats(1).size());
+    }
+
+    @Test
+    public void testShardStats() {
+        FetchCheckpoint checkpoint = new FetchCheckpoint(context);
+        assertNull(checkpoint.readShardStats(0));
+        Map<String, PlayerStats> stats = new HashMap<>();
+        stats.put("playerName1 (1)", createPlayerStats("playerName1"));
+        checkpoint.storeShardStats(0, stats);
+        assertEquals(1, checkpoint.readShardStats(0).size());
+        assertNull(checkpoint.readShardStats(1));
+    }
+
+    @Test
+    public void testClear() {
+        FetchCheckpoint checkpoint = new FetchCheckpoint(context);
+        checkpoint.appendPlayerStats(0, "playerName1 (1)", createPlayerStats("playerName1"));
+        checkpoint.storeNotificationText("Notification Text");
+        assertEquals("Notification Text", checkpoint.readNotificationText());
+        checkpoint.storeShardStats(0, new HashMap<String, PlayerStats>());
+        checkpoint.clear();
+        assertEquals(0, checkpoint.readPlayerStats(0).size());
+        assertNull(checkpoint.readShardStats(0));
+        assertNull(checkpoint.readNotificationText());
+        assertNull(checkpoint.readRankingsIndex());
+        assertNull(checkpoint.readSchedules());
+    }
+
+    private PlayerStats createPlayerStats(String name) {
+        return new PlayerStats(
+                name,
+                1,
+                2020,
+                1,
+                PlayerStats.Standing.ADVANCED,
+                "2nd Round",
+                2,
+                "French Open",
+                "1st Round- Player 6-3, 6-3",
+                name + " 3:00 PM ET");
+    }
+
+}
@@ -1,7 +1,17 @@
 /*
    Test for TotalPlayersFetcher, PlayerStatsFetcher, and NotificationFetcher
    Prints the data fetched by the classes so it can be compared to the ESPN website
-   Prints the total time taken to fetch the data
+   Prints the time taken to fetch the player stats and the notification, and
+   the total time taken to fetch the data
+   By default the pages are fetched from the ESPN website
+   With -Despn.record=<archive>, the fetched pages are also recorded into the
+   given zip archive, and the date of yesterday's schedule is stored as the
+   comment of the archive
+   With -Despn.replay=<archive>, the pages are served from the given archive
+   by a local ReplayServer instead, which makes the times repeatable offline,
+   and -Despn.latency=<milliseconds> sets the latency of each response
+   When replaying, yesterday's schedule is requested with the date that was
+   stored in the archive, so the replay works on any day
  */
 
 package com.adizangi.tennisplayerstracker;
@@ -9,11 +19,15 @@ package com.adizangi.tennisplayerstracker;
 import android.util.Log;
 
 import com.adizangi.tennisplayerstracker.network_calls.NotificationFetcher;
+import com.adizangi.tennisplayerstracker.network_calls.PageLoader;
+import com.adizangi.tennisplayerstracker.network_calls.PageRecorder;
+import com.adizangi.tennisplayerstracker.network_calls.RankedPlayer;
+import com.adizangi.tennisplayerstracker.network_calls.RankingsExtractor;
+import com.adizangi.tennisplayerstracker.network_calls.RankingsIndex;
 import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
 import com.adizangi.tennisplayerstracker.network_calls.PlayerStatsFetcher;
 import com.adizangi.tennisplayerstracker.network_calls.TotalPlayersFetcher;
 
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -21,6 +35,7 @@ import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.io.File;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
@@ -34,8 +49,13 @@ import static org.junit.Assert.fail;
 @PrepareForTest({Log.class})
 public class FetchDataTest {
 
-    private Document mRankings;
-    private Document wRankings;
+    private static final int NUM_OF_FETCH_THREADS = 8;
+
+    private PageLoader pageLoader;
+    private PageRecorder recorder;
+    private ReplayServer replayServer;
+    private String dateOfYesterday;
+    private RankingsIndex rankingsIndex;
     private Document tSchedule;
     private Document ySchedule;
 
@@ -45,6 +65,7 @@ public class FetchDataTest {
         try {
             System.out.println("---------------- Test for Fetching Data ----------------");
             System.out.println();
+            createPageLoader();
             long startTime = System.nanoTime();
             fetchHTMLDocuments();
             fetchTotalPlayers();
@@ -55,25 +76,69 @@ public class FetchDataTest {
         } catch (Exception e) {
             e.printStackTrace();
             fail();
+        } finally {
+            closePageLoader();
         }
     }
 
-    private void fetchHTMLDocuments() throws IOException {
+    private void createPageLoader() throws IOException {
         Calendar calendar = Calendar.getInstance();
         calendar.add(Calendar.DATE, -1);
         SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd", Locale.US);
-        String dateOfYesterday = dateFormat.format(calendar.getTime());
-        mRankings = Jsoup.connect("https://www.espn.com/tennis/rankings").get();
-        wRankings = Jsoup.connect("https://www.espn.com/tennis/rankings/_/type/wta").get();
-        tSchedule = Jsoup.connect("http://www.espn.com/tennis/dailyResults").get();
-        ySchedule = Jsoup.connect("http://www.espn.com/tennis/dailyResults?date=" +
-                dateOfYesterday).get();
+        dateOfYesterday = dateFormat.format(calendar.getTime());
+        pageLoader = new PageLoader();
+        String recordArchive = System.getProperty("espn.record");
+        String replayArchive = System.getProperty("espn.replay");
+        if (recordArchive != null) {
+            recorder = new PageRecorder(new File(recordArchive));
+            recorder.setComment(dateOfYesterday);
+            pageLoader.setRecorder(recorder);
+            System.out.println("Recording pages into " + recordArchive);
+        } else if (replayArchive != null) {
+            long latency = Long.parseLong(System.getProperty("espn.latency", "0"));
+            replayServer = new ReplayServer(new File(replayArchive), latency);
+            replayServer.start();
+            pageLoader.setBaseURL(replayServer.getBaseURL());
+            if (replayServer.getComment() != null) {
+                dateOfYesterday = replayServer.getComment();
+            }
+            System.out.println("Replaying pages from " + replayArchive +
+                    " with latency (ms): " + latency);
+        }
+        System.out.println();
+    }
+
+    private void closePageLoader() {
+        try {
+            if (recorder != null) {
+                recorder.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (replayServer != null) {
+            System.out.println("Requests replayed: " + replayServer.getNumOfRequests());
+            replayServer.stop();
+        }
+    }
+
+    private void fetchHTMLDocuments() throws IOException {
+        String mRankingsURL = "https://www.espn.com/tennis/rankings";
+        String wRankingsURL = "https://www.espn.com/tennis/rankings/_/type/wta";
+        List<RankedPlayer> mRankings = new RankingsExtractor(100)
+                .extract(pageLoader.openStream(mRankingsURL), mRankingsURL);
+        List<RankedPlayer> wRankings = new RankingsExtractor(100)
+                .extract(pageLoader.openStream(wRankingsURL), wRankingsURL);
+        rankingsIndex = new RankingsIndex(mRankings, wRankings, 100);
+        tSchedule = pageLoader.load("http://www.espn.com/tennis/dailyResults");
+        ySchedule = pageLoader.load("http://www.espn.com/tennis/dailyResults?date=" +
+                dateOfYesterday);
     }
 
     private void fetchTotalPlayers() {
         System.out.println("---------- Total Players Fetcher ----------");
         System.out.println();
-        TotalPlayersFetcher fetcher = new TotalPlayersFetcher(mRankings, wRankings);
+        TotalPlayersFetcher fetcher = new TotalPlayersFetcher(rankingsIndex);
         List<String> totalPlayers = fetcher.getTotalPlayersList();
         System.out.println("List (size = " + totalPlayers.size() + "):");
         for (String player : totalPlayers) {
@@ -86,8 +151,13 @@ public class FetchDataTest {
     private void fetchPlayerStats() throws IOException {
         System.out.println("---------- Player Stats Fetcher ----------");
         System.out.println();
-        PlayerStatsFetcher fetcher = new PlayerStatsFetcher(mRankings, wRankings);
+        PlayerStatsFetcher fetcher = new PlayerStatsFetcher(
+                rankingsIndex, pageLoader, NUM_OF_FETCH_THREADS);
+        long startTime = System.nanoTime();
         Map<String, PlayerStats> statsMap = fetcher.getPlayerStatsMap();
+        long estimatedTime = System.nanoTime() - startTime;
+        System.out.println("Time with " + NUM_OF_FETCH_THREADS + " threads (seconds): " +
+                (estimatedTime / 1000000000.0));
         System.out.println("Some items from map (size = " + statsMap.size() + "):");
         int i = 0;
         for (String player : statsMap.keySet()) {
@@ -98,9 +168,9 @@ public class FetchDataTest {
             System.out.println(player);
             PlayerStats stats = statsMap.get(player);
             System.out.println("Name: " + stats.getName());
-            System.out.println("Ranking: " + stats.getRanking());
-            System.out.println("Titles: " + stats.getTitles());
-            System.out.println("Standing: " + stats.getTournamentStanding());
+            System.out.println("Ranking: " + stats.getRankingText());
+            System.out.println("Titles: " + stats.getTitlesText());
+            System.out.println("Standing: " + stats.getStandingText());
             System.out.println("Tournament: " + stats.getCurrentTournament());
             System.out.println("Result: " + stats.getLatestMatchResult());
             System.out.println("Upcoming match: " + stats.getUpcomingMatch());
@@ -112,8 +182,13 @@ public class FetchDataTest {
     private void fetchNotification() throws IOException {
         System.out.println("---------- Notification Fetcher ----------");
         System.out.println();
-        NotificationFetcher fetcher = new NotificationFetcher(tSchedule, ySchedule);
+        NotificationFetcher fetcher = new NotificationFetcher(tSchedule, ySchedule,
+                pageLoader, NUM_OF_FETCH_THREADS);
+        long startTime = System.nanoTime();
         String notificationText = fetcher.getNotificationText();
+        long estimatedTime = System.nanoTime() - startTime;
+        System.out.println("Time with " + NUM_OF_FETCH_THREADS + " threads (seconds): " +
+                (estimatedTime / 1000000000.0));
         System.out.println("Text:\n" + notificationText);
         System.out.println();
     }
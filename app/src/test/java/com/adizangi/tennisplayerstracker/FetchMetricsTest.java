@@ -0,0 +1,72 @@
+/*
+   Test for FetchMetrics class
+   Tests recording pages into the latency histogram, merging the metrics of
+   several workers, and the percentiles that the metrics screen shows
+ */
+
+package com.adizangi.tennisplayerstracker;
+
+import com.adizangi.tennisplayerstracker.network_calls.FetchMetrics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FetchMetricsTest {
+
+    @Test
+    public void testRecordingPages() {
+        FetchMetrics metrics = new FetchMetrics();
+        assertEquals(-1, metrics.getLatencyPercentile(0.5));
+        for (int i = 0; i < 18; i++) {
+            metrics.recordPage(30, 1000, false);
+        }
+        metrics.recordPage(150, 0, true);
+        metrics.recordPage(10000, 2000, false);
+        assertEquals(20, metrics.getPagesFetched());
+        assertEquals(1, metrics.getCacheHits());
+        assertEquals(20000, metrics.getBytesDownloaded());
+        assertEquals(50, metrics.getLatencyPercentile(0.5));
+        assertEquals(200, metrics.getLatencyPercentile(0.95));
+        assertEquals(Long.MAX_VALUE, metrics.getLatencyPercentile(1));
+    }
+
+    @Test
+    public void testMerging() {
+        FetchMetrics run = new FetchMetrics();
+        FetchMetrics firstShard = new FetchMetrics();
+        firstShard.addStageTime("Player shard 0", 400);
+        firstShard.addParsingTime(100);
+        firstShard.recordPage(60, 500, false);
+        FetchMetrics secondShard = new FetchMetrics();
+        secondShard.addStageTime("Player shard 1", 300);
+        secondShard.addParsingTime(50);
+        secondShard.recordRetry();
+        secondShard.markComplete();
+        run.merge(firstShard);
+        run.merge(secondShard);
+        assertEquals(150, run.getParsingMillis());
+        assertEquals(2, run.getStageMillis().size());
+        assertEquals(1, run.getPagesFetched());
+        assertEquals(1, run.getRetries());
+        assertTrue(run.isComplete());
+    }
+
+    @Test
+    public void testPercentile() {
+        List<Long> times = new ArrayList<>();
+        assertEquals(-1, FetchMetrics.percentile(times, 0.5));
+        for (long time = 20; time >= 1; time--) {
+            times.add(time * 100);
+        }
+        assertEquals(1000, FetchMetrics.percentile(times, 0.5));
+        assertEquals(1900, FetchMetrics.percentile(times, 0.95));
+        assertEquals(700, FetchMetrics.percentile(Arrays.asList(700L), 0.95));
+    }
+
+}
@@ -1,6 +1,7 @@
 /*
    Test for FileManager class
-   Tests storing and reading files with the FileManager class
+   Tests storing and reading files with the FileManager class, and reading
+   the user's players when they were not stored or can't be read
    Runs with Robolectric to use app resources without running the app
  */
 
@@ -18,6 +19,8 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -25,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 @RunWith(RobolectricTestRunner.class)
 public class FileManagerTest {
@@ -42,21 +46,27 @@ public class FileManagerTest {
         PlayerStats playerStats1 =
                 new PlayerStats(
                         "playerName1",
-                        "1",
-                        "1",
-                        "advanced to 2nd round",
+                        1,
+                        2020,
+                        1,
+                        PlayerStats.Standing.ADVANCED,
+                        "2nd Round",
+                        2,
                         "French Open",
-                        "won 6-3, 6-3",
-                        "3pm ET");
+                        "1st Round- Player 6-3, 6-3",
+                        "playerName1 3:00 PM ET");
         PlayerStats playerStats2 =
                 new PlayerStats(
                         "playerName2",
-                        "2",
-                        "1",
-                        "advanced to 2nd round",
+                        2,
+                        2020,
+                        1,
+                        PlayerStats.Standing.ADVANCED,
+                        "2nd Round",
+                        2,
                         "French Open",
-                        "won 6-3, 6-3",
-                        "3pm ET");
+                        "1st Round- Player 6-3, 6-3",
+                        "playerName2 3:00 PM ET");
         stats = new HashMap<>();
         stats.put("player1", playerStats1);
         stats.put("player2", playerStats2);
@@ -64,25 +74,43 @@ public class FileManagerTest {
     }
 
     @Test
-    public void testFileManager() {
+    public void testFileManager() throws IOException {
         Context context = ApplicationProvider.getApplicationContext();
         fileManager = new FileManager(context);
         storeFiles();
         readFiles();
     }
 
-    private void storeFiles() {
+    @Test
+    public void testSelectedPlayersErrors() throws IOException {
+        Context context = ApplicationProvider.getApplicationContext();
+        fileManager = new FileManager(context);
+        assertEquals(new ArrayList<String>(), fileManager.readSelectedPlayers());
+        FileOutputStream out = context.openFileOutput("selected_players",
+                Context.MODE_PRIVATE);
+        out.write(new byte[] {1, 2, 3});
+        out.close();
+        assertNull(fileManager.readSelectedPlayers());
+    }
+
+    private void storeFiles() throws IOException {
         fileManager.storeSelectedPlayers(myPlayers);
-        fileManager.storeTotalPlayers(totalPlayers);
-        fileManager.storePlayerStats(stats);
-        fileManager.storeNotificationText(notificationText);
+        fileManager.storeData(totalPlayers, stats, notificationText);
     }
 
-    private void readFiles() {
+    private void readFiles() throws IOException {
         assertEquals(myPlayers, fileManager.readSelectedPlayers());
         assertEquals(totalPlayers, fileManager.readTotalPlayers());
         assertEquals(stats.size(), fileManager.readPlayerStats().size());
+        assertEquals("playerName2",
+                fileManager.openPlayerStats().get("player2").getName());
         assertEquals(notificationText, fileManager.readNotificationText());
+        long version = fileManager.readDataBundle().getVersion();
+        stats.remove("player1");
+        assertEquals(version + 1, fileManager.storeData(totalPlayers, stats, "")
+                .getVersion());
+        assertEquals(1, fileManager.readPlayerStats().size());
+        assertEquals("", fileManager.readNotificationText());
     }
 
 }
@@ -0,0 +1,109 @@
+/*
+   Test for NotificationFetcher class
+   Tests that a tournament that is in the schedules of both days is fetched
+   once, and that both days' summaries are built from the same page
+ */
+
+package com.adizangi.tennisplayerstracker;
+
+import com.adizangi.tennisplayerstracker.network_calls.NotificationFetcher;
+import com.adizangi.tennisplayerstracker.network_calls.PageLoader;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class NotificationFetcherTest {
+
+    private static final String SCHEDULE_URL = "http://www.espn.com/tennis/dailyResults";
+    private static final String ROME_URL = SCHEDULE_URL + "?tournamentId=740";
+    private static final String KITZBUHEL_URL = SCHEDULE_URL + "?tournamentId=212";
+
+    @Test
+    public void testSharedTournamentPage() throws IOException {
+        Map<String, String> pages = new HashMap<>();
+        pages.put(ROME_URL, "<html><head><title>Rome Daily Match Schedule - ESPN</title></head>" +
+                "<body><div class=\"matchCourt\">Men's Singles - Final: Campo Centrale</div>" +
+                "<div class=\"matchTitle\">Final: 7:00 PM ET - Campo Centrale</div>" +
+                "<table><tr><td>Player</td></tr>" +
+                "<tr><td><div class=\"arrowWrapper\"></div>Novak Djokovic</td></tr>" +
+                "<tr><td>Diego Schwartzman</td></tr></table>" +
+                "<table><tr><td>Sets</td></tr><tr><td>7-5 6-3</td></tr>" +
+                "<tr><td>5-7 3-6</td></tr></table></body></html>");
+        pages.put(KITZBUHEL_URL, "<html><head><title>Kitzbuhel Daily Match Schedule - ESPN" +
+                "</title></head><body><div class=\"matchCourt\">Men's Singles - Quarterfinal: " +
+                "Center Court</div></body></html>");
+        RecordingPageLoader pageLoader = new RecordingPageLoader(pages);
+        /* Rome is in both schedules */
+        Document ySchedule = newSchedule("Rome", ROME_URL);
+        Document tSchedule = newSchedule("Rome", ROME_URL, "Kitzbuhel", KITZBUHEL_URL);
+        NotificationFetcher fetcher = new NotificationFetcher(tSchedule, ySchedule, pageLoader, 2);
+        String notification = fetcher.getNotificationText();
+        List<String> requestedURLs = pageLoader.getRequestedURLs();
+        Collections.sort(requestedURLs);
+        assertEquals(Arrays.asList(KITZBUHEL_URL, ROME_URL), requestedURLs);
+        assertEquals("Yesterday-\n" +
+                "Novak Djokovic won the Rome against Diego Schwartzman 7-5 6-3\n" +
+                "Today-\n" +
+                "Kitzbuhel- Men's Singles - Quarterfinal\n" +
+                "Rome final- Novak Djokovic vs. Diego Schwartzman at 7:00 PM ET\n",
+                notification);
+    }
+
+    /*
+       Returns a schedule document with the given tournaments, each given as a
+       name followed by the URL of the tournament's page
+     */
+    private Document newSchedule(String... tournaments) {
+        StringBuilder html = new StringBuilder();
+        for (int i = 0; i < tournaments.length; i += 2) {
+            html.append("<div class=\"scoreHeadline\"><a href=\"")
+                    .append(tournaments[i + 1]).append("\">")
+                    .append(tournaments[i]).append("</a></div>");
+        }
+        return Jsoup.parse(html.toString(), SCHEDULE_URL);
+    }
+
+    /*
+       A PageLoader that records the URLs of the pages it is asked to load,
+       and parses the given HTML of each page
+     */
+    private static class RecordingPageLoader extends PageLoader {
+
+        private final List<String> requestedURLs = new ArrayList<>();
+        private final Map<String, String> pages;
+
+        RecordingPageLoader(Map<String, String> pages) {
+            this.pages = pages;
+        }
+
+        @Override
+        public Document load(String url) throws IOException {
+            synchronized (requestedURLs) {
+                requestedURLs.add(url);
+            }
+            String page = pages.get(url);
+            if (page == null) {
+                throw new IOException("No page for " + url);
+            }
+            return Jsoup.parse(page, url);
+        }
+
+        List<String> getRequestedURLs() {
+            synchronized (requestedURLs) {
+                return new ArrayList<>(requestedURLs);
+            }
+        }
+    }
+
+}
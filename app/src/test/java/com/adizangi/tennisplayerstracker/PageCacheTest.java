@@ -0,0 +1,85 @@
+/*
+   Test for PageCache class
+   Tests storing and reading pages, and removing the least recently used pages
+   when the cache is full, including pages that were stored before the cache
+   was created
+ */
+
+package com.adizangi.tennisplayerstracker;
+
+import com.adizangi.tennisplayerstracker.network_calls.PageCache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class PageCacheTest {
+
+    private static final String BODY = "<html><body>page</body></html>";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testStoringPages() throws IOException {
+        File directory = folder.newFolder("pages");
+        PageCache cache = new PageCache(directory, 1024 * 1024);
+        assertNull(cache.get("http://www.espn.com/page"));
+        cache.put("http://www.espn.com/page", "http://www.espn.com/page",
+                "\"etag\"", null, BODY);
+        assertNotNull(cache.get("http://www.espn.com/page"));
+    }
+
+    @Test
+    public void testRemovingLeastRecentlyUsed() throws IOException {
+        File directory = folder.newFolder("pages");
+        /* Room for two pages, but not for three, also after trimming */
+        PageCache cache = new PageCache(directory, 160);
+        cache.put("http://a", "http://a", "", "", BODY);
+        cache.put("http://b", "http://b", "", "", BODY);
+        setLastUsed(directory, 1000);
+        cache.get("http://a");
+        cache.put("http://c", "http://c", "", "", BODY);
+        assertNotNull(cache.get("http://a"));
+        assertNull(cache.get("http://b"));
+        assertNotNull(cache.get("http://c"));
+    }
+
+    @Test
+    public void testExistingPages() throws IOException {
+        File directory = folder.newFolder("pages");
+        PageCache cache = new PageCache(directory, 1024 * 1024);
+        cache.put("http://a", "http://a", "", "", BODY);
+        cache.put("http://b", "http://b", "", "", BODY);
+        setLastUsed(directory, 1000);
+        /* Replacing a page doesn't make the cache bigger, so only the least
+           recently used page is deleted */
+        cache = new PageCache(directory, 160);
+        cache.put("http://a", "http://a", "", "", BODY);
+        cache.put("http://a", "http://a", "", "", BODY);
+        cache.put("http://c", "http://c", "", "", BODY);
+        assertNotNull(cache.get("http://a"));
+        assertNull(cache.get("http://b"));
+        assertNotNull(cache.get("http://c"));
+    }
+
+    /*
+       Sets the last used time of all the pages in the given directory to the
+       given time, since the file system's clock may not be precise enough
+     */
+    private void setLastUsed(File directory, long time) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.setLastModified(time);
+            }
+        }
+    }
+
+}
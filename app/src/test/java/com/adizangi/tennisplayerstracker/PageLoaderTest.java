@@ -0,0 +1,169 @@
+/*
+   Test for PageLoader class
+   Tests that a streamed page stops downloading when its stream is closed
+   early and is not cached, and that a streamed page that is read to the end
+   is cached and revalidated with the server
+   The pages are served by a local HTTP server
+ */
+
+package com.adizangi.tennisplayerstracker;
+
+import com.adizangi.tennisplayerstracker.network_calls.FetchMetrics;
+import com.adizangi.tennisplayerstracker.network_calls.PageCache;
+import com.adizangi.tennisplayerstracker.network_calls.PageLoader;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PageLoaderTest {
+
+    private static final int NUM_OF_CHUNKS = 200;
+    private static final int CHUNK_SIZE = 8 * 1024;
+    private static final String PAGE = "<html><body>page</body></html>";
+    private static final String ETAG = "\"v1\"";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+
+    @After
+    public void stopServer() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testClosingStreamEarly() throws Exception {
+        final AtomicBoolean isPageSent = new AtomicBoolean();
+        final CountDownLatch isResponseDone = new CountDownLatch(1);
+        String url = startServer("/slow", new HttpHandler() {
+            @Override
+            /*
+               Sends a big page slowly, in chunks
+             */
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] chunk = new byte[CHUNK_SIZE];
+                Arrays.fill(chunk, (byte) 'a');
+                try {
+                    exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, 0);
+                    OutputStream out = exchange.getResponseBody();
+                    for (int i = 0; i < NUM_OF_CHUNKS; i++) {
+                        out.write(chunk);
+                        out.flush();
+                        Thread.sleep(5);
+                    }
+                    out.close();
+                    isPageSent.set(true);
+                } catch (IOException | InterruptedException e) {
+                    /* The client closed the connection */
+                } finally {
+                    exchange.close();
+                    isResponseDone.countDown();
+                }
+            }
+        });
+        PageCache cache = new PageCache(folder.newFolder("pages"), 10 * 1024 * 1024);
+        PageLoader pageLoader = new PageLoader(cache);
+        FetchMetrics metrics = new FetchMetrics();
+        pageLoader.setMetrics(metrics);
+        InputStream in = pageLoader.openStream(url);
+        byte[] buffer = new byte[1024];
+        assertTrue(in.read(buffer) > 0);
+        in.close();
+        assertTrue(isResponseDone.await(30, TimeUnit.SECONDS));
+        assertFalse(isPageSent.get());
+        assertEquals(1, metrics.getPagesFetched());
+        assertTrue(metrics.getBytesDownloaded() < NUM_OF_CHUNKS * CHUNK_SIZE);
+        assertNull(cache.get(url));
+    }
+
+    @Test
+    public void testCachingStreamedPage() throws IOException {
+        final AtomicInteger numOfPagesSent = new AtomicInteger();
+        String url = startServer("/page", new HttpHandler() {
+            @Override
+            /*
+               Sends the page with an ETag, or Not Modified if the request has
+               the page's ETag
+             */
+            public void handle(HttpExchange exchange) throws IOException {
+                if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, -1);
+                } else {
+                    byte[] page = PAGE.getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("ETag", ETAG);
+                    exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, page.length);
+                    exchange.getResponseBody().write(page);
+                    numOfPagesSent.incrementAndGet();
+                }
+                exchange.close();
+            }
+        });
+        PageCache cache = new PageCache(folder.newFolder("pages"), 1024 * 1024);
+        PageLoader pageLoader = new PageLoader(cache);
+        FetchMetrics metrics = new FetchMetrics();
+        pageLoader.setMetrics(metrics);
+        assertEquals(PAGE, readAll(pageLoader.openStream(url)));
+        assertNotNull(cache.get(url));
+        assertEquals(PAGE, readAll(pageLoader.openStream(url)));
+        assertEquals(1, numOfPagesSent.get());
+        assertEquals(2, metrics.getPagesFetched());
+        assertEquals(1, metrics.getCacheHits());
+        assertEquals(PAGE.length(), metrics.getBytesDownloaded());
+    }
+
+    /*
+       Starts a server on the loopback address that handles the given path
+       with the given handler, and returns the URL of the path
+     */
+    private String startServer(String path, HttpHandler handler) throws IOException {
+        server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(path, handler);
+        server.start();
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort() + path;
+    }
+
+    /*
+       Reads the given stream to the end as UTF-8 text and closes it
+     */
+    private String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int numRead;
+        while ((numRead = in.read(buffer)) != -1) {
+            out.write(buffer, 0, numRead);
+        }
+        in.close();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+}
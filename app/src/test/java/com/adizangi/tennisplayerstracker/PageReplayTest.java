@@ -0,0 +1,64 @@
+/*
+   Test for PageRecorder class and the replay server
+   Tests that pages recorded into an archive are served again by
+   ReplayServer to a PageLoader that is pointed at it
+ */
+
+package com.adizangi.tennisplayerstracker;
+
+import com.adizangi.tennisplayerstracker.network_calls.PageLoader;
+import com.adizangi.tennisplayerstracker.network_calls.PageRecorder;
+
+import org.jsoup.HttpStatusException;
+import org.jsoup.nodes.Document;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class PageReplayTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecordingAndReplaying() throws IOException {
+        File archive = folder.newFile("pages.zip");
+        PageRecorder recorder = new PageRecorder(archive);
+        recorder.record("https://www.espn.com/tennis/dailyResults?date=20200901",
+                "<html><head><title>Results</title></head></html>");
+        recorder.record("http://www.espn.com/tennis/player/_/id/1",
+                "<html><body><h1>Player</h1></body></html>");
+        /* A page that was already recorded is not recorded again */
+        recorder.record("https://www.espn.com/tennis/player/_/id/1",
+                "<html><body><h1>Other</h1></body></html>");
+        recorder.close();
+        ReplayServer server = new ReplayServer(archive, 10);
+        server.start();
+        try {
+            PageLoader pageLoader = new PageLoader();
+            pageLoader.setBaseURL(server.getBaseURL());
+            Document results = pageLoader.load
+                    ("http://www.espn.com/tennis/dailyResults?date=20200901");
+            assertEquals("Results", results.title());
+            Document player = pageLoader.load
+                    ("https://www.espn.com/tennis/player/_/id/1");
+            assertEquals("Player", player.selectFirst("h1").text());
+            try {
+                pageLoader.load("https://www.espn.com/tennis/player/_/id/2");
+                fail();
+            } catch (HttpStatusException e) {
+                assertEquals(404, e.getStatusCode());
+            }
+            assertEquals(3, server.getNumOfRequests());
+        } finally {
+            server.stop();
+        }
+    }
+
+}
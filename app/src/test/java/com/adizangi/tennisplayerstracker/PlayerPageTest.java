@@ -0,0 +1,75 @@
+/*
+   Test for PlayerPage class
+   Tests the stats that are extracted from player pages saved in the test
+   resources, for a player who advanced, a player who is out, and a player
+   who is not playing
+   The extraction time is measured by PlayerStatsBenchmark in the benchmarks
+   module
+ */
+
+package com.adizangi.tennisplayerstracker;
+
+import com.adizangi.tennisplayerstracker.network_calls.PlayerPage;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class PlayerPageTest {
+
+    @Test
+    public void testAdvanced() throws IOException {
+        PlayerStats stats = new PlayerPage(readPage("advanced.html"))
+                .getPlayerStats("Novak Djokovic", 1);
+        assertEquals("Novak Djokovic", stats.getName());
+        assertEquals(1, stats.getRanking());
+        assertEquals(PlayerStats.Standing.ADVANCED, stats.getStanding());
+        assertEquals("Quarterfinal", stats.getRound());
+        assertEquals(4, stats.getRoundNumber());
+        assertEquals("2020 singles titles: 4", stats.getTitlesText());
+        assertEquals("US Open", stats.getCurrentTournament());
+        assertEquals("Round 3- Jan-Lennard Struff 6-3 6-1",
+                stats.getLatestMatchResult());
+    }
+
+    @Test
+    public void testOut() throws IOException {
+        PlayerStats stats = new PlayerPage(readPage("out.html"))
+                .getPlayerStats("Daniil Medvedev", 5);
+        assertEquals(PlayerStats.Standing.OUT, stats.getStanding());
+        assertEquals(3, stats.getRoundNumber());
+        assertEquals("2020 singles titles: 0", stats.getTitlesText());
+        assertEquals("US Open", stats.getCurrentTournament());
+        assertEquals("Semifinal- Dominic Thiem 2-6 6-7 6-7",
+                stats.getLatestMatchResult());
+    }
+
+    @Test
+    public void testNotPlaying() throws IOException {
+        PlayerStats stats = new PlayerPage(readPage("not_playing.html"))
+                .getPlayerStats("Roger Federer", 4);
+        assertEquals(PlayerStats.Standing.NOT_PLAYING, stats.getStanding());
+        assertEquals(0, stats.getRoundNumber());
+        assertEquals("2020 singles titles: 1", stats.getTitlesText());
+        assertEquals("", stats.getCurrentTournament());
+        assertEquals("", stats.getLatestMatchResult());
+    }
+
+    /*
+       Reads the saved player page with the given file name
+     */
+    private Document readPage(String fileName) throws IOException {
+        InputStream in = getClass().getClassLoader()
+                .getResourceAsStream("player_pages/" + fileName);
+        Document document = Jsoup.parse(in, "UTF-8", "https://www.espn.com/tennis/player");
+        in.close();
+        return document;
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+   Test for PlayerRepository class
+   Tests that stored data replaces the repository's current data with a
+   newer version and updates its observers, and that the stats of the user's
+   players can be added to the current data, which is only stored again if
+   the stats changed
+   The repository is shared by the app, so it is tested in one test method
+   Runs with Robolectric to use app resources without running the app
+ */
+
+package com.adizangi.tennisplayerstracker;
+
+import android.content.Context;
+
+import com.adizangi.tennisplayerstracker.utils_data.DataBundle;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerRepository;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
+
+import androidx.lifecycle.LiveData;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+public class PlayerRepositoryTest {
+
+    @Test
+    public void testPlayerRepository() throws IOException {
+        Context context = ApplicationProvider.getApplicationContext();
+        PlayerRepository repository = PlayerRepository.getInstance(context);
+        long version = repository.getVersion();
+        LiveData<DataBundle> observableBundle = repository.getObservableDataBundle();
+        List<String> totalPlayers = Arrays.asList("player1", "player2");
+        repository.storeData(totalPlayers, newStats("player1", 1), "Notification");
+        ShadowLooper.idleMainLooper();
+        DataBundle bundle = repository.getDataBundle();
+        assertEquals(version + 1, bundle.getVersion());
+        assertSame(bundle, observableBundle.getValue());
+        assertSame(bundle, repository.getDataBundle());
+        assertEquals(totalPlayers, repository.getTotalPlayers());
+        assertEquals("Notification", repository.getNotificationText());
+
+        repository.addPlayerStats(newStats("player2", 2));
+        ShadowLooper.idleMainLooper();
+        assertEquals(version + 2, repository.getVersion());
+        assertEquals(2, repository.getStats().size());
+        assertEquals(1,
+                repository.getStats().get("player1").getRanking());
+        assertEquals(totalPlayers, repository.getTotalPlayers());
+        assertSame(repository.getDataBundle(), observableBundle.getValue());
+        repository.addPlayerStats(newStats("player2", 2));
+        assertEquals(version + 2, repository.getVersion());
+
+        repository.setSelectedPlayers(Arrays.asList("player2"));
+        List<String> selectedPlayers = repository.getSelectedPlayers();
+        selectedPlayers.add("player1");
+        assertEquals(Arrays.asList("player2"), repository.getSelectedPlayers());
+        repository.flushSelectedPlayers();
+    }
+
+    private Map<String, PlayerStats> newStats(String player, int ranking) {
+        Map<String, PlayerStats> stats = new HashMap<>();
+        stats.put(player, new PlayerStats(player, ranking, 2020, 0,
+                PlayerStats.Standing.OUT, "Final", 7, "Roland Garros",
+                "Final- Novak Djokovic 6-0 6-2 6-3", ""));
+        return stats;
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+   Test for PlayerSearchIndex class
+   Tests matching the start of any word of a name, matching without accents,
+   queries with more than one word, and the order of the results
+ */
+
+package com.adizangi.tennisplayerstracker;
+
+import com.adizangi.tennisplayerstracker.utils_data.PlayerSearchIndex;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PlayerSearchIndexTest {
+
+    private static final List<String> PLAYERS = Arrays.asList(
+            "Novak Djokovic (1)",
+            "Rafael Nadal (2)",
+            "Dominic Thiém (3)",
+            "Daniil Medvedev (5)",
+            "Iga Świątek (17)",
+            "Félix Auger-Aliassime (21)",
+            "Dominika Cibulková (33)",
+            "Caroline Wozniacki (NR)");
+
+    @Test
+    public void testWordPrefixes() {
+        PlayerSearchIndex index = new PlayerSearchIndex(PLAYERS);
+        assertEquals(Arrays.asList("Rafael Nadal (2)"), index.search("nad", 10));
+        assertEquals(Arrays.asList("Rafael Nadal (2)"), index.search("Raf", 10));
+        assertEquals(Arrays.asList("Félix Auger-Aliassime (21)"),
+                index.search("aliass", 10));
+        assertEquals(Arrays.asList("Rafael Nadal (2)"), index.search("rafael na", 10));
+        assertEquals(Collections.emptyList(), index.search("rafael dj", 10));
+        assertEquals(Collections.emptyList(), index.search(" - ", 10));
+        assertEquals(Collections.emptyList(), index.search("federer", 10));
+    }
+
+    @Test
+    public void testAccents() {
+        PlayerSearchIndex index = new PlayerSearchIndex(PLAYERS);
+        assertEquals(Arrays.asList("Dominic Thiém (3)"), index.search("Thiem", 10));
+        assertEquals(Arrays.asList("Iga Świątek (17)"), index.search("swiat", 10));
+        assertEquals(Arrays.asList("Félix Auger-Aliassime (21)"), index.search("FELIX", 10));
+        assertEquals(Arrays.asList("Dominika Cibulková (33)"), index.search("cibulkova", 10));
+    }
+
+    @Test
+    public void testOrder() {
+        PlayerSearchIndex index = new PlayerSearchIndex(PLAYERS);
+        assertEquals(Arrays.asList("Dominic Thiém (3)", "Dominika Cibulková (33)"),
+                index.search("domin", 10));
+        assertEquals(Arrays.asList("Dominic Thiém (3)"), index.search("domin", 1));
+        /* Names that start with the query come before better ranked players */
+        assertEquals(Arrays.asList("Dominic Thiém (3)", "Daniil Medvedev (5)",
+                "Dominika Cibulková (33)", "Novak Djokovic (1)"), index.search("d", 10));
+        assertEquals(Arrays.asList("Caroline Wozniacki (NR)"), index.search("woz", 10));
+    }
+
+    @Test
+    public void testManyPlayers() {
+        List<String> players = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            players.add("Player" + (i % 100) + " Surname" + i + " (" + i + ")");
+        }
+        PlayerSearchIndex index = new PlayerSearchIndex(players);
+        assertEquals(2000, index.size());
+        assertEquals(Arrays.asList("Player1 Surname1 (1)", "Player10 Surname10 (10)"),
+                index.search("player1", 2));
+        assertEquals(Arrays.asList("Player1 Surname1001 (1001)"),
+                index.search("player1 surname100", 10));
+        assertEquals(Arrays.asList("Player0 Surname1000 (1000)"),
+                index.search("surname1000", 10));
+        List<String> results = index.search("surname1", 20);
+        assertEquals(20, results.size());
+        assertTrue(results.contains("Player1 Surname1 (1)"));
+    }
+
+}
@@ -0,0 +1,285 @@
+/*
+   Test for PlayerStatsFetcher class
+   Tests that a page that can't be read only skips its player, while a
+   network failure fails the whole fetch so it can be retried
+   Tests which players keep their previous stats without fetching their
+   pages, when the previous stats and the schedules are given
+   Tests that the pages of priority players are fetched first, and that
+   their stats are handed over before the other pages are fetched
+ */
+
+package com.adizangi.tennisplayerstracker;
+
+import com.adizangi.tennisplayerstracker.network_calls.PageLoader;
+import com.adizangi.tennisplayerstracker.network_calls.PlayerStatsFetcher;
+import com.adizangi.tennisplayerstracker.network_calls.RankedPlayer;
+import com.adizangi.tennisplayerstracker.network_calls.RankingsIndex;
+
+import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class PlayerStatsFetcherTest {
+
+    private static final String DJOKOVIC_URL = "http://www.espn.com/tennis/player/_/id/296";
+    private static final String NADAL_URL = "http://www.espn.com/tennis/player/_/id/1";
+    private static final String FEDERER_URL = "http://www.espn.com/tennis/player/_/id/425";
+    private static final int CURRENT_YEAR = Calendar.getInstance().get(Calendar.YEAR);
+
+    @Test
+    public void testPageErrors() {
+        PlayerStatsFetcher fetcher = new PlayerStatsFetcher(newRankingsIndex(),
+                new FailingPageLoader(new IOException("Not found")), 1);
+        try {
+            fetcher.getPlayerStatsMap();
+            fail();
+        } catch (IOException e) {
+            /* Every page failed */
+            assertEquals("Not found", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testNetworkError() {
+        PlayerStatsFetcher fetcher = new PlayerStatsFetcher(newRankingsIndex(),
+                new FailingPageLoader(new SocketException("Connection reset")), 2);
+        try {
+            fetcher.getPlayerStatsMap();
+            fail();
+        } catch (IOException e) {
+            assertEquals(SocketException.class, e.getClass());
+        }
+    }
+
+    @Test
+    public void testErrorCause() throws IOException {
+        PlayerStatsFetcher fetcher = new PlayerStatsFetcher(newRankingsIndex(),
+                new FailingPageLoader(new StackOverflowError()), 1);
+        try {
+            fetcher.getPlayerStatsMap();
+            fail();
+        } catch (StackOverflowError e) {
+            /* The error is not turned into a ClassCastException */
+        }
+    }
+
+    @Test
+    public void testSkippingPlayers() throws IOException {
+        RecordingPageLoader pageLoader = new RecordingPageLoader();
+        Map<String, PlayerStats> stats = fetchChanges(pageLoader,
+                newPreviousStats(CURRENT_YEAR), "US Open", "");
+        /* Nadal is playing, so only his page is fetched */
+        assertEquals(Arrays.asList(NADAL_URL), pageLoader.getRequestedURLs());
+        assertEquals(3, stats.size());
+        /* The previous stats are kept with the new ranking */
+        PlayerStats djokovicStats = stats.get("Novak Djokovic (1)");
+        assertEquals(1, djokovicStats.getRanking());
+        assertEquals(PlayerStats.Standing.NOT_PLAYING, djokovicStats.getStanding());
+        assertEquals(3, stats.get("Roger Federer (3)").getTitles());
+    }
+
+    @Test
+    public void testNewTournament() throws IOException {
+        RecordingPageLoader pageLoader = new RecordingPageLoader();
+        fetchChanges(pageLoader, newPreviousStats(CURRENT_YEAR),
+                "US Open", "Internazionali BNL d'Italia");
+        assertEquals(new HashSet<>(Arrays.asList(DJOKOVIC_URL, FEDERER_URL, NADAL_URL)),
+                new HashSet<>(pageLoader.getRequestedURLs()));
+    }
+
+    @Test
+    public void testSurnameInSchedule() throws IOException {
+        RecordingPageLoader pageLoader = new RecordingPageLoader();
+        /* The schedule only has the surname, in another case */
+        fetchChanges(pageLoader, newPreviousStats(CURRENT_YEAR),
+                "US Open R. FEDERER vs. D. Thiem", "");
+        assertEquals(new HashSet<>(Arrays.asList(FEDERER_URL, NADAL_URL)),
+                new HashSet<>(pageLoader.getRequestedURLs()));
+    }
+
+    @Test
+    public void testNewYear() throws IOException {
+        RecordingPageLoader pageLoader = new RecordingPageLoader();
+        Map<String, PlayerStats> previousStats = newPreviousStats(CURRENT_YEAR);
+        /* Djokovic's titles were counted last year, so they are out of date */
+        previousStats.put("Novak Djokovic (2)", newStats("Novak Djokovic", 2,
+                CURRENT_YEAR - 1, PlayerStats.Standing.NOT_PLAYING, ""));
+        fetchChanges(pageLoader, previousStats, "US Open", "");
+        assertEquals(new HashSet<>(Arrays.asList(DJOKOVIC_URL, NADAL_URL)),
+                new HashSet<>(pageLoader.getRequestedURLs()));
+    }
+
+    @Test
+    public void testPriorityPlayers() throws IOException {
+        final RecordingPageLoader pageLoader = new RecordingPageLoader();
+        PlayerStatsFetcher fetcher =
+                new PlayerStatsFetcher(newPlayersIndex(), pageLoader, 2);
+        final List<String> priorityURLs = new ArrayList<>();
+        final List<Map<String, PlayerStats>> priorityStats = new ArrayList<>();
+        /* Federer is matched by name even though his ranking changed */
+        fetcher.setPriorityPlayers(Arrays.asList("Roger Federer (4)", "Novak Djokovic (1)"),
+                new PlayerStatsFetcher.OnPriorityPlayersFetchedListener() {
+                    @Override
+                    public void onPriorityPlayersFetched(Map<String, PlayerStats> stats) {
+                        priorityURLs.addAll(pageLoader.getRequestedURLs());
+                        priorityStats.add(stats);
+                    }
+                });
+        Map<String, PlayerStats> stats = fetcher.getPlayerStatsMap();
+        assertEquals(new HashSet<>(Arrays.asList(DJOKOVIC_URL, FEDERER_URL)),
+                new HashSet<>(priorityURLs));
+        assertEquals(1, priorityStats.size());
+        assertEquals(new HashSet<>(Arrays.asList("Novak Djokovic (1)", "Roger Federer (3)")),
+                priorityStats.get(0).keySet());
+        List<String> requestedURLs = pageLoader.getRequestedURLs();
+        assertEquals(3, requestedURLs.size());
+        assertEquals(NADAL_URL, requestedURLs.get(2));
+        assertEquals(3, stats.size());
+    }
+
+    /*
+       Fetches the stats of the players of newPlayersIndex() with the given
+       previous stats, and schedules of today and yesterday that show the
+       given tournament and text, and returns the stats
+     */
+    private Map<String, PlayerStats> fetchChanges(RecordingPageLoader pageLoader,
+                                                  Map<String, PlayerStats> previousStats,
+                                                  String tText, String yText)
+            throws IOException {
+        PlayerStatsFetcher fetcher = new PlayerStatsFetcher(newPlayersIndex(), pageLoader, 1);
+        return fetcher.getPlayerStatsMap(previousStats,
+                newSchedule(tText), newSchedule(yText));
+    }
+
+    /*
+       Returns a rankings index of Djokovic, Nadal and Federer, in this order
+     */
+    private RankingsIndex newPlayersIndex() {
+        return new RankingsIndex(Arrays.asList(
+                new RankedPlayer("1", "Novak Djokovic", DJOKOVIC_URL),
+                new RankedPlayer("2", "Rafael Nadal", NADAL_URL),
+                new RankedPlayer("3", "Roger Federer", FEDERER_URL)),
+                Collections.<RankedPlayer>emptyList(), 3);
+    }
+
+    /*
+       Returns previous stats where Djokovic and Federer, whose rankings
+       changed since then, were not playing, and Nadal was out of the US Open
+       The titles were counted in the given year
+     */
+    private Map<String, PlayerStats> newPreviousStats(int titlesYear) {
+        Map<String, PlayerStats> previousStats = new HashMap<>();
+        previousStats.put("Novak Djokovic (2)", newStats("Novak Djokovic", 2,
+                titlesYear, PlayerStats.Standing.NOT_PLAYING, ""));
+        previousStats.put("Rafael Nadal (2)", newStats("Rafael Nadal", 2,
+                titlesYear, PlayerStats.Standing.OUT, "US Open"));
+        previousStats.put("Roger Federer (4)", newStats("Roger Federer", 4,
+                titlesYear, PlayerStats.Standing.NOT_PLAYING, ""));
+        return previousStats;
+    }
+
+    private PlayerStats newStats(String name, int ranking, int titlesYear,
+                                 PlayerStats.Standing standing, String tournament) {
+        return new PlayerStats(name, ranking, titlesYear, 3, standing,
+                "", 0, tournament, "", "");
+    }
+
+    /*
+       Returns a schedule document with the given text as the headline of a
+       tournament, or a schedule without matches if the text is empty
+     */
+    private Document newSchedule(String text) {
+        if (text.isEmpty()) {
+            return Jsoup.parse("<h3 class=\"noMatch\">No matches</h3>");
+        }
+        return Jsoup.parse("<div class=\"scoreHeadline\"><a href=\"/tennis\">" +
+                text + "</a></div>", "http://www.espn.com/tennis/dailyResults");
+    }
+
+    private RankingsIndex newRankingsIndex() {
+        List<RankedPlayer> mRankings = new ArrayList<>();
+        List<RankedPlayer> wRankings = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            mRankings.add(new RankedPlayer(String.valueOf(i), "Man" + i,
+                    "http://www.espn.com/tennis/player/_/id/" + i));
+            wRankings.add(new RankedPlayer(String.valueOf(i), "Woman" + i,
+                    "http://www.espn.com/tennis/player/_/id/" + (i + 10)));
+        }
+        return new RankingsIndex(mRankings, wRankings, 3);
+    }
+
+    /*
+       A PageLoader that records the URLs of the pages it is asked to load, in
+       the order they were requested, and loads a saved page of a player who
+       is not playing for each of them
+     */
+    private static class RecordingPageLoader extends PageLoader {
+
+        private final List<String> requestedURLs = new ArrayList<>();
+        private final String page;
+
+        RecordingPageLoader() throws IOException {
+            InputStream in = getClass().getClassLoader()
+                    .getResourceAsStream("player_pages/not_playing.html");
+            page = Jsoup.parse(in, "UTF-8", "https://www.espn.com/tennis/player").outerHtml();
+            in.close();
+        }
+
+        @Override
+        public Document load(String url) {
+            synchronized (requestedURLs) {
+                requestedURLs.add(url);
+            }
+            return Jsoup.parse(page, url);
+        }
+
+        List<String> getRequestedURLs() {
+            synchronized (requestedURLs) {
+                return new ArrayList<>(requestedURLs);
+            }
+        }
+    }
+
+    /*
+       A PageLoader that fails to load the page of the second player with the
+       given error, and fails to load the other pages because they are not
+       found
+     */
+    private static class FailingPageLoader extends PageLoader {
+
+        private final Throwable error;
+
+        FailingPageLoader(Throwable error) {
+            this.error = error;
+        }
+
+        @Override
+        public Document load(String url) throws IOException {
+            if (!url.endsWith("/id/11")) {
+                throw new IOException("Not found");
+            }
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            }
+            throw (Error) error;
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+   Test for PlayerStatsIndex class
+   Tests that the stats stay sorted in descending order as players are added,
+   replaced and removed, that players are found by key, and that updating to
+   new stats only changes the players whose stats changed
+   Tests that players with the same name are listed with their own keys
+ */
+
+package com.adizangi.tennisplayerstracker;
+
+import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
+import com.adizangi.tennisplayerstracker.view_models.PlayerStatsIndex;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PlayerStatsIndexTest {
+
+    @Test
+    public void testOrder() {
+        PlayerStatsIndex index = new PlayerStatsIndex();
+        index.put("Player1 (1)", newStats("Player1", 1, PlayerStats.Standing.NOT_PLAYING));
+        index.put("Player2 (2)", newStats("Player2", 2, PlayerStats.Standing.ADVANCED));
+        index.put("Player3 (3)", newStats("Player3", 3, PlayerStats.Standing.OUT));
+        index.put("Player4 (4)", newStats("Player4", 4, PlayerStats.Standing.ADVANCED));
+        assertEquals(Arrays.asList("Player2", "Player4", "Player3", "Player1"),
+                getNames(index.toList()));
+        index.put("Player1 (1)", newStats("Player1", 1, PlayerStats.Standing.ADVANCED));
+        assertEquals(4, index.size());
+        assertEquals(Arrays.asList("Player1", "Player2", "Player4", "Player3"),
+                getNames(index.toList()));
+        assertEquals("Player4", index.remove("Player4 (4)").getName());
+        assertNull(index.remove("Player4 (4)"));
+        assertEquals(Arrays.asList("Player1", "Player2", "Player3"),
+                getNames(index.toList()));
+    }
+
+    @Test
+    public void testLookups() {
+        PlayerStatsIndex index = new PlayerStatsIndex();
+        for (int i = 1; i <= 1000; i++) {
+            index.put("Player" + i + " (" + i + ")",
+                    newStats("Player" + i, i, PlayerStats.Standing.OUT));
+        }
+        assertTrue(index.contains("Player500 (500)"));
+        assertFalse(index.contains("Player500 (501)"));
+        assertEquals(500, index.get("Player500 (500)").getRanking());
+        for (int i = 1; i <= 1000; i += 2) {
+            index.remove("Player" + i + " (" + i + ")");
+        }
+        assertEquals(500, index.size());
+        assertFalse(index.contains("Player1 (1)"));
+        assertEquals(500, index.toList().size());
+    }
+
+    @Test
+    public void testUpdate() {
+        PlayerStatsIndex index = new PlayerStatsIndex();
+        PlayerStats stats1 = newStats("Player1", 1, PlayerStats.Standing.ADVANCED);
+        PlayerStats stats2 = newStats("Player2", 2, PlayerStats.Standing.ADVANCED);
+        index.put("Player1 (1)", stats1);
+        index.put("Player2 (2)", stats2);
+        index.put("Player3 (3)", newStats("Player3", 3, PlayerStats.Standing.OUT));
+        List<String> players = Arrays.asList("Player1 (1)", "Player2 (2)",
+                "Player3 (3)", "Player4 (4)");
+        Map<String, PlayerStats> newStats = new HashMap<>();
+        newStats.put("Player1 (1)", newStats("Player1", 1, PlayerStats.Standing.ADVANCED));
+        newStats.put("Player2 (2)", newStats("Player2", 2, PlayerStats.Standing.OUT));
+        newStats.put("Player4 (4)", newStats("Player4", 4, PlayerStats.Standing.NOT_PLAYING));
+        assertTrue(index.update(players, newStats));
+        assertSame(stats1, index.get("Player1 (1)"));
+        assertFalse(index.contains("Player3 (3)"));
+        assertEquals(Arrays.asList("Player1", "Player2", "Player4"),
+                getNames(index.toList()));
+        assertFalse(index.update(players, newStats));
+    }
+
+    @Test
+    public void testSameName() {
+        PlayerStatsIndex index = new PlayerStatsIndex();
+        index.put("Player1 (1)", newStats("Player1", 1, PlayerStats.Standing.ADVANCED));
+        index.put("Player1 (2)", newStats("Player1", 2, PlayerStats.Standing.OUT));
+        List<Map.Entry<String, PlayerStats>> stats = index.toList();
+        assertEquals(2, stats.size());
+        assertEquals("Player1 (1)", stats.get(0).getKey());
+        assertEquals("Player1 (2)", stats.get(1).getKey());
+    }
+
+    private PlayerStats newStats(String name, int ranking, PlayerStats.Standing standing) {
+        return new PlayerStats(name, ranking, 2020, 0, standing, "", 0,
+                "Roland Garros", "", "");
+    }
+
+    private List<String> getNames(List<Map.Entry<String, PlayerStats>> stats) {
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<String, PlayerStats> entry : stats) {
+            names.add(entry.getValue().getName());
+        }
+        return names;
+    }
+
+}
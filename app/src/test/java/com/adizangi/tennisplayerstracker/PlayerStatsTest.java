@@ -0,0 +1,93 @@
+/*
+   Test for PlayerStats class
+   Tests the text that is shown for the stats, the order of the stats, and
+   storing the stats with an ObjectOutputStream
+ */
+
+package com.adizangi.tennisplayerstracker;
+
+import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class PlayerStatsTest {
+
+    @Test
+    public void testText() {
+        PlayerStats stats = newStats(PlayerStats.Standing.ADVANCED,
+                "Roland Garros", "Quarterfinal", 5);
+        assertEquals("Current ranking: 3", stats.getRankingText());
+        assertEquals("2020 singles titles: 2", stats.getTitlesText());
+        assertEquals("advanced to Quarterfinal", stats.getStandingText());
+        assertEquals("Current ranking: 3\n2020 singles titles: 2\nRoland Garros\n" +
+                "Round of 16- Simona Halep 6-1 6-2", stats.getStatsSummary());
+        PlayerStats unknownStats = new PlayerStats("Player", 0, 0,
+                PlayerStats.UNKNOWN_TITLES, PlayerStats.Standing.NOT_PLAYING,
+                "", 0, "", "", "");
+        assertEquals("Current ranking: unknown", unknownStats.getRankingText());
+        assertEquals("Singles titles: unknown", unknownStats.getTitlesText());
+        assertEquals("not playing", unknownStats.getStandingText());
+    }
+
+    @Test
+    public void testOrder() {
+        PlayerStats notPlaying = newStats(PlayerStats.Standing.NOT_PLAYING, "", "", 0);
+        PlayerStats out = newStats(PlayerStats.Standing.OUT, "US Open", "Final", 7);
+        PlayerStats advanced1 = newStats(PlayerStats.Standing.ADVANCED,
+                "Roland Garros", "Quarterfinal", 5);
+        PlayerStats advanced2 = newStats(PlayerStats.Standing.ADVANCED,
+                "Roland Garros", "Semifinal", 6);
+        PlayerStats advanced3 = newStats(PlayerStats.Standing.ADVANCED,
+                "US Open", "2nd Round", 2);
+        List<PlayerStats> stats = new ArrayList<>(Arrays.asList(
+                advanced3, notPlaying, advanced2, out, advanced1));
+        Collections.sort(stats);
+        assertEquals(Arrays.asList(notPlaying, out, advanced1, advanced2, advanced3),
+                stats);
+        assertSame(advanced1.getCurrentTournament(), advanced2.getCurrentTournament());
+    }
+
+    @Test
+    public void testSerialization() throws IOException, ClassNotFoundException {
+        PlayerStats stats = newStats(PlayerStats.Standing.ADVANCED,
+                "Roland Garros", "Quarterfinal", 5);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream oout = new ObjectOutputStream(bytes);
+        oout.writeObject(stats);
+        oout.close();
+        ObjectInputStream oin = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()));
+        PlayerStats read = (PlayerStats) oin.readObject();
+        oin.close();
+        assertEquals(stats.getName(), read.getName());
+        assertEquals(3, read.getRanking());
+        assertEquals(2020, read.getTitlesYear());
+        assertEquals(2, read.getTitles());
+        assertEquals(PlayerStats.Standing.ADVANCED, read.getStanding());
+        assertEquals("Quarterfinal", read.getRound());
+        assertEquals(5, read.getRoundNumber());
+        assertSame(stats.getCurrentTournament(), read.getCurrentTournament());
+        assertEquals(stats.getUpcomingMatch(), read.getUpcomingMatch());
+    }
+
+    private PlayerStats newStats(PlayerStats.Standing standing, String tournament,
+                                 String round, int roundNumber) {
+        return new PlayerStats("Iga Świątek", 3, 2020, 2, standing, round,
+                roundNumber, tournament, "Round of 16- Simona Halep 6-1 6-2",
+                "Iga Świątek 7:00 AM ET");
+    }
+
+}
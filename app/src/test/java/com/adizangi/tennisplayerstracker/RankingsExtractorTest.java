@@ -0,0 +1,107 @@
+/*
+   Test for RankingsExtractor class
+   Tests that the players are read from the first table of a rankings page,
+   and that reading stops after the requested number of players
+   Tests that the link to the next page of the rankings is found
+ */
+
+package com.adizangi.tennisplayerstracker;
+
+import com.adizangi.tennisplayerstracker.network_calls.RankedPlayer;
+import com.adizangi.tennisplayerstracker.network_calls.RankingsExtractor;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RankingsExtractorTest {
+
+    private static final String PAGE_URL = "https://www.espn.com/tennis/rankings";
+
+    @Test
+    public void testExtractingPlayers() throws IOException {
+        List<RankedPlayer> players = new RankingsExtractor(100)
+                .extract(getRankingsPage(3), PAGE_URL);
+        assertEquals(3, players.size());
+        RankedPlayer first = players.get(0);
+        assertEquals("1", first.getRanking());
+        assertEquals("Dominic Thiém 1", first.getName());
+        assertEquals("https://www.espn.com/tennis/player/_/id/1", first.getProfileURL());
+        assertEquals("Dominic Thiém 1 (1)", first.getKey());
+    }
+
+    @Test
+    public void testStoppingAfterMaxRows() throws IOException {
+        List<RankedPlayer> players = new RankingsExtractor(100)
+                .extract(getRankingsPage(150), PAGE_URL);
+        assertEquals(100, players.size());
+        assertEquals("100", players.get(99).getRanking());
+    }
+
+    @Test
+    public void testFindingNextPage() throws IOException {
+        RankingsExtractor extractor = new RankingsExtractor(100);
+        extractor.extract(getRankingsPage(50, "<a class=\"Pagination__Next\" " +
+                "href=\"/tennis/rankings/_/page/2\"><svg></svg></a>"), PAGE_URL);
+        assertEquals("https://www.espn.com/tennis/rankings/_/page/2",
+                extractor.getNextPageURL());
+        extractor.extract(getRankingsPage(50, "<a href=\"/tennis/rankings?page=3\">Next </a>"),
+                PAGE_URL);
+        assertEquals("https://www.espn.com/tennis/rankings?page=3",
+                extractor.getNextPageURL());
+        extractor.extract(getRankingsPage(50, "<a href=\"/tennis/news\">News</a>"),
+                PAGE_URL);
+        assertEquals("", extractor.getNextPageURL());
+    }
+
+    @Test
+    public void testNotSearchingNextPageAfterMaxRows() throws IOException {
+        RankingsExtractor extractor = new RankingsExtractor(50);
+        extractor.extract(getRankingsPage(50, "<a rel=\"next\" " +
+                "href=\"/tennis/rankings/_/page/2\">2</a>"), PAGE_URL);
+        assertEquals("", extractor.getNextPageURL());
+    }
+
+    @Test
+    public void testPageWithoutRankings() throws IOException {
+        String page = "<html><body><h3>No rankings</h3></body></html>";
+        InputStream in = new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8));
+        assertTrue(new RankingsExtractor(100).extract(in, PAGE_URL).isEmpty());
+    }
+
+    /*
+       Returns a stream of a rankings page with the given number of players
+       The page has a script and a comment with table tags before the
+       rankings table, which should be skipped
+     */
+    private InputStream getRankingsPage(int numOfPlayers) {
+        return getRankingsPage(numOfPlayers, "");
+    }
+
+    /*
+       Returns a stream of a rankings page with the given number of players,
+       followed by the given HTML after the rankings table
+     */
+    private InputStream getRankingsPage(int numOfPlayers, String afterTable) {
+        StringBuilder page = new StringBuilder("<html><head><script>" +
+                "var t = '<table>'; if (a < b) {}</script></head><body>" +
+                "<!-- <table><tr><td>0</td></tr></table> -->" +
+                "<table><thead><tr><th>RK</th><th>Name</th></tr></thead><tbody>");
+        for (int i = 1; i <= numOfPlayers; i++) {
+            page.append("<tr><td>").append(i).append("</td><td><a href=\"")
+                    .append("/tennis/player/_/id/").append(i)
+                    .append("\">Dominic&nbsp;Thi&eacute;m ").append(i)
+                    .append("</a></td><td>1000</td></tr>");
+        }
+        page.append("</tbody></table>").append(afterTable).append("</body></html>");
+        return new ByteArrayInputStream(page.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+}
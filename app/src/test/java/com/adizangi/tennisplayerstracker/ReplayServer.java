@@ -0,0 +1,153 @@
+/*
+   A local HTTP server that replays the pages in an archive recorded with
+   PageRecorder, in place of the ESPN website
+   Each response is delayed by a configurable latency, so the fetch pipeline
+   can be measured offline under repeatable network conditions
+   A PageLoader is pointed at the server with setBaseURL(getBaseURL())
+ */
+
+package com.adizangi.tennisplayerstracker;
+
+import com.adizangi.tennisplayerstracker.network_calls.PageRecorder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+public class ReplayServer {
+
+    private Map<String, byte[]> pages = new HashMap<>();
+    private String comment;
+    private long latencyMillis;
+    private HttpServer server;
+    private ExecutorService executor;
+    private AtomicInteger numOfRequests = new AtomicInteger();
+
+    /*
+       Constructs a ReplayServer that serves the pages in the given archive,
+       and delays each response by the given number of milliseconds
+       May throw IOException if the archive can't be read
+     */
+    public ReplayServer(File archive, long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        ZipFile zipFile = new ZipFile(archive);
+        try {
+            comment = zipFile.getComment();
+            for (ZipEntry entry : Collections.list(zipFile.entries())) {
+                pages.put(entry.getName(), readAll(zipFile.getInputStream(entry)));
+            }
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    /*
+       Starts the server on a free port of the loopback address
+       Requests are handled by a pool of threads, so the latency of requests
+       that are sent at the same time overlaps like it does on a real server
+       May throw IOException
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                replay(exchange);
+            }
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /*
+       Stops the server
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /*
+       Returns the base URL of the server, such as "http://127.0.0.1:40000"
+     */
+    public String getBaseURL() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort();
+    }
+
+    /*
+       Returns the comment of the archive that was set with
+       PageRecorder.setComment()
+       Returns null if the archive has no comment
+     */
+    public String getComment() {
+        return comment;
+    }
+
+    /*
+       Returns the number of requests the server received
+     */
+    public int getNumOfRequests() {
+        return numOfRequests.get();
+    }
+
+    /*
+       Sends the recorded page of the requested path and query after the
+       latency, or a 404 response if the page wasn't recorded
+     */
+    private void replay(HttpExchange exchange) throws IOException {
+        numOfRequests.incrementAndGet();
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String path = exchange.getRequestURI().getRawPath();
+        String query = exchange.getRequestURI().getRawQuery();
+        byte[] page = pages.get(PageRecorder.getEntryName(
+                query == null ? path : path + "?" + query));
+        if (page == null) {
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_FOUND, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+        exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, page.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(page);
+        out.close();
+    }
+
+    /*
+       Reads the given stream to the end and returns its bytes
+     */
+    private byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, length);
+        }
+        in.close();
+        return bytes.toByteArray();
+    }
+
+}
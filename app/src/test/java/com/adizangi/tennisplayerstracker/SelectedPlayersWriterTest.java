@@ -0,0 +1,61 @@
+/*
+   Test for SelectedPlayersWriter class
+   Tests that changes to the user's players are stored with one write, and
+   are stored right away when the writer is flushed
+   The writer waits longer than the test runs before it writes on its own, so
+   the file only changes when the writer is flushed
+   Runs with Robolectric to use app resources without running the app
+ */
+
+package com.adizangi.tennisplayerstracker;
+
+import android.content.Context;
+
+import com.adizangi.tennisplayerstracker.utils_data.FileManager;
+import com.adizangi.tennisplayerstracker.utils_data.SelectedPlayersWriter;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+public class SelectedPlayersWriterTest {
+
+    private static final long COALESCE_DELAY_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    @Test
+    public void testSelectedPlayersWriter() {
+        Context context = ApplicationProvider.getApplicationContext();
+        FileManager fileManager = new FileManager(context);
+        fileManager.storeSelectedPlayers(new ArrayList<String>());
+        SelectedPlayersWriter writer =
+                new SelectedPlayersWriter(context, COALESCE_DELAY_MILLIS);
+        List<String> selectedPlayers = new ArrayList<>();
+        selectedPlayers.add("player1");
+        writer.write(selectedPlayers);
+        selectedPlayers.add("player2");
+        writer.write(selectedPlayers);
+        selectedPlayers.remove("player1");
+        writer.write(selectedPlayers);
+        selectedPlayers.add("player3");
+        assertEquals(new ArrayList<String>(), fileManager.readSelectedPlayers());
+        writer.flush();
+        assertEquals(Arrays.asList("player2"), fileManager.readSelectedPlayers());
+        writer.flush();
+        assertEquals(Arrays.asList("player2"), fileManager.readSelectedPlayers());
+        writer.write(Arrays.asList("player1", "player2"));
+        writer.flush();
+        assertEquals(Arrays.asList("player1", "player2"),
+                fileManager.readSelectedPlayers());
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+   Test for StatsSnapshot class
+   Tests encoding a snapshot and looking up players in it, including players
+   that are not in the snapshot and names with non-ASCII letters
+   Tests that an index entry that points outside the snapshot is found when
+   it is read, while the players whose entries are valid can still be read
+ */
+
+package com.adizangi.tennisplayerstracker;
+
+import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
+import com.adizangi.tennisplayerstracker.utils_data.StatsSnapshot;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StatsSnapshotTest {
+
+    @Test
+    public void testLookups() throws IOException {
+        Map<String, PlayerStats> stats = new HashMap<>();
+        for (int i = 1; i <= 300; i++) {
+            String name = "Player" + i;
+            stats.put(name + " (ATP)", newStats(name, i));
+        }
+        stats.put("Iga Świątek (WTA)", newStats("Iga Świątek", 17));
+        stats.put("Ágnes Szávay (WTA)", newStats("Ágnes Szávay", 301));
+        StatsSnapshot snapshot = StatsSnapshot.wrap(
+                ByteBuffer.wrap(StatsSnapshot.encode(stats)));
+        assertEquals(stats.size(), snapshot.size());
+        assertFalse(snapshot.isEmpty());
+        for (String player : stats.keySet()) {
+            assertEquals(stats.get(player).getRanking(),
+                    snapshot.get(player).getRanking());
+        }
+        assertEquals("Iga Świątek", snapshot.get("Iga Świątek (WTA)").getName());
+        assertNull(snapshot.get("Player301 (ATP)"));
+        assertNull(snapshot.get(""));
+        Map<String, PlayerStats> selected = snapshot.getAll(Arrays.asList(
+                "Player20 (ATP)", "Nobody (ATP)", "Player3 (ATP)"));
+        assertEquals(Arrays.asList("Player20 (ATP)", "Player3 (ATP)"),
+                Arrays.asList(selected.keySet().toArray()));
+        assertEquals(stats.keySet(), snapshot.readAll().keySet());
+    }
+
+    @Test
+    public void testSnapshotInBuffer() throws IOException {
+        Map<String, PlayerStats> stats = new HashMap<>();
+        stats.put("Player1 (ATP)", newStats("Player1", 1));
+        byte[] snapshotBytes = StatsSnapshot.encode(stats);
+        ByteBuffer buffer = ByteBuffer.allocate(snapshotBytes.length + 10);
+        buffer.position(7);
+        buffer.put(snapshotBytes);
+        buffer.position(7);
+        StatsSnapshot snapshot = StatsSnapshot.wrap(buffer);
+        assertEquals(1,
+                snapshot.get("Player1 (ATP)").getRanking());
+        assertEquals(7, buffer.position());
+    }
+
+    @Test
+    public void testEmptyAndInvalidSnapshots() throws IOException {
+        StatsSnapshot snapshot = StatsSnapshot.wrap(ByteBuffer.wrap(
+                StatsSnapshot.encode(new HashMap<String, PlayerStats>())));
+        assertTrue(snapshot.isEmpty());
+        assertNull(snapshot.get("Player1 (ATP)"));
+        try {
+            StatsSnapshot.wrap(ByteBuffer.wrap("Not a snapshot".getBytes("UTF-8")));
+            fail("Opened a file that is not a snapshot");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void testInvalidIndex() throws IOException {
+        Map<String, PlayerStats> stats = new HashMap<>();
+        stats.put("Player1 (ATP)", newStats("Player1", 1));
+        stats.put("Player2 (ATP)", newStats("Player2", 2));
+        byte[] snapshotBytes = StatsSnapshot.encode(stats);
+        /* The record length of the second player, past the end */
+        ByteBuffer.wrap(snapshotBytes).putInt(12 + 16 + 12, snapshotBytes.length);
+        StatsSnapshot snapshot = StatsSnapshot.wrap(ByteBuffer.wrap(snapshotBytes));
+        assertEquals(1, snapshot.get("Player1 (ATP)").getRanking());
+        assertNull(snapshot.get("Player2 (ATP)"));
+        assertReadAllFails(snapshot);
+        snapshotBytes = StatsSnapshot.encode(stats);
+        /* The name offset of the first player, inside the index */
+        ByteBuffer.wrap(snapshotBytes).putInt(12, 0);
+        snapshot = StatsSnapshot.wrap(ByteBuffer.wrap(snapshotBytes));
+        assertNull(snapshot.get("Player1 (ATP)"));
+        assertReadAllFails(snapshot);
+        /* A snapshot that was cut short */
+        snapshotBytes = StatsSnapshot.encode(stats);
+        snapshot = StatsSnapshot.wrap(ByteBuffer.wrap(snapshotBytes, 0,
+                snapshotBytes.length - 1));
+        assertEquals(1, snapshot.get("Player1 (ATP)").getRanking());
+        assertNull(snapshot.get("Player2 (ATP)"));
+        assertReadAllFails(snapshot);
+        /* An index that doesn't fit in the snapshot */
+        snapshotBytes = StatsSnapshot.encode(stats);
+        ByteBuffer.wrap(snapshotBytes).putInt(8, snapshotBytes.length);
+        try {
+            StatsSnapshot.wrap(ByteBuffer.wrap(snapshotBytes));
+            fail("Opened a snapshot with an index bigger than the snapshot");
+        } catch (IOException expected) {
+        }
+    }
+
+    private void assertReadAllFails(StatsSnapshot snapshot) {
+        try {
+            snapshot.readAll();
+            fail("Read a snapshot with an index entry outside the snapshot");
+        } catch (IOException expected) {
+        }
+    }
+
+    private PlayerStats newStats(String name, int ranking) {
+        return new PlayerStats(name, ranking, 2020, 0, PlayerStats.Standing.OUT,
+                "Final", 7, "Roland Garros", "Final- Novak Djokovic 6-0 6-2 6-3", "");
+    }
+
+}
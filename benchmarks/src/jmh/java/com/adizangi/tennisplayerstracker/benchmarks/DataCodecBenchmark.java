@@ -0,0 +1,123 @@
+/*
+   Benchmark for reading and writing the stored player data with DataCodec,
+   compared to the Java serialization that the app used before
+   The data is a stats map and a total players list in the size of a full
+   rankings list, so it matches what the app reads on a cold start
+ */
+
+package com.adizangi.tennisplayerstracker.benchmarks;
+
+import com.adizangi.tennisplayerstracker.utils_data.DataCodec;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@State(Scope.Benchmark)
+public class DataCodecBenchmark {
+
+    @Param({"false", "true"})
+    public boolean deflate;
+
+    private Map<String, PlayerStats> stats;
+    private List<String> totalPlayers;
+    private byte[] encodedStats;
+    private byte[] encodedPlayers;
+    private byte[] serializedStats;
+    private byte[] serializedPlayers;
+
+    @Setup
+    public void setup() throws IOException, ClassNotFoundException {
+        stats = new HashMap<>();
+        totalPlayers = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            String name = "Player Number" + i;
+            String player = name + " (" + (i % 2 == 0 ? "ATP" : "WTA") + ")";
+            totalPlayers.add(player);
+            boolean advanced = i % 3 == 0;
+            stats.put(player, new PlayerStats(name,
+                    i,
+                    2020,
+                    i % 7,
+                    advanced ? PlayerStats.Standing.ADVANCED : PlayerStats.Standing.OUT,
+                    advanced ? "Quarterfinal" : "Round of 16",
+                    advanced ? 5 : 4,
+                    "Western & Southern Open",
+                    "Round of 16- Other Player" + i + " 6-4 3-6 7-6",
+                    advanced ? name + " 7:00 PM ET" : ""));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataCodec.writePlayerStats(out, stats, deflate);
+        encodedStats = out.toByteArray();
+        out = new ByteArrayOutputStream();
+        DataCodec.writeStringList(out, totalPlayers, deflate);
+        encodedPlayers = out.toByteArray();
+        serializedStats = serialize(stats);
+        serializedPlayers = serialize((ArrayList<String>) totalPlayers);
+        if (decodeStats().size() != stats.size() ||
+                !decodeTotalPlayers().equals(totalPlayers)) {
+            throw new IllegalStateException("The data doesn't decode");
+        }
+    }
+
+    @Benchmark
+    public Map<String, PlayerStats> decodeStats() throws IOException {
+        return DataCodec.readPlayerStats(encodedStats);
+    }
+
+    @Benchmark
+    public List<String> decodeTotalPlayers() throws IOException {
+        return DataCodec.readStringList(encodedPlayers);
+    }
+
+    @Benchmark
+    public byte[] encodeStats() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataCodec.writePlayerStats(out, stats, deflate);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Map<String, PlayerStats> deserializeStats()
+            throws IOException, ClassNotFoundException {
+        return (Map<String, PlayerStats>) deserialize(serializedStats);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<String> deserializeTotalPlayers()
+            throws IOException, ClassNotFoundException {
+        return (List<String>) deserialize(serializedPlayers);
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ObjectOutputStream oout = new ObjectOutputStream(out);
+        oout.writeObject(object);
+        oout.close();
+        return out.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data)
+            throws IOException, ClassNotFoundException {
+        ObjectInputStream oin = new ObjectInputStream(new ByteArrayInputStream(data));
+        Object object = oin.readObject();
+        oin.close();
+        return object;
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+   Reads the saved HTML pages that the benchmarks run on
+   The player pages are shared with the app's unit tests, and the rankings
+   and notification pages are in this module's resources
+ */
+
+package com.adizangi.tennisplayerstracker.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+class Fixtures {
+
+    static final String BASE_URL = "http://www.espn.com";
+
+    private Fixtures() {
+    }
+
+    /*
+       Returns the bytes of the resource with the given path
+       May throw IOException if there is no such resource
+     */
+    static byte[] readBytes(String path) throws IOException {
+        InputStream in = Fixtures.class.getResourceAsStream(path);
+        if (in == null) {
+            throw new IOException("Missing fixture " + path);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, length);
+        }
+        in.close();
+        return bytes.toByteArray();
+    }
+
+    /*
+       Returns the text of the resource with the given path
+       May throw IOException if there is no such resource
+     */
+    static String readString(String path) throws IOException {
+        return new String(readBytes(path), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+   Benchmark for building the notification text from the schedule and
+   tournament pages with NotificationFetcher
+   The pages are parsed before the measurement and the tournament pages are
+   served by a PageLoader that doesn't use the network, and with one thread
+   NotificationFetcher loads them on the calling thread without a thread pool
+   So only finding the tournaments in the schedules and extracting the
+   summaries from the parsed documents is measured
+ */
+
+package com.adizangi.tennisplayerstracker.benchmarks;
+
+import com.adizangi.tennisplayerstracker.network_calls.NotificationFetcher;
+import com.adizangi.tennisplayerstracker.network_calls.PageLoader;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+@State(Scope.Benchmark)
+public class NotificationBenchmark {
+
+    private static final String SCHEDULE_URL = Fixtures.BASE_URL + "/tennis/dailyResults";
+    private static final String[][] TOURNAMENTS = {
+            {"189", "us_open_final.html"},
+            {"740", "rome_round.html"},
+            {"212", "kitzbuhel_final.html"}};
+
+    private Document tSchedule;
+    private Document ySchedule;
+    private PageLoader pageLoader;
+
+    @Setup
+    public void setup() throws IOException {
+        tSchedule = Jsoup.parse(Fixtures.readString
+                ("/notification/today_schedule.html"), SCHEDULE_URL);
+        ySchedule = Jsoup.parse(Fixtures.readString
+                ("/notification/yesterday_schedule.html"), SCHEDULE_URL);
+        final Map<String, Document> tournamentDocs = new HashMap<>();
+        for (String[] tournament : TOURNAMENTS) {
+            String url = SCHEDULE_URL + "?tournamentId=" + tournament[0];
+            tournamentDocs.put(url, Jsoup.parse(Fixtures.readString
+                    ("/notification/" + tournament[1]), url));
+        }
+        pageLoader = new PageLoader() {
+            @Override
+            public Document load(String url) throws IOException {
+                Document document = tournamentDocs.get(url);
+                if (document == null) {
+                    throw new IOException("No fixture for " + url);
+                }
+                return document;
+            }
+        };
+        if (notificationText().isEmpty()) {
+            throw new IllegalStateException("The fixtures make an empty notification");
+        }
+    }
+
+    @Benchmark
+    public String notificationText() throws IOException {
+        return new NotificationFetcher(tSchedule, ySchedule, pageLoader, 1)
+                .getNotificationText();
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+   Benchmark for answering a query of the player search box with a
+   PlayerSearchIndex, compared to copying and scanning the whole list of
+   players for names that start with the query, which is what the
+   ArrayAdapter filter did
+   The queries are a surname prefix and a first name prefix, so the index
+   also matches words that the scan doesn't
+ */
+
+package com.adizangi.tennisplayerstracker.benchmarks;
+
+import com.adizangi.tennisplayerstracker.utils_data.PlayerSearchIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+@State(Scope.Benchmark)
+public class PlayerSearchBenchmark {
+
+    private static final String[] FIRST_NAMES = {"Rafael", "Novak", "Dominic",
+            "Daniil", "Iga", "Félix", "Dominika", "Caroline", "Stefanos", "Ons"};
+    private static final String[] SURNAMES = {"Nadal", "Djokovic", "Thiém",
+            "Medvedev", "Świątek", "Auger-Aliassime", "Cibulková", "Wozniacki",
+            "Tsitsipas", "Jabeur"};
+
+    @Param({"2000", "10000"})
+    public int numOfPlayers;
+
+    private List<String> players;
+    private PlayerSearchIndex searchIndex;
+
+    @Setup
+    public void setup() {
+        players = new ArrayList<>();
+        for (int i = 1; i <= numOfPlayers; i++) {
+            players.add(FIRST_NAMES[i % FIRST_NAMES.length] + " " +
+                    SURNAMES[i / FIRST_NAMES.length % SURNAMES.length] + i +
+                    " (" + i + ")");
+        }
+        searchIndex = new PlayerSearchIndex(players);
+    }
+
+    @Benchmark
+    public List<String> indexSearchSurname() {
+        return searchIndex.search("thie", 20);
+    }
+
+    @Benchmark
+    public List<String> indexSearchFirstName() {
+        return searchIndex.search("domin", 20);
+    }
+
+    @Benchmark
+    public List<String> scanFirstName() {
+        List<String> copy = new ArrayList<>(players);
+        List<String> results = new ArrayList<>();
+        for (String player : copy) {
+            if (player.toLowerCase(Locale.US).startsWith("domin")) {
+                results.add(player);
+            }
+        }
+        return results;
+    }
+
+    @Benchmark
+    public PlayerSearchIndex buildIndex() {
+        return new PlayerSearchIndex(players);
+    }
+
+}
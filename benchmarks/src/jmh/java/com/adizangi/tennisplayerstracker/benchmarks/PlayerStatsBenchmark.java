@@ -0,0 +1,51 @@
+/*
+   Benchmark for the extraction of one player's stats from a player page,
+   which PlayerStatsFetcher does for every player
+   Measures the extraction from a page that was already parsed, and the
+   parsing of the page together with the extraction
+ */
+
+package com.adizangi.tennisplayerstracker.benchmarks;
+
+import com.adizangi.tennisplayerstracker.network_calls.PlayerPage;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+
+@State(Scope.Benchmark)
+public class PlayerStatsBenchmark {
+
+    private static final String PLAYER_URL = Fixtures.BASE_URL + "/tennis/player/_/id/1";
+
+    @Param({"advanced.html", "out.html", "not_playing.html"})
+    public String page;
+
+    private String html;
+    private Document document;
+
+    @Setup
+    public void setup() throws IOException {
+        html = Fixtures.readString("/player_pages/" + page);
+        document = Jsoup.parse(html, PLAYER_URL);
+    }
+
+    @Benchmark
+    public PlayerStats extract() {
+        return new PlayerPage(document).getPlayerStats("Novak Djokovic", 1);
+    }
+
+    @Benchmark
+    public PlayerStats parseAndExtract() {
+        Document parsed = Jsoup.parse(html, PLAYER_URL);
+        return new PlayerPage(parsed).getPlayerStats("Novak Djokovic", 1);
+    }
+
+}
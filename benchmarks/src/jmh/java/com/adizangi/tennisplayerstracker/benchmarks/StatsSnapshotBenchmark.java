@@ -0,0 +1,90 @@
+/*
+   Benchmark for looking up the stats of a few selected players, by opening a
+   memory-mapped DataBundle and its StatsSnapshot compared to decoding the
+   whole stats map with DataCodec
+   The number of players in the stats grows with the rankings depth, while
+   the number of selected players stays the same
+ */
+
+package com.adizangi.tennisplayerstracker.benchmarks;
+
+import com.adizangi.tennisplayerstracker.utils_data.DataBundle;
+import com.adizangi.tennisplayerstracker.utils_data.DataCodec;
+import com.adizangi.tennisplayerstracker.utils_data.PlayerStats;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@State(Scope.Benchmark)
+public class StatsSnapshotBenchmark {
+
+    @Param({"200", "1000", "5000"})
+    public int numOfPlayers;
+
+    private File bundleFile;
+    private byte[] encodedStats;
+    private List<String> selectedPlayers;
+
+    @Setup
+    public void setup() throws IOException {
+        Map<String, PlayerStats> stats = new HashMap<>();
+        for (int i = 1; i <= numOfPlayers; i++) {
+            String name = "Player Number" + i;
+            stats.put(name + " (ATP)", new PlayerStats(name,
+                    i,
+                    2020,
+                    i % 7,
+                    PlayerStats.Standing.OUT,
+                    "Round of 16",
+                    4,
+                    "Western & Southern Open",
+                    "Round of 16- Other Player" + i + " 6-4 3-6 7-6",
+                    ""));
+        }
+        selectedPlayers = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            selectedPlayers.add("Player Number" + (i * numOfPlayers / 5) + " (ATP)");
+        }
+        bundleFile = File.createTempFile("data", ".bundle");
+        DataBundle.write(bundleFile, 1, new ArrayList<String>(), stats, "");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataCodec.writePlayerStats(out, stats, false);
+        encodedStats = out.toByteArray();
+        if (snapshotLookup().size() != selectedPlayers.size()) {
+            throw new IllegalStateException("The selected players are not found");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        bundleFile.delete();
+    }
+
+    @Benchmark
+    public Map<String, PlayerStats> snapshotLookup() throws IOException {
+        return DataBundle.open(bundleFile).getStats().getAll(selectedPlayers);
+    }
+
+    @Benchmark
+    public List<PlayerStats> decodeAndLookup() throws IOException {
+        Map<String, PlayerStats> stats = DataCodec.readPlayerStats(encodedStats);
+        List<PlayerStats> selectedStats = new ArrayList<>();
+        for (String player : selectedPlayers) {
+            selectedStats.add(stats.get(player));
+        }
+        return selectedStats;
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+   Benchmark for getting the list of total players from the rankings pages
+   Measures the streaming extraction of the men's and women's rankings
+   together with building the RankingsIndex and the list, and the list
+   alone from an index that was already built
+ */
+
+package com.adizangi.tennisplayerstracker.benchmarks;
+
+import com.adizangi.tennisplayerstracker.network_calls.RankedPlayer;
+import com.adizangi.tennisplayerstracker.network_calls.RankingsExtractor;
+import com.adizangi.tennisplayerstracker.network_calls.RankingsIndex;
+import com.adizangi.tennisplayerstracker.network_calls.TotalPlayersFetcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+@State(Scope.Benchmark)
+public class TotalPlayersBenchmark {
+
+    private static final String RANKINGS_URL = Fixtures.BASE_URL + "/tennis/rankings";
+
+    @Param({"100"})
+    public int depth;
+
+    private byte[] rankingsPage;
+    private RankingsIndex rankingsIndex;
+
+    @Setup
+    public void setup() throws IOException {
+        rankingsPage = Fixtures.readBytes("/rankings.html");
+        rankingsIndex = buildIndex();
+        if (rankingsIndex.size() != 2 * depth) {
+            throw new IllegalStateException("The rankings fixture has too few players");
+        }
+    }
+
+    @Benchmark
+    public List<String> extractAndList() throws IOException {
+        return new TotalPlayersFetcher(buildIndex()).getTotalPlayersList();
+    }
+
+    @Benchmark
+    public List<String> listFromIndex() {
+        return new TotalPlayersFetcher(rankingsIndex).getTotalPlayersList();
+    }
+
+    /*
+       Extracts the rankings from the fixture page, once for each tour, and
+       returns an index of them
+     */
+    private RankingsIndex buildIndex() throws IOException {
+        RankingsExtractor extractor = new RankingsExtractor(depth);
+        List<RankedPlayer> mRankings = extractor.extract
+                (new ByteArrayInputStream(rankingsPage), RANKINGS_URL);
+        List<RankedPlayer> wRankings = extractor.extract
+                (new ByteArrayInputStream(rankingsPage), RANKINGS_URL);
+        return new RankingsIndex(mRankings, wRankings, depth);
+    }
+
+}